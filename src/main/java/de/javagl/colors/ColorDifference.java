@@ -0,0 +1,335 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors;
+
+/**
+ * Metrics for the perceptual difference between colors. The alpha 
+ * components of the colors are ignored.
+ */
+public enum ColorDifference
+{
+    /**
+     * The CIE 1976 color difference, which is the Euclidean distance
+     * in the CIELAB color space
+     */
+    CIE76
+    {
+        @Override
+        void convert(int argb, double coordinates[], int offset)
+        {
+            ColorSpaces.argbToLab(argb, coordinates, offset);
+        }
+        
+        @Override
+        double compute(double c[], int i0, int i1)
+        {
+            double dL = c[i0 + 0] - c[i1 + 0];
+            double da = c[i0 + 1] - c[i1 + 1];
+            double db = c[i0 + 2] - c[i1 + 2];
+            return Math.sqrt(dL * dL + da * da + db * db);
+        }
+    },
+    
+    /**
+     * The CIE 1994 color difference in the CIELAB color space, with the 
+     * parameters for graphic arts. Note that this metric is not 
+     * symmetric: The first color is the reference color.
+     */
+    CIE94
+    {
+        @Override
+        void convert(int argb, double coordinates[], int offset)
+        {
+            ColorSpaces.argbToLab(argb, coordinates, offset);
+        }
+        
+        @Override
+        double compute(double c[], int i0, int i1)
+        {
+            double L0 = c[i0 + 0];
+            double a0 = c[i0 + 1];
+            double b0 = c[i0 + 2];
+            double L1 = c[i1 + 0];
+            double a1 = c[i1 + 1];
+            double b1 = c[i1 + 2];
+            double C0 = Math.sqrt(a0 * a0 + b0 * b0);
+            double C1 = Math.sqrt(a1 * a1 + b1 * b1);
+            double dL = L0 - L1;
+            double dC = C0 - C1;
+            double da = a0 - a1;
+            double db = b0 - b1;
+            double dH2 = Math.max(0.0, da * da + db * db - dC * dC);
+            double sC = 1.0 + 0.045 * C0;
+            double sH = 1.0 + 0.015 * C0;
+            double tC = dC / sC;
+            return Math.sqrt(dL * dL + tC * tC + dH2 / (sH * sH));
+        }
+    },
+    
+    /**
+     * The CIEDE2000 color difference in the CIELAB color space, with 
+     * all parametric weighting factors being 1.0
+     */
+    CIEDE2000
+    {
+        @Override
+        void convert(int argb, double coordinates[], int offset)
+        {
+            ColorSpaces.argbToLab(argb, coordinates, offset);
+        }
+        
+        @Override
+        double compute(double c[], int i0, int i1)
+        {
+            return computeCiede2000(
+                c[i0 + 0], c[i0 + 1], c[i0 + 2], 
+                c[i1 + 0], c[i1 + 1], c[i1 + 2]);
+        }
+    },
+    
+    /**
+     * The Euclidean distance in the OKLab color space. Note that the 
+     * values of this metric are roughly 100 times smaller than the 
+     * values of the CIELAB-based metrics.
+     */
+    OKLAB
+    {
+        @Override
+        void convert(int argb, double coordinates[], int offset)
+        {
+            ColorSpaces.argbToOkLab(argb, coordinates, offset);
+        }
+        
+        @Override
+        double compute(double c[], int i0, int i1)
+        {
+            double dL = c[i0 + 0] - c[i1 + 0];
+            double da = c[i0 + 1] - c[i1 + 1];
+            double db = c[i0 + 2] - c[i1 + 2];
+            return Math.sqrt(dL * dL + da * da + db * db);
+        }
+    };
+    
+    /**
+     * The value of 25 to the power of 7
+     */
+    private static final double POW_25_7 = 6103515625.0;
+    
+    /**
+     * The cosine of 30 degrees
+     */
+    private static final double COS_30 = Math.cos(Math.toRadians(30.0));
+    
+    /**
+     * The sine of 30 degrees
+     */
+    private static final double SIN_30 = Math.sin(Math.toRadians(30.0));
+    
+    /**
+     * The cosine of 6 degrees
+     */
+    private static final double COS_6 = Math.cos(Math.toRadians(6.0));
+    
+    /**
+     * The sine of 6 degrees
+     */
+    private static final double SIN_6 = Math.sin(Math.toRadians(6.0));
+    
+    /**
+     * The cosine of 63 degrees
+     */
+    private static final double COS_63 = Math.cos(Math.toRadians(63.0));
+    
+    /**
+     * The sine of 63 degrees
+     */
+    private static final double SIN_63 = Math.sin(Math.toRadians(63.0));
+    
+    /**
+     * Computes the difference between the given ARGB colors
+     * 
+     * @param argb0 The first color
+     * @param argb1 The second color
+     * @return The difference
+     */
+    public double compute(int argb0, int argb1)
+    {
+        double coordinates[] = new double[6];
+        convert(argb0, coordinates, 0);
+        convert(argb1, coordinates, 3);
+        return compute(coordinates, 0, 3);
+    }
+    
+    /**
+     * Converts the given ARGB color into the three coordinates of the 
+     * color space that this metric is computed in, and writes them into 
+     * the given array, at the given offset
+     * 
+     * @param argb The ARGB color
+     * @param coordinates The array that will store the result
+     * @param offset The offset in the array
+     */
+    abstract void convert(int argb, double coordinates[], int offset);
+    
+    /**
+     * Computes the difference between the colors whose coordinates 
+     * are stored at the given offsets in the given array
+     * 
+     * @param coordinates The coordinates
+     * @param offset0 The offset of the first color
+     * @param offset1 The offset of the second color
+     * @return The difference
+     */
+    abstract double compute(double coordinates[], int offset0, int offset1);
+    
+    /**
+     * Computes the CIEDE2000 color difference between the given CIELAB 
+     * colors. The implementation follows "The CIEDE2000 Color-Difference 
+     * Formula: Implementation Notes, Supplementary Test Data, and 
+     * Mathematical Observations" by Sharma, Wu and Dalal.
+     * 
+     * @param L1 The L* of the first color
+     * @param a1 The a* of the first color
+     * @param b1 The b* of the first color
+     * @param L2 The L* of the second color
+     * @param a2 The a* of the second color
+     * @param b2 The b* of the second color
+     * @return The color difference
+     */
+    private static double computeCiede2000(
+        double L1, double a1, double b1, double L2, double a2, double b2)
+    {
+        double C1 = Math.sqrt(a1 * a1 + b1 * b1);
+        double C2 = Math.sqrt(a2 * a2 + b2 * b2);
+        double meanC = 0.5 * (C1 + C2);
+        double meanC7 = pow7(meanC);
+        double G = 0.5 * (1.0 - Math.sqrt(meanC7 / (meanC7 + POW_25_7)));
+        double a1p = (1.0 + G) * a1;
+        double a2p = (1.0 + G) * a2;
+        double C1p = Math.sqrt(a1p * a1p + b1 * b1);
+        double C2p = Math.sqrt(a2p * a2p + b2 * b2);
+        double h1p = hueAngle(b1, a1p);
+        double h2p = hueAngle(b2, a2p);
+        
+        double dLp = L2 - L1;
+        double dCp = C2p - C1p;
+        double dhp = 0.0;
+        if (C1p * C2p != 0.0)
+        {
+            dhp = h2p - h1p;
+            if (dhp > 180.0)
+            {
+                dhp -= 360.0;
+            }
+            else if (dhp < -180.0)
+            {
+                dhp += 360.0;
+            }
+        }
+        double dHp = 2.0 * Math.sqrt(C1p * C2p) 
+            * Math.sin(Math.toRadians(0.5 * dhp));
+        
+        double meanLp = 0.5 * (L1 + L2);
+        double meanCp = 0.5 * (C1p + C2p);
+        double meanhp = h1p + h2p;
+        if (C1p * C2p != 0.0)
+        {
+            if (Math.abs(h1p - h2p) <= 180.0)
+            {
+                meanhp *= 0.5;
+            }
+            else if (h1p + h2p < 360.0)
+            {
+                meanhp = 0.5 * (meanhp + 360.0);
+            }
+            else
+            {
+                meanhp = 0.5 * (meanhp - 360.0);
+            }
+        }
+        // The cosines of multiples of the mean hue angle are computed
+        // from a single sine and cosine, with the angle addition rules
+        double rad = Math.toRadians(meanhp);
+        double c1 = Math.cos(rad);
+        double s1 = Math.sin(rad);
+        double c2 = c1 * c1 - s1 * s1;
+        double s2 = 2.0 * s1 * c1;
+        double c3 = c2 * c1 - s2 * s1;
+        double s3 = s2 * c1 + c2 * s1;
+        double c4 = c2 * c2 - s2 * s2;
+        double s4 = 2.0 * s2 * c2;
+        double T = 1.0 
+            - 0.17 * (c1 * COS_30 + s1 * SIN_30)
+            + 0.24 * c2
+            + 0.32 * (c3 * COS_6 - s3 * SIN_6)
+            - 0.20 * (c4 * COS_63 + s4 * SIN_63);
+        double dTheta = 30.0 * Math.exp(
+            -((meanhp - 275.0) / 25.0) * ((meanhp - 275.0) / 25.0));
+        double meanCp7 = pow7(meanCp);
+        double RC = 2.0 * Math.sqrt(meanCp7 / (meanCp7 + POW_25_7));
+        double L50 = (meanLp - 50.0) * (meanLp - 50.0);
+        double SL = 1.0 + 0.015 * L50 / Math.sqrt(20.0 + L50);
+        double SC = 1.0 + 0.045 * meanCp;
+        double SH = 1.0 + 0.015 * meanCp * T;
+        double RT = -Math.sin(Math.toRadians(2.0 * dTheta)) * RC;
+        
+        double tL = dLp / SL;
+        double tC = dCp / SC;
+        double tH = dHp / SH;
+        return Math.sqrt(tL * tL + tC * tC + tH * tH + RT * tC * tH);
+    }
+    
+    /**
+     * Returns the given value to the power of 7
+     * 
+     * @param x The value
+     * @return The result
+     */
+    private static double pow7(double x)
+    {
+        double x2 = x * x;
+        return x2 * x2 * x2 * x;
+    }
+    
+    /**
+     * Returns the hue angle for the given components, in degrees, 
+     * in [0,360)
+     * 
+     * @param b The b component
+     * @param a The a component
+     * @return The hue angle
+     */
+    private static double hueAngle(double b, double a)
+    {
+        if (a == 0.0 && b == 0.0)
+        {
+            return 0.0;
+        }
+        double h = Math.toDegrees(Math.atan2(b, a));
+        return h < 0.0 ? h + 360.0 : h;
+    }
+}
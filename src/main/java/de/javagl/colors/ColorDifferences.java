@@ -0,0 +1,171 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors;
+
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+/**
+ * Methods for computing the {@link ColorDifference} between many colors
+ */
+public class ColorDifferences
+{
+    /**
+     * The size of the blocks of the distance matrix that are computed
+     * by one task
+     */
+    private static final int BLOCK_SIZE = 64;
+    
+    /**
+     * Computes the matrix of the differences between all pairs of the 
+     * given colors, using multiple threads.<br>
+     * <br>
+     * The element <code>(i,j)</code> of the matrix will be written into 
+     * the given target array at index <code>i * n + j</code>, where 
+     * <code>n</code> is the number of colors. The colors are converted 
+     * into the color space of the metric once, and the matrix is 
+     * computed in square blocks, so that the coordinates that are 
+     * required for one block remain in the cache. For symmetric metrics, 
+     * only one half of the matrix is computed, and mirrored into the 
+     * other half.
+     * 
+     * @param metric The {@link ColorDifference}
+     * @param argbs The ARGB colors
+     * @param target The target array
+     * @throws IllegalArgumentException If the target array is smaller 
+     * than <code>n * n</code>, or this size is larger than the maximum
+     * size of an array
+     */
+    public static void computeMatrix(
+        ColorDifference metric, int argbs[], float target[])
+    {
+        Objects.requireNonNull(metric, "The metric may not be null");
+        int n = argbs.length;
+        long size = (long)n * n;
+        if (size > Integer.MAX_VALUE)
+        {
+            throw new IllegalArgumentException(
+                "Can not compute a matrix for " + n + " colors");
+        }
+        if (target.length < size)
+        {
+            throw new IllegalArgumentException("Target array has length " 
+                + target.length + ", expected at least " + size);
+        }
+        double coordinates[] = convert(metric, argbs);
+        boolean symmetric = metric != ColorDifference.CIE94;
+        int numBlocks = (n + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        int numTasks = symmetric ? 
+            numBlocks * (numBlocks + 1) / 2 : numBlocks * numBlocks;
+        int blockRows[] = new int[numTasks];
+        int blockColumns[] = new int[numTasks];
+        int task = 0;
+        for (int bi = 0; bi < numBlocks; bi++)
+        {
+            for (int bj = symmetric ? bi : 0; bj < numBlocks; bj++)
+            {
+                blockRows[task] = bi;
+                blockColumns[task] = bj;
+                task++;
+            }
+        }
+        IntStream.range(0, numTasks).parallel().forEach(t -> 
+        {
+            int minI = blockRows[t] * BLOCK_SIZE;
+            int maxI = Math.min(n, minI + BLOCK_SIZE);
+            int minJ = blockColumns[t] * BLOCK_SIZE;
+            int maxJ = Math.min(n, minJ + BLOCK_SIZE);
+            for (int i = minI; i < maxI; i++)
+            {
+                int startJ = symmetric ? Math.max(minJ, i) : minJ;
+                for (int j = startJ; j < maxJ; j++)
+                {
+                    float d = i == j ? 0.0f : 
+                        (float)metric.compute(coordinates, i * 3, j * 3);
+                    target[i * n + j] = d;
+                    if (symmetric)
+                    {
+                        target[j * n + i] = d;
+                    }
+                }
+            }
+        });
+    }
+    
+    /**
+     * Computes the minimum difference between all pairs of distinct 
+     * elements of the given colors, using multiple threads. If fewer
+     * than two colors are given, then positive infinity is returned.
+     * 
+     * @param metric The {@link ColorDifference}
+     * @param argbs The ARGB colors
+     * @return The minimum difference
+     */
+    public static double computeMinimum(ColorDifference metric, int argbs[])
+    {
+        Objects.requireNonNull(metric, "The metric may not be null");
+        int n = argbs.length;
+        double coordinates[] = convert(metric, argbs);
+        boolean symmetric = metric != ColorDifference.CIE94;
+        return IntStream.range(0, n).parallel().mapToDouble(i -> 
+        {
+            double min = Double.POSITIVE_INFINITY;
+            for (int j = symmetric ? i + 1 : 0; j < n; j++)
+            {
+                if (i != j)
+                {
+                    double d = metric.compute(coordinates, i * 3, j * 3);
+                    min = Math.min(min, d);
+                }
+            }
+            return min;
+        }).min().orElse(Double.POSITIVE_INFINITY);
+    }
+    
+    /**
+     * Converts the given colors into the color space of the given metric
+     * 
+     * @param metric The {@link ColorDifference}
+     * @param argbs The ARGB colors
+     * @return The coordinates, with three elements per color
+     */
+    static double[] convert(ColorDifference metric, int argbs[])
+    {
+        double coordinates[] = new double[argbs.length * 3];
+        IntStream.range(0, argbs.length).parallel().forEach(i -> 
+            metric.convert(argbs[i], coordinates, i * 3));
+        return coordinates;
+    }
+    
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private ColorDifferences()
+    {
+        // Private constructor to prevent instantiation
+    }
+}
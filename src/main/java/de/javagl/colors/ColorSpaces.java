@@ -0,0 +1,241 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors;
+
+/**
+ * Utility methods for converting colors between color spaces. <br>
+ * <br>
+ * Unless otherwise noted, ARGB colors are assumed to be in the sRGB
+ * color space.
+ */
+public class ColorSpaces
+{
+    /**
+     * The lookup table for converting sRGB components in [0,255] into
+     * linear RGB components in [0,1]
+     */
+    private static final double SRGB_TO_LINEAR[] = createSrgbToLinear();
+    
+    /**
+     * Creates the lookup table for converting sRGB components to 
+     * linear RGB components
+     * 
+     * @return The lookup table
+     */
+    private static double[] createSrgbToLinear()
+    {
+        double result[] = new double[256];
+        for (int i = 0; i < 256; i++)
+        {
+            double c = i / 255.0;
+            if (c <= 0.04045)
+            {
+                result[i] = c / 12.92;
+            }
+            else
+            {
+                result[i] = Math.pow((c + 0.055) / 1.055, 2.4);
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Converts the given sRGB component into a linear RGB component
+     * 
+     * @param component The sRGB component, in [0,255]
+     * @return The linear RGB component, in [0,1]
+     * @throws IndexOutOfBoundsException If the component is not in [0,255]
+     */
+    public static double srgbToLinear(int component)
+    {
+        return SRGB_TO_LINEAR[component];
+    }
+    
+    /**
+     * Converts the given linear RGB component into an sRGB component
+     * 
+     * @param component The linear RGB component. This will be clamped
+     * to [0,1]
+     * @return The sRGB component, in [0,255]
+     */
+    public static int linearToSrgb(double component)
+    {
+        double c = Math.max(0.0, Math.min(1.0, component));
+        double s;
+        if (c <= 0.0031308)
+        {
+            s = c * 12.92;
+        }
+        else
+        {
+            s = 1.055 * Math.pow(c, 1.0 / 2.4) - 0.055;
+        }
+        return (int)(s * 255.0 + 0.5);
+    }
+    
+    /**
+     * Converts the given ARGB color into the OKLab color space. The 
+     * lightness, a and b components will be written into the given 
+     * array, at the given offset. The alpha component is ignored.
+     * 
+     * @param argb The ARGB color
+     * @param lab The array that will store the result
+     * @param offset The offset in the array
+     * @throws IndexOutOfBoundsException If the array does not have
+     * space for three elements at the given offset
+     */
+    public static void argbToOkLab(int argb, double lab[], int offset)
+    {
+        double r = SRGB_TO_LINEAR[(argb >> 16) & 0xFF];
+        double g = SRGB_TO_LINEAR[(argb >> 8) & 0xFF];
+        double b = SRGB_TO_LINEAR[argb & 0xFF];
+        
+        double l = 0.4122214708 * r + 0.5363325363 * g + 0.0514459929 * b;
+        double m = 0.2119034982 * r + 0.6806995451 * g + 0.1073969566 * b;
+        double s = 0.0883024619 * r + 0.2817188376 * g + 0.6299787005 * b;
+        
+        double lc = Math.cbrt(l);
+        double mc = Math.cbrt(m);
+        double sc = Math.cbrt(s);
+        
+        lab[offset + 0] = 
+            0.2104542553 * lc + 0.7936177850 * mc - 0.0040720468 * sc;
+        lab[offset + 1] = 
+            1.9779984951 * lc - 2.4285922050 * mc + 0.4505937099 * sc;
+        lab[offset + 2] = 
+            0.0259040371 * lc + 0.7827717662 * mc - 0.8086757660 * sc;
+    }
+    
+    /**
+     * Converts the given ARGB color into the CIELAB color space, using
+     * the D65 white point. The L*, a* and b* components will be written
+     * into the given array, at the given offset. The alpha component is 
+     * ignored.
+     * 
+     * @param argb The ARGB color
+     * @param lab The array that will store the result
+     * @param offset The offset in the array
+     * @throws IndexOutOfBoundsException If the array does not have
+     * space for three elements at the given offset
+     */
+    public static void argbToLab(int argb, double lab[], int offset)
+    {
+        double r = SRGB_TO_LINEAR[(argb >> 16) & 0xFF];
+        double g = SRGB_TO_LINEAR[(argb >> 8) & 0xFF];
+        double b = SRGB_TO_LINEAR[argb & 0xFF];
+        
+        double x = 0.4124564 * r + 0.3575761 * g + 0.1804375 * b;
+        double y = 0.2126729 * r + 0.7151522 * g + 0.0721750 * b;
+        double z = 0.0193339 * r + 0.1191920 * g + 0.9503041 * b;
+        
+        double fx = labF(x / 0.95047);
+        double fy = labF(y);
+        double fz = labF(z / 1.08883);
+        
+        lab[offset + 0] = 116.0 * fy - 16.0;
+        lab[offset + 1] = 500.0 * (fx - fy);
+        lab[offset + 2] = 200.0 * (fy - fz);
+    }
+    
+    /**
+     * The nonlinear function that is used in the conversion from 
+     * CIEXYZ to CIELAB
+     * 
+     * @param t The value
+     * @return The result
+     */
+    private static double labF(double t)
+    {
+        final double delta = 6.0 / 29.0;
+        if (t > delta * delta * delta)
+        {
+            return Math.cbrt(t);
+        }
+        return t / (3.0 * delta * delta) + 4.0 / 29.0;
+    }
+    
+    /**
+     * Converts the given OKLab color into an ARGB color. Colors that are
+     * outside of the sRGB gamut are clamped.
+     * 
+     * @param lightness The lightness
+     * @param a The a component
+     * @param b The b component
+     * @param alpha The alpha component of the result, in [0,255]
+     * @return The ARGB color
+     */
+    public static int okLabToArgb(
+        double lightness, double a, double b, int alpha)
+    {
+        double lc = lightness + 0.3963377774 * a + 0.2158037573 * b;
+        double mc = lightness - 0.1055613458 * a - 0.0638541728 * b;
+        double sc = lightness - 0.0894841775 * a - 1.2914855480 * b;
+        
+        double l = lc * lc * lc;
+        double m = mc * mc * mc;
+        double s = sc * sc * sc;
+        
+        double rl = 4.0767416621 * l - 3.3077115913 * m + 0.2309699292 * s;
+        double gl = -1.2684380046 * l + 2.6097574011 * m - 0.3413193965 * s;
+        double bl = -0.0041960863 * l - 0.7034186147 * m + 1.7076147010 * s;
+        
+        return Colors.getARGB(alpha, 
+            linearToSrgb(rl), linearToSrgb(gl), linearToSrgb(bl));
+    }
+    
+    /**
+     * Interpolates between the given ARGB colors in the OKLab color space.
+     * The alpha components are interpolated linearly.
+     * 
+     * @param argb0 The first color
+     * @param argb1 The second color
+     * @param t The interpolation value, in [0,1]
+     * @return The interpolated color
+     */
+    public static int interpolateOkLab(int argb0, int argb1, double t)
+    {
+        double lab[] = new double[6];
+        argbToOkLab(argb0, lab, 0);
+        argbToOkLab(argb1, lab, 3);
+        double lightness = lab[0] + t * (lab[3] - lab[0]);
+        double a = lab[1] + t * (lab[4] - lab[1]);
+        double b = lab[2] + t * (lab[5] - lab[2]);
+        int alpha0 = Colors.getAlpha(argb0);
+        int alpha1 = Colors.getAlpha(argb1);
+        int alpha = (int)(alpha0 + t * (alpha1 - alpha0) + 0.5);
+        return okLabToArgb(lightness, a, b, alpha);
+    }
+    
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private ColorSpaces()
+    {
+        // Private constructor to prevent instantiation
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+/**
+ * Methods for simulating how colors are perceived with a 
+ * {@link ColorVisionDeficiency}.<br>
+ * <br>
+ * The sRGB components are linearized with a lookup table, transformed 
+ * with the matrix of the deficiency, and converted back to sRGB with 
+ * another lookup table. The alpha components are preserved.
+ */
+public class ColorVisionDeficiencies
+{
+    /**
+     * The number of elements in the lookup table for converting linear
+     * RGB components back to sRGB components
+     */
+    private static final int LINEAR_TO_SRGB_SIZE = 1 << 14;
+    
+    /**
+     * The lookup table for converting sRGB components to linear RGB 
+     * components
+     */
+    private static final float SRGB_TO_LINEAR[] = createSrgbToLinear();
+    
+    /**
+     * The lookup table for converting linear RGB components, scaled
+     * to the size of the table, to sRGB components
+     */
+    private static final byte LINEAR_TO_SRGB[] = createLinearToSrgb();
+    
+    /**
+     * The number of colors that are processed by one task in the 
+     * parallel methods
+     */
+    private static final int PARALLEL_CHUNK_SIZE = 1 << 14;
+    
+    /**
+     * Creates the lookup table for converting sRGB components to 
+     * linear RGB components
+     * 
+     * @return The lookup table
+     */
+    private static float[] createSrgbToLinear()
+    {
+        float result[] = new float[256];
+        for (int i = 0; i < 256; i++)
+        {
+            result[i] = (float)ColorSpaces.srgbToLinear(i);
+        }
+        return result;
+    }
+    
+    /**
+     * Creates the lookup table for converting linear RGB components
+     * to sRGB components
+     * 
+     * @return The lookup table
+     */
+    private static byte[] createLinearToSrgb()
+    {
+        byte result[] = new byte[LINEAR_TO_SRGB_SIZE];
+        for (int i = 0; i < LINEAR_TO_SRGB_SIZE; i++)
+        {
+            double c = (double)i / (LINEAR_TO_SRGB_SIZE - 1);
+            result[i] = (byte)ColorSpaces.linearToSrgb(c);
+        }
+        return result;
+    }
+    
+    /**
+     * Simulate how the given ARGB color is perceived with the given 
+     * {@link ColorVisionDeficiency}
+     * 
+     * @param deficiency The {@link ColorVisionDeficiency}
+     * @param argb The ARGB color
+     * @return The simulated ARGB color
+     */
+    public static int simulate(ColorVisionDeficiency deficiency, int argb)
+    {
+        return simulate(deficiency.getMatrix(), argb);
+    }
+    
+    /**
+     * Simulate how the given ARGB colors are perceived with the given 
+     * {@link ColorVisionDeficiency}. The source and target array may 
+     * be identical.
+     * 
+     * @param deficiency The {@link ColorVisionDeficiency}
+     * @param src The source ARGB colors
+     * @param srcOffset The offset in the source array
+     * @param dst The target array for the simulated ARGB colors
+     * @param dstOffset The offset in the target array
+     * @param length The number of colors
+     * @throws IndexOutOfBoundsException If the offsets or the length 
+     * are invalid for the given arrays
+     */
+    public static void simulate(ColorVisionDeficiency deficiency, 
+        int src[], int srcOffset, int dst[], int dstOffset, int length)
+    {
+        float m[] = deficiency.getMatrix();
+        for (int i = 0; i < length; i++)
+        {
+            dst[dstOffset + i] = simulate(m, src[srcOffset + i]);
+        }
+    }
+    
+    /**
+     * Simulate how the given ARGB colors are perceived with the given 
+     * {@link ColorVisionDeficiency}, using multiple threads for large 
+     * arrays. The source and target array may be identical.
+     * 
+     * @param deficiency The {@link ColorVisionDeficiency}
+     * @param src The source ARGB colors
+     * @param dst The target array for the simulated ARGB colors
+     * @throws IndexOutOfBoundsException If the target array is smaller
+     * than the source array
+     */
+    public static void simulateParallel(
+        ColorVisionDeficiency deficiency, int src[], int dst[])
+    {
+        Objects.requireNonNull(deficiency, "The deficiency may not be null");
+        if (dst.length < src.length)
+        {
+            throw new IndexOutOfBoundsException(
+                "Destination array has length " + dst.length 
+                + ", expected at least " + src.length);
+        }
+        int n = src.length;
+        int chunks = (n + PARALLEL_CHUNK_SIZE - 1) / PARALLEL_CHUNK_SIZE;
+        IntStream.range(0, chunks).parallel().forEach(c -> 
+        {
+            int start = c * PARALLEL_CHUNK_SIZE;
+            int length = Math.min(PARALLEL_CHUNK_SIZE, n - start);
+            simulate(deficiency, src, start, dst, start, length);
+        });
+    }
+    
+    /**
+     * Computes the minimum difference between all pairs of the given
+     * colors, as they are perceived with each 
+     * {@link ColorVisionDeficiency}.<br>
+     * <br>
+     * This can be used to check whether the colors of a palette can 
+     * still be distinguished. The colors of a ColorBrewer scheme can
+     * be obtained with <code>ColorBrewer.getArgbs</code>, and the colors 
+     * of an indexed color map with <code>IndexedColorMaps.toArgbs</code>.
+     * 
+     * @param metric The {@link ColorDifference}
+     * @param argbs The ARGB colors
+     * @return The mapping from each {@link ColorVisionDeficiency} to
+     * the minimum difference, as computed with 
+     * {@link ColorDifferences#computeMinimum(ColorDifference, int[])}
+     */
+    public static Map<ColorVisionDeficiency, Double> computeMinimumDifferences(
+        ColorDifference metric, int argbs[])
+    {
+        Objects.requireNonNull(metric, "The metric may not be null");
+        Map<ColorVisionDeficiency, Double> result = 
+            new EnumMap<ColorVisionDeficiency, Double>(
+                ColorVisionDeficiency.class);
+        int simulated[] = new int[argbs.length];
+        for (ColorVisionDeficiency deficiency : 
+            ColorVisionDeficiency.values())
+        {
+            simulate(deficiency, argbs, 0, simulated, 0, argbs.length);
+            double minimum = 
+                ColorDifferences.computeMinimum(metric, simulated);
+            result.put(deficiency, minimum);
+        }
+        return result;
+    }
+    
+    /**
+     * Simulate the perception of the given ARGB color with the given
+     * matrix
+     * 
+     * @param m The row-major 3x3 matrix
+     * @param argb The ARGB color
+     * @return The simulated ARGB color
+     */
+    private static int simulate(float m[], int argb)
+    {
+        float r = SRGB_TO_LINEAR[(argb >> 16) & 0xFF];
+        float g = SRGB_TO_LINEAR[(argb >>  8) & 0xFF];
+        float b = SRGB_TO_LINEAR[(argb      ) & 0xFF];
+        int rr = toSrgb(m[0] * r + m[1] * g + m[2] * b);
+        int gg = toSrgb(m[3] * r + m[4] * g + m[5] * b);
+        int bb = toSrgb(m[6] * r + m[7] * g + m[8] * b);
+        return (argb & 0xFF000000) | (rr << 16) | (gg << 8) | bb;
+    }
+    
+    /**
+     * Converts the given linear RGB component into an sRGB component,
+     * using the lookup table
+     * 
+     * @param c The linear RGB component. This will be clamped to [0,1]
+     * @return The sRGB component, in [0,255]
+     */
+    private static int toSrgb(float c)
+    {
+        int index = (int)(c * (LINEAR_TO_SRGB_SIZE - 1) + 0.5f);
+        if (index < 0)
+        {
+            return 0;
+        }
+        if (index >= LINEAR_TO_SRGB_SIZE)
+        {
+            return 255;
+        }
+        return LINEAR_TO_SRGB[index] & 0xFF;
+    }
+    
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private ColorVisionDeficiencies()
+    {
+        // Private constructor to prevent instantiation
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors;
+
+/**
+ * Types of color vision deficiency that can be simulated with the 
+ * {@link ColorVisionDeficiencies} class.<br>
+ * <br>
+ * The simulation uses the matrices for a severity of 1.0 from 
+ * Machado, Oliveira and Fernandes, "A Physiologically-based Model for 
+ * Simulation of Color Vision Deficiency" (2009), which are applied to
+ * linear RGB components.
+ */
+public enum ColorVisionDeficiency
+{
+    /**
+     * Protanopia, the absence of the long-wavelength (red) cones
+     */
+    PROTANOPIA(new float[] 
+    {
+         0.152286f,  1.052583f, -0.204868f,
+         0.114503f,  0.786281f,  0.099216f,
+        -0.003882f, -0.048116f,  1.051998f
+    }),
+    
+    /**
+     * Deuteranopia, the absence of the medium-wavelength (green) cones
+     */
+    DEUTERANOPIA(new float[] 
+    {
+         0.367322f,  0.860646f, -0.227968f,
+         0.280085f,  0.672501f,  0.047413f,
+        -0.011820f,  0.042940f,  0.968881f
+    }),
+    
+    /**
+     * Tritanopia, the absence of the short-wavelength (blue) cones
+     */
+    TRITANOPIA(new float[] 
+    {
+         1.255528f, -0.076749f, -0.178779f,
+        -0.078411f,  0.930809f,  0.147602f,
+         0.004733f,  0.691367f,  0.303900f
+    });
+    
+    /**
+     * The row-major 3x3 matrix that is applied to linear RGB components
+     */
+    private final float matrix[];
+    
+    /**
+     * Creates a new instance
+     * 
+     * @param matrix The matrix
+     */
+    private ColorVisionDeficiency(float matrix[])
+    {
+        this.matrix = matrix;
+    }
+    
+    /**
+     * Returns a reference to the row-major 3x3 matrix that is applied 
+     * to linear RGB components
+     * 
+     * @return The matrix
+     */
+    float[] getMatrix()
+    {
+        return matrix;
+    }
+}
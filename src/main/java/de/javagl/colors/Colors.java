@@ -34,6 +34,12 @@ import java.util.List;
  */
 public class Colors
 {
+    /**
+     * The lookup table for the linearized components that are used
+     * in {@link #computeLuminance(int)}
+     */
+    private static final double LINEARIZED[] = createLinearized();
+    
     /**
      * Create a new color, clamping the given values to be in [0, 255]
      * 
@@ -332,16 +338,29 @@ public class Colors
      */
     public static double computeLuminance(int argb)
     {
-        int r = getRed(argb);
-        int g = getGreen(argb);
-        int b = getBlue(argb);
-        double nr = Math.pow((r / 255.0), 2.2);
-        double ng = Math.pow((g / 255.0), 2.2);
-        double nb = Math.pow((b / 255.0), 2.2);
+        double nr = LINEARIZED[getRed(argb)];
+        double ng = LINEARIZED[getGreen(argb)];
+        double nb = LINEARIZED[getBlue(argb)];
         double y = 0.2126 * nr + 0.7151 * ng + 0.0721 * nb;
         return y;
     }
     
+    /**
+     * Creates the lookup table for the linearized components that are 
+     * used in {@link #computeLuminance(int)}
+     * 
+     * @return The lookup table
+     */
+    private static double[] createLinearized()
+    {
+        double result[] = new double[256];
+        for (int i = 0; i < 256; i++)
+        {
+            result[i] = Math.pow((i / 255.0), 2.2);
+        }
+        return result;
+    }
+    
     /**
      * Private constructor to prevent instantiation
      */
@@ -0,0 +1,131 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors;
+
+/**
+ * The compositing operations that are supported by {@link Compositing}.
+ * <br>
+ * <br>
+ * The Porter-Duff operations are described with the fractions 
+ * <code>Fs</code> and <code>Fd</code> of the source and destination 
+ * that contribute to the result, in the form 
+ * <code>result = source * Fs + destination * Fd</code>, for 
+ * premultiplied colors, where <code>As</code> and <code>Ad</code> are 
+ * the alpha values of the source and the destination. The blending
+ * operations are applied with source-over compositing, as described in 
+ * the W3C "Compositing and Blending" specification.
+ */
+public enum CompositeMode
+{
+    /**
+     * Neither the source nor the destination is kept 
+     * (<code>Fs=0, Fd=0</code>)
+     */
+    CLEAR,
+    
+    /**
+     * The source is copied (<code>Fs=1, Fd=0</code>)
+     */
+    SRC,
+    
+    /**
+     * The destination is kept (<code>Fs=0, Fd=1</code>)
+     */
+    DST,
+    
+    /**
+     * The source is placed over the destination 
+     * (<code>Fs=1, Fd=1-As</code>)
+     */
+    SRC_OVER,
+    
+    /**
+     * The destination is placed over the source
+     * (<code>Fs=1-Ad, Fd=1</code>)
+     */
+    DST_OVER,
+    
+    /**
+     * The part of the source inside of the destination
+     * (<code>Fs=Ad, Fd=0</code>)
+     */
+    SRC_IN,
+    
+    /**
+     * The part of the destination inside of the source
+     * (<code>Fs=0, Fd=As</code>)
+     */
+    DST_IN,
+    
+    /**
+     * The part of the source outside of the destination
+     * (<code>Fs=1-Ad, Fd=0</code>)
+     */
+    SRC_OUT,
+    
+    /**
+     * The part of the destination outside of the source
+     * (<code>Fs=0, Fd=1-As</code>)
+     */
+    DST_OUT,
+    
+    /**
+     * The part of the source inside of the destination, placed over
+     * the destination (<code>Fs=Ad, Fd=1-As</code>)
+     */
+    SRC_ATOP,
+    
+    /**
+     * The part of the destination inside of the source, placed over
+     * the source (<code>Fs=1-Ad, Fd=As</code>)
+     */
+    DST_ATOP,
+    
+    /**
+     * The parts of the source and the destination that are outside of 
+     * each other (<code>Fs=1-Ad, Fd=1-As</code>)
+     */
+    XOR,
+    
+    /**
+     * The sum of the source and the destination, clamped to 1
+     * (<code>Fs=1, Fd=1</code>)
+     */
+    PLUS,
+    
+    /**
+     * The product of the source and destination colors, with 
+     * source-over compositing
+     */
+    MULTIPLY,
+    
+    /**
+     * The complement of the product of the complements of the source 
+     * and destination colors, with source-over compositing
+     */
+    SCREEN;
+}
@@ -0,0 +1,516 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors;
+
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+/**
+ * Methods for compositing arrays of packed ARGB colors with the 
+ * operations that are defined in {@link CompositeMode}.<br>
+ * <br>
+ * The compositing methods combine a span of source colors with a span
+ * of destination colors, and write the result into the destination. 
+ * They are available for premultiplied colors, and for straight 
+ * (non-premultiplied) colors, which are premultiplied for the 
+ * computation, and converted back afterwards. All computations use 
+ * 8-bit fixed point arithmetic, where the division by 255 is performed 
+ * with a multiplication and a shift.
+ */
+public class Compositing
+{
+    /**
+     * The minimum number of elements that one task of the parallel
+     * methods processes
+     */
+    private static final int PARALLEL_CHUNK_SIZE = 1 << 14;
+    
+    /**
+     * The mask for the red and blue components
+     */
+    private static final int MASK_RB = 0x00FF00FF;
+    
+    /**
+     * The reciprocal values of the alpha values, as 16-bit fixed point 
+     * values, for converting premultiplied colors into straight colors
+     */
+    private static final int RECIPROCALS[] = createReciprocals();
+    
+    /**
+     * Creates the reciprocal table
+     * 
+     * @return The reciprocal table
+     */
+    private static int[] createReciprocals()
+    {
+        int reciprocals[] = new int[256];
+        for (int a = 1; a < 256; a++)
+        {
+            reciprocals[a] = ((255 << 16) + a / 2) / a;
+        }
+        return reciprocals;
+    }
+    
+    /**
+     * Divides the given value by 255, with rounding. The value must be
+     * in [0, 65025].
+     * 
+     * @param x The value
+     * @return The result
+     */
+    static int div255(int x)
+    {
+        return ((x + 128) * 257) >>> 16;
+    }
+    
+    /**
+     * Returns the premultiplied version of the given straight ARGB color
+     * 
+     * @param argb The straight ARGB color
+     * @return The premultiplied ARGB color
+     */
+    public static int premultiply(int argb)
+    {
+        int a = argb >>> 24;
+        if (a == 255)
+        {
+            return argb;
+        }
+        int r = div255(((argb >> 16) & 0xFF) * a);
+        int g = div255(((argb >>  8) & 0xFF) * a);
+        int b = div255(((argb      ) & 0xFF) * a);
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+    
+    /**
+     * Returns the straight version of the given premultiplied ARGB color.
+     * Fully transparent colors will be converted to 0.
+     * 
+     * @param argb The premultiplied ARGB color
+     * @return The straight ARGB color
+     */
+    public static int unpremultiply(int argb)
+    {
+        int a = argb >>> 24;
+        if (a == 255)
+        {
+            return argb;
+        }
+        int reciprocal = RECIPROCALS[a];
+        int r = Math.min(255, 
+            (((argb >> 16) & 0xFF) * reciprocal + 0x8000) >>> 16);
+        int g = Math.min(255, 
+            (((argb >>  8) & 0xFF) * reciprocal + 0x8000) >>> 16);
+        int b = Math.min(255, 
+            (((argb      ) & 0xFF) * reciprocal + 0x8000) >>> 16);
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+    
+    /**
+     * Converts the specified range of the given array of straight ARGB
+     * colors into premultiplied colors, in place
+     * 
+     * @param argbs The colors
+     * @param offset The offset in the array
+     * @param length The number of colors
+     * @throws IndexOutOfBoundsException If the given offset and length
+     * cause an access outside of the array
+     */
+    public static void premultiply(int argbs[], int offset, int length)
+    {
+        for (int i = offset; i < offset + length; i++)
+        {
+            argbs[i] = premultiply(argbs[i]);
+        }
+    }
+    
+    /**
+     * Converts the specified range of the given array of premultiplied 
+     * ARGB colors into straight colors, in place
+     * 
+     * @param argbs The colors
+     * @param offset The offset in the array
+     * @param length The number of colors
+     * @throws IndexOutOfBoundsException If the given offset and length
+     * cause an access outside of the array
+     */
+    public static void unpremultiply(int argbs[], int offset, int length)
+    {
+        for (int i = offset; i < offset + length; i++)
+        {
+            argbs[i] = unpremultiply(argbs[i]);
+        }
+    }
+    
+    /**
+     * Composites the given premultiplied source and destination colors
+     * 
+     * @param mode The {@link CompositeMode}
+     * @param src The premultiplied source color
+     * @param dst The premultiplied destination color
+     * @return The premultiplied result color
+     */
+    public static int compositePremultiplied(
+        CompositeMode mode, int src, int dst)
+    {
+        int as = src >>> 24;
+        int ad = dst >>> 24;
+        switch (mode)
+        {
+            case CLEAR:
+                return 0;
+            case SRC:
+                return src;
+            case DST:
+                return dst;
+            case SRC_OVER:
+                return src + scale(dst, 255 - as);
+            case DST_OVER:
+                return dst + scale(src, 255 - ad);
+            case SRC_IN:
+                return scale(src, ad);
+            case DST_IN:
+                return scale(dst, as);
+            case SRC_OUT:
+                return scale(src, 255 - ad);
+            case DST_OUT:
+                return scale(dst, 255 - as);
+            case SRC_ATOP:
+                return mix(src, ad, dst, 255 - as);
+            case DST_ATOP:
+                return mix(src, 255 - ad, dst, as);
+            case XOR:
+                return mix(src, 255 - ad, dst, 255 - as);
+            case PLUS:
+                return plus(src, dst);
+            case MULTIPLY:
+                return multiply(src, dst);
+            case SCREEN:
+                return screen(src, dst);
+            default:
+                throw new IllegalArgumentException(
+                    "Invalid composite mode: " + mode);
+        }
+    }
+    
+    /**
+     * Composites the given straight source and destination colors
+     * 
+     * @param mode The {@link CompositeMode}
+     * @param src The straight source color
+     * @param dst The straight destination color
+     * @return The straight result color
+     */
+    public static int composite(CompositeMode mode, int src, int dst)
+    {
+        if (mode == CompositeMode.SRC_OVER)
+        {
+            return srcOver(src, dst);
+        }
+        return unpremultiply(compositePremultiplied(
+            mode, premultiply(src), premultiply(dst)));
+    }
+    
+    /**
+     * Composites the specified range of the given premultiplied source
+     * colors with the specified range of the given premultiplied 
+     * destination colors, and writes the results into the destination
+     * 
+     * @param mode The {@link CompositeMode}
+     * @param src The source colors
+     * @param srcOffset The offset in the source array
+     * @param dst The destination colors
+     * @param dstOffset The offset in the destination array
+     * @param length The number of colors
+     * @throws IndexOutOfBoundsException If the given offsets and length
+     * cause an access outside of the arrays
+     */
+    public static void compositePremultiplied(CompositeMode mode, 
+        int src[], int srcOffset, int dst[], int dstOffset, int length)
+    {
+        Objects.requireNonNull(mode, "The mode may not be null");
+        if (mode == CompositeMode.SRC_OVER)
+        {
+            // The most common case is handled with a dedicated loop
+            for (int i = 0; i < length; i++)
+            {
+                int s = src[srcOffset + i];
+                int as = s >>> 24;
+                if (as == 255)
+                {
+                    dst[dstOffset + i] = s;
+                }
+                else if (as != 0 || s != 0)
+                {
+                    int d = dst[dstOffset + i];
+                    dst[dstOffset + i] = s + scale(d, 255 - as);
+                }
+            }
+            return;
+        }
+        for (int i = 0; i < length; i++)
+        {
+            dst[dstOffset + i] = compositePremultiplied(
+                mode, src[srcOffset + i], dst[dstOffset + i]);
+        }
+    }
+    
+    /**
+     * Composites the specified range of the given straight source
+     * colors with the specified range of the given straight destination 
+     * colors, and writes the results into the destination
+     * 
+     * @param mode The {@link CompositeMode}
+     * @param src The source colors
+     * @param srcOffset The offset in the source array
+     * @param dst The destination colors
+     * @param dstOffset The offset in the destination array
+     * @param length The number of colors
+     * @throws IndexOutOfBoundsException If the given offsets and length
+     * cause an access outside of the arrays
+     */
+    public static void composite(CompositeMode mode, 
+        int src[], int srcOffset, int dst[], int dstOffset, int length)
+    {
+        Objects.requireNonNull(mode, "The mode may not be null");
+        if (mode == CompositeMode.SRC_OVER)
+        {
+            for (int i = 0; i < length; i++)
+            {
+                dst[dstOffset + i] = 
+                    srcOver(src[srcOffset + i], dst[dstOffset + i]);
+            }
+            return;
+        }
+        for (int i = 0; i < length; i++)
+        {
+            dst[dstOffset + i] = composite(
+                mode, src[srcOffset + i], dst[dstOffset + i]);
+        }
+    }
+    
+    /**
+     * Composites the given premultiplied source colors with the given
+     * premultiplied destination colors, and writes the results into the 
+     * destination, using multiple threads for large arrays.
+     * 
+     * @param mode The {@link CompositeMode}
+     * @param src The source colors
+     * @param dst The destination colors
+     * @throws IndexOutOfBoundsException If the destination array is 
+     * smaller than the source array
+     */
+    public static void compositePremultipliedParallel(
+        CompositeMode mode, int src[], int dst[])
+    {
+        checkLengths(src, dst);
+        int n = src.length;
+        int chunks = (n + PARALLEL_CHUNK_SIZE - 1) / PARALLEL_CHUNK_SIZE;
+        IntStream.range(0, chunks).parallel().forEach(c -> 
+        {
+            int start = c * PARALLEL_CHUNK_SIZE;
+            int length = Math.min(PARALLEL_CHUNK_SIZE, n - start);
+            compositePremultiplied(mode, src, start, dst, start, length);
+        });
+    }
+    
+    /**
+     * Composites the given straight source colors with the given
+     * straight destination colors, and writes the results into the 
+     * destination, using multiple threads for large arrays.
+     * 
+     * @param mode The {@link CompositeMode}
+     * @param src The source colors
+     * @param dst The destination colors
+     * @throws IndexOutOfBoundsException If the destination array is 
+     * smaller than the source array
+     */
+    public static void compositeParallel(
+        CompositeMode mode, int src[], int dst[])
+    {
+        checkLengths(src, dst);
+        int n = src.length;
+        int chunks = (n + PARALLEL_CHUNK_SIZE - 1) / PARALLEL_CHUNK_SIZE;
+        IntStream.range(0, chunks).parallel().forEach(c -> 
+        {
+            int start = c * PARALLEL_CHUNK_SIZE;
+            int length = Math.min(PARALLEL_CHUNK_SIZE, n - start);
+            composite(mode, src, start, dst, start, length);
+        });
+    }
+    
+    /**
+     * Make sure that the destination array is not smaller than the 
+     * source array
+     * 
+     * @param src The source array
+     * @param dst The destination array
+     * @throws IndexOutOfBoundsException If the destination array is 
+     * smaller than the source array
+     */
+    private static void checkLengths(int src[], int dst[])
+    {
+        if (dst.length < src.length)
+        {
+            throw new IndexOutOfBoundsException(
+                "Destination array has length " + dst.length 
+                + ", expected at least " + src.length);
+        }
+    }
+    
+    /**
+     * Places the given straight source color over the given straight
+     * destination color. Fully opaque and fully transparent source 
+     * colors are handled without any conversion. 
+     * 
+     * @param src The straight source color
+     * @param dst The straight destination color
+     * @return The straight result color
+     */
+    private static int srcOver(int src, int dst)
+    {
+        int as = src >>> 24;
+        if (as == 255)
+        {
+            return src;
+        }
+        if (as == 0)
+        {
+            return dst;
+        }
+        int result = premultiply(src) + scale(premultiply(dst), 255 - as);
+        return unpremultiply(result);
+    }
+    
+    /**
+     * Scales all components of the given color with the given factor
+     * 
+     * @param argb The color
+     * @param f The factor, in [0,255]
+     * @return The scaled color
+     */
+    private static int scale(int argb, int f)
+    {
+        int rb = (argb & MASK_RB) * f + 0x00800080;
+        rb = ((rb + ((rb >>> 8) & MASK_RB)) >>> 8) & MASK_RB;
+        int ag = ((argb >>> 8) & MASK_RB) * f + 0x00800080;
+        ag = (ag + ((ag >>> 8) & MASK_RB)) & ~MASK_RB;
+        return ag | rb;
+    }
+    
+    /**
+     * Computes <code>src * fs + dst * fd</code> for all components. The
+     * factors must be chosen so that the results are in [0,255].
+     * 
+     * @param src The first color
+     * @param fs The first factor, in [0,255]
+     * @param dst The second color
+     * @param fd The second factor, in [0,255]
+     * @return The result
+     */
+    private static int mix(int src, int fs, int dst, int fd)
+    {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 8)
+        {
+            int cs = (src >>> shift) & 0xFF;
+            int cd = (dst >>> shift) & 0xFF;
+            int c = Math.min(255, div255(cs * fs + cd * fd));
+            result |= c << shift;
+        }
+        return result;
+    }
+    
+    /**
+     * Computes the sum of the given colors, clamping each component
+     * 
+     * @param src The first color
+     * @param dst The second color
+     * @return The result
+     */
+    private static int plus(int src, int dst)
+    {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 8)
+        {
+            int c = ((src >>> shift) & 0xFF) + ((dst >>> shift) & 0xFF);
+            result |= Math.min(255, c) << shift;
+        }
+        return result;
+    }
+    
+    /**
+     * Computes the multiply blending of the given premultiplied colors,
+     * with source-over compositing
+     * 
+     * @param src The source color
+     * @param dst The destination color
+     * @return The result
+     */
+    private static int multiply(int src, int dst)
+    {
+        int as = src >>> 24;
+        int ad = dst >>> 24;
+        int result = (as + ad - div255(as * ad)) << 24;
+        for (int shift = 0; shift < 24; shift += 8)
+        {
+            int cs = (src >>> shift) & 0xFF;
+            int cd = (dst >>> shift) & 0xFF;
+            int c = div255(cs * (255 - ad) + cd * (255 - as) + cs * cd);
+            result |= Math.min(255, c) << shift;
+        }
+        return result;
+    }
+    
+    /**
+     * Computes the screen blending of the given premultiplied colors,
+     * with source-over compositing
+     * 
+     * @param src The source color
+     * @param dst The destination color
+     * @return The result
+     */
+    private static int screen(int src, int dst)
+    {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 8)
+        {
+            int cs = (src >>> shift) & 0xFF;
+            int cd = (dst >>> shift) & 0xFF;
+            result |= (cs + cd - div255(cs * cd)) << shift;
+        }
+        return result;
+    }
+    
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private Compositing()
+    {
+        // Private constructor to prevent instantiation
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors;
+
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+/**
+ * Methods for computing contrast ratios for many colors.<br>
+ * <br>
+ * The contrast ratios are computed from the luminances that are 
+ * returned by {@link Colors#computeLuminance(int)}. Unlike 
+ * {@link Colors#computeContrastRatio(int, int)}, the methods in this 
+ * class always divide the larger by the smaller luminance, as defined 
+ * by WCAG, so that the ratios are in [1, 21].
+ */
+public class ContrastRatios
+{
+    /**
+     * The number of colors that are processed by one task in the 
+     * parallel methods
+     */
+    private static final int PARALLEL_CHUNK_SIZE = 1 << 13;
+    
+    /**
+     * The number of rows of the contrast matrix that are computed by
+     * one task
+     */
+    private static final int MATRIX_ROWS_PER_TASK = 16;
+    
+    /**
+     * Computes the luminances of the given colors, as defined by
+     * {@link Colors#computeLuminance(int)}
+     * 
+     * @param argbs The ARGB colors
+     * @param offset The offset in the color array
+     * @param luminances The target array for the luminances
+     * @param luminancesOffset The offset in the target array
+     * @param length The number of colors
+     * @throws IndexOutOfBoundsException If the offsets or the length 
+     * are invalid for the given arrays
+     */
+    public static void computeLuminances(int argbs[], int offset, 
+        double luminances[], int luminancesOffset, int length)
+    {
+        for (int i = 0; i < length; i++)
+        {
+            luminances[luminancesOffset + i] = 
+                Colors.computeLuminance(argbs[offset + i]);
+        }
+    }
+    
+    /**
+     * Selects the foreground color with the largest contrast to each 
+     * of the given background colors.<br>
+     * <br>
+     * For each background color, the candidate with the largest 
+     * contrast ratio will be written into the given foregrounds array.
+     * If several candidates have the same contrast ratio, then the 
+     * first one is selected. If the given ratios array is not 
+     * <code>null</code>, then the contrast ratios of the selected 
+     * foreground colors will be written into this array.
+     * 
+     * @param backgrounds The ARGB background colors
+     * @param offset The offset in the background array
+     * @param candidates The ARGB candidate foreground colors
+     * @param foregrounds The target array for the foreground colors
+     * @param ratios The optional target array for the contrast ratios
+     * @param targetOffset The offset in the target arrays
+     * @param length The number of background colors
+     * @throws IllegalArgumentException If the candidates are empty
+     * @throws IndexOutOfBoundsException If the offsets or the length 
+     * are invalid for the given arrays
+     */
+    public static void selectForegrounds(
+        int backgrounds[], int offset, int candidates[], 
+        int foregrounds[], double ratios[], int targetOffset, int length)
+    {
+        double candidateLuminances[] = computeCandidateLuminances(candidates);
+        selectForegrounds(backgrounds, offset, 
+            candidates, candidateLuminances, 
+            foregrounds, ratios, targetOffset, length);
+    }
+    
+    /**
+     * Selects the foreground color with the largest contrast to each 
+     * of the given background colors, using multiple threads for large
+     * arrays.<br>
+     * <br>
+     * See {@link #selectForegrounds(int[], int, int[], int[], double[], 
+     * int, int)} for details.
+     * 
+     * @param backgrounds The ARGB background colors
+     * @param candidates The ARGB candidate foreground colors
+     * @param foregrounds The target array for the foreground colors
+     * @param ratios The optional target array for the contrast ratios
+     * @throws IllegalArgumentException If the candidates are empty
+     * @throws IndexOutOfBoundsException If one of the target arrays is
+     * smaller than the background array
+     */
+    public static void selectForegroundsParallel(int backgrounds[], 
+        int candidates[], int foregrounds[], double ratios[])
+    {
+        int n = backgrounds.length;
+        checkLength(foregrounds.length, n);
+        if (ratios != null)
+        {
+            checkLength(ratios.length, n);
+        }
+        double candidateLuminances[] = computeCandidateLuminances(candidates);
+        int chunks = (n + PARALLEL_CHUNK_SIZE - 1) / PARALLEL_CHUNK_SIZE;
+        IntStream.range(0, chunks).parallel().forEach(c -> 
+        {
+            int start = c * PARALLEL_CHUNK_SIZE;
+            int length = Math.min(PARALLEL_CHUNK_SIZE, n - start);
+            selectForegrounds(backgrounds, start, 
+                candidates, candidateLuminances, 
+                foregrounds, ratios, start, length);
+        });
+    }
+    
+    /**
+     * Computes the matrix of the contrast ratios between all pairs of
+     * the given colors, using multiple threads.<br>
+     * <br>
+     * The contrast ratio between the colors <code>i</code> and 
+     * <code>j</code> will be written into the given target array at 
+     * index <code>i * n + j</code>, where <code>n</code> is the number 
+     * of colors. The matrix is symmetric, and its diagonal is 1.0.
+     * 
+     * @param argbs The ARGB colors
+     * @param target The target array
+     * @throws IllegalArgumentException If the target array is smaller 
+     * than <code>n * n</code>, or this size is larger than the maximum
+     * size of an array
+     */
+    public static void computeMatrix(int argbs[], float target[])
+    {
+        int n = argbs.length;
+        long size = (long)n * n;
+        if (size > Integer.MAX_VALUE)
+        {
+            throw new IllegalArgumentException(
+                "Can not compute a matrix for " + n + " colors");
+        }
+        if (target.length < size)
+        {
+            throw new IllegalArgumentException("Target array has length " 
+                + target.length + ", expected at least " + size);
+        }
+        double luminances[] = new double[n];
+        computeLuminances(argbs, 0, luminances, 0, n);
+        int numTasks = (n + MATRIX_ROWS_PER_TASK - 1) / MATRIX_ROWS_PER_TASK;
+        IntStream.range(0, numTasks).parallel().forEach(t -> 
+        {
+            int minI = t * MATRIX_ROWS_PER_TASK;
+            int maxI = Math.min(n, minI + MATRIX_ROWS_PER_TASK);
+            for (int i = minI; i < maxI; i++)
+            {
+                double yi = luminances[i];
+                int rowOffset = i * n;
+                for (int j = 0; j < n; j++)
+                {
+                    target[rowOffset + j] = 
+                        (float)computeRatio(yi, luminances[j]);
+                }
+            }
+        });
+    }
+    
+    /**
+     * Implementation of the foreground selection, with precomputed 
+     * candidate luminances
+     * 
+     * @param backgrounds The ARGB background colors
+     * @param offset The offset in the background array
+     * @param candidates The ARGB candidate foreground colors
+     * @param candidateLuminances The candidate luminances
+     * @param foregrounds The target array for the foreground colors
+     * @param ratios The optional target array for the contrast ratios
+     * @param targetOffset The offset in the target arrays
+     * @param length The number of background colors
+     */
+    private static void selectForegrounds(
+        int backgrounds[], int offset, 
+        int candidates[], double candidateLuminances[], 
+        int foregrounds[], double ratios[], int targetOffset, int length)
+    {
+        for (int i = 0; i < length; i++)
+        {
+            double y = Colors.computeLuminance(backgrounds[offset + i]);
+            int best = 0;
+            double bestRatio = computeRatio(y, candidateLuminances[0]);
+            for (int c = 1; c < candidates.length; c++)
+            {
+                double ratio = computeRatio(y, candidateLuminances[c]);
+                if (ratio > bestRatio)
+                {
+                    best = c;
+                    bestRatio = ratio;
+                }
+            }
+            foregrounds[targetOffset + i] = candidates[best];
+            if (ratios != null)
+            {
+                ratios[targetOffset + i] = bestRatio;
+            }
+        }
+    }
+    
+    /**
+     * Computes the luminances of the given candidate colors
+     * 
+     * @param candidates The candidate colors
+     * @return The luminances
+     * @throws IllegalArgumentException If the candidates are empty
+     */
+    private static double[] computeCandidateLuminances(int candidates[])
+    {
+        Objects.requireNonNull(candidates, "The candidates may not be null");
+        if (candidates.length == 0)
+        {
+            throw new IllegalArgumentException(
+                "The candidates may not be empty");
+        }
+        double result[] = new double[candidates.length];
+        computeLuminances(candidates, 0, result, 0, candidates.length);
+        return result;
+    }
+    
+    /**
+     * Computes the contrast ratio between the given luminances
+     * 
+     * @param y0 The first luminance
+     * @param y1 The second luminance
+     * @return The contrast ratio, in [1, 21]
+     */
+    private static double computeRatio(double y0, double y1)
+    {
+        if (y0 > y1)
+        {
+            return (y0 + 0.05) / (y1 + 0.05);
+        }
+        return (y1 + 0.05) / (y0 + 0.05);
+    }
+    
+    /**
+     * Make sure that the target array length is not smaller than the 
+     * given length
+     * 
+     * @param targetLength The target array length
+     * @param length The length
+     * @throws IndexOutOfBoundsException If the target array length is
+     * smaller than the given length
+     */
+    private static void checkLength(int targetLength, int length)
+    {
+        if (targetLength < length)
+        {
+            throw new IndexOutOfBoundsException("Target array has length " 
+                + targetLength + ", expected at least " + length);
+        }
+    }
+    
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private ContrastRatios()
+    {
+        // Private constructor to prevent instantiation
+    }
+}
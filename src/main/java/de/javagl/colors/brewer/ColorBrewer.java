@@ -5,15 +5,22 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.nio.IntBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.OptionalInt;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
+import de.javagl.colors.ColorSpaces;
+
 /**
  * A class providing color schemes based on the ColorBrewer colors.<br>
  * <br>
@@ -64,30 +71,118 @@ public class ColorBrewer
         Logger.getLogger(ColorBrewer.class.getName());
     
     /**
-     * The {@link ColorScheme} instances
+     * The maximum number of interpolated color schemes that are cached
+     */
+    private static final int MAX_INTERPOLATED_CACHE_SIZE = 256;
+    
+    /**
+     * The cache for interpolated color schemes. Lookups do not require
+     * any locks. When the cache becomes larger than 
+     * {@link #MAX_INTERPOLATED_CACHE_SIZE}, entries are evicted with a 
+     * second-chance (CLOCK) strategy, under the 
+     * {@link #interpolatedEvictionLock}.
+     */
+    private static final ConcurrentMap<String, InterpolatedEntry> 
+        interpolatedColorSchemes = 
+            new ConcurrentHashMap<String, InterpolatedEntry>();
+    
+    /**
+     * The keys of the interpolated color schemes, in the order in which 
+     * they are visited for the eviction
+     */
+    private static final Queue<String> interpolatedEvictionQueue = 
+        new ConcurrentLinkedQueue<String>();
+    
+    /**
+     * The lock for the eviction of interpolated color schemes
      */
-    private static List<ColorScheme> colorSchemes;
+    private static final Object interpolatedEvictionLock = new Object();
+    
+    /**
+     * An entry of the cache for interpolated color schemes
+     */
+    private static final class InterpolatedEntry
+    {
+        /**
+         * The color scheme
+         */
+        final ColorScheme colorScheme;
+        
+        /**
+         * Whether the entry has been referenced since it has last been 
+         * visited for the eviction
+         */
+        volatile boolean referenced;
+        
+        /**
+         * Creates a new instance
+         * 
+         * @param colorScheme The color scheme
+         */
+        InterpolatedEntry(ColorScheme colorScheme)
+        {
+            this.colorScheme = colorScheme;
+        }
+    }
+    
+    /**
+     * Holder for the {@link ColorScheme} instances. The class is only
+     * initialized when the color schemes are accessed for the first time.
+     * The JVM guarantees that this happens exactly once, and that the 
+     * result is visible to all threads, without further synchronization.
+     */
+    private static final class ColorSchemesHolder
+    {
+        /**
+         * The unmodifiable list of {@link ColorScheme} instances, or 
+         * <code>null</code> if they could not be loaded
+         */
+        static final List<ColorScheme> COLOR_SCHEMES;
+        
+        /**
+         * The exception that caused the loading to fail, or 
+         * <code>null</code> if the loading succeeded
+         */
+        static final Exception FAILURE;
+        
+        static
+        {
+            List<ColorScheme> colorSchemes = null;
+            Exception failure = null;
+            try
+            {
+                colorSchemes = 
+                    Collections.unmodifiableList(createColorSchemes());
+            }
+            catch (IOException | RuntimeException e)
+            {
+                logger.severe("Could not load the color schemes: " + e);
+                failure = e;
+            }
+            COLOR_SCHEMES = colorSchemes;
+            FAILURE = failure;
+        }
+    }
     
     /**
      * Returns an unmodifiable list of {@link ColorScheme} instances as
      * defined by ColorBrewer. 
      * 
      * @return The {@link ColorScheme} instances
+     * @throws IllegalStateException If the color schemes could not be
+     * loaded. This exception will be thrown on every call, with the
+     * original cause.
      */
-    private static synchronized List<ColorScheme> getColorSchemes()
+    private static List<ColorScheme> getColorSchemes()
     {
+        List<ColorScheme> colorSchemes = ColorSchemesHolder.COLOR_SCHEMES;
         if (colorSchemes == null)
         {
-            try
-            {
-                colorSchemes = createColorSchemes();
-            }
-            catch (IOException e)
-            {
-                logger.severe(e.getMessage());
-            }   
+            throw new IllegalStateException(
+                "Could not load the color schemes", 
+                ColorSchemesHolder.FAILURE);
         }
-        return Collections.unmodifiableList(colorSchemes);
+        return colorSchemes;
     }
     
     /**
@@ -129,6 +224,82 @@ public class ColorBrewer
      */
     public static List<Color> get(
         ColorSchemeType type, String name, int numColors)
+    {
+        return getColorScheme(type, name, numColors).getColors();
+    }
+    
+    /**
+     * Returns a new array containing the ARGB values of the colors of a 
+     * color scheme with the given name and the given number of colors
+     * 
+     * @param type The type
+     * @param name The name
+     * @param numColors The number of colors
+     * @return The ARGB colors
+     * @throws IllegalArgumentException If no color scheme with the given
+     * name and requested type and number of colors could be found
+     */
+    public static int[] getArgbs(
+        ColorSchemeType type, String name, int numColors)
+    {
+        return getColorScheme(type, name, numColors).getArgbs().clone();
+    }
+    
+    /**
+     * Writes the ARGB values of the colors of a color scheme with the 
+     * given name and the given number of colors into the given array,
+     * starting at the given offset
+     * 
+     * @param type The type
+     * @param name The name
+     * @param numColors The number of colors
+     * @param target The target array
+     * @param offset The offset in the target array
+     * @throws IllegalArgumentException If no color scheme with the given
+     * name and requested type and number of colors could be found
+     * @throws IndexOutOfBoundsException If the target array does not
+     * have space for the given number of colors at the given offset
+     */
+    public static void getArgbs(ColorSchemeType type, String name, 
+        int numColors, int target[], int offset)
+    {
+        int argbs[] = getColorScheme(type, name, numColors).getArgbs();
+        System.arraycopy(argbs, 0, target, offset, argbs.length);
+    }
+    
+    /**
+     * Returns a read-only buffer containing the ARGB values of the colors
+     * of a color scheme with the given name and the given number of 
+     * colors. The buffer is a view on the internal data, so no copy of 
+     * the colors is created.
+     * 
+     * @param type The type
+     * @param name The name
+     * @param numColors The number of colors
+     * @return The buffer containing the ARGB colors
+     * @throws IllegalArgumentException If no color scheme with the given
+     * name and requested type and number of colors could be found
+     */
+    public static IntBuffer getArgbsBuffer(
+        ColorSchemeType type, String name, int numColors)
+    {
+        int argbs[] = getColorScheme(type, name, numColors).getArgbs();
+        return IntBuffer.wrap(argbs).asReadOnlyBuffer();
+    }
+    
+    /**
+     * Returns the {@link ColorScheme} with the given name and the given 
+     * number of colors
+     * 
+     * @param type The type
+     * @param name The name
+     * @param numColors The number of colors
+     * @return The {@link ColorScheme}
+     * @throws IllegalArgumentException If no color scheme with the given
+     * name and requested type and number of colors could be found
+     */
+    private static ColorScheme getColorScheme(
+        ColorSchemeType type, String name, int numColors)
     {
         List<ColorScheme> colorSchemes = getColorSchemes();
         Optional<ColorScheme> matchingColorScheme = colorSchemes.stream()
@@ -138,7 +309,7 @@ public class ColorBrewer
             .findFirst();
         if (matchingColorScheme.isPresent())
         {
-            return matchingColorScheme.get().getColors();
+            return matchingColorScheme.get();
         }
         throw new IllegalArgumentException(
             "No color scheme found with type " + type + " and name " + name 
@@ -147,6 +318,188 @@ public class ColorBrewer
     }
     
     
+    /**
+     * Returns an unmodifiable list containing the given number of colors
+     * for the color scheme with the given name.<br>
+     * <br>
+     * If there is a color scheme with the given number of colors, then 
+     * its colors will be returned. Otherwise, the colors are obtained
+     * by interpolating between the colors of the largest color scheme 
+     * with the given name, in the perceptually uniform OKLab color space.
+     * This is mainly intended for sequential and diverging color schemes.
+     * The results will be cached internally.
+     * 
+     * @param type The type
+     * @param name The name
+     * @param numColors The number of colors
+     * @return The colors
+     * @throws IllegalArgumentException If no color scheme with the given
+     * name and type could be found, or the number of colors is not 
+     * positive
+     */
+    public static List<Color> getInterpolated(
+        ColorSchemeType type, String name, int numColors)
+    {
+        return getInterpolatedColorScheme(type, name, numColors).getColors();
+    }
+    
+    /**
+     * Returns a new array containing the ARGB values of the colors that
+     * are returned by {@link #getInterpolated(ColorSchemeType, String, int)}
+     * 
+     * @param type The type
+     * @param name The name
+     * @param numColors The number of colors
+     * @return The ARGB colors
+     * @throws IllegalArgumentException If no color scheme with the given
+     * name and type could be found, or the number of colors is not 
+     * positive
+     */
+    public static int[] getInterpolatedArgbs(
+        ColorSchemeType type, String name, int numColors)
+    {
+        return getInterpolatedColorScheme(
+            type, name, numColors).getArgbs().clone();
+    }
+    
+    /**
+     * Returns the {@link ColorScheme} with the given type, name and number
+     * of colors, creating it by interpolation if necessary, as described
+     * in {@link #getInterpolated(ColorSchemeType, String, int)}
+     * 
+     * @param type The type
+     * @param name The name
+     * @param numColors The number of colors
+     * @return The {@link ColorScheme}
+     * @throws IllegalArgumentException If no color scheme with the given
+     * name and type could be found, or the number of colors is not 
+     * positive
+     */
+    private static ColorScheme getInterpolatedColorScheme(
+        ColorSchemeType type, String name, int numColors)
+    {
+        if (numColors <= 0)
+        {
+            throw new IllegalArgumentException(
+                "The number of colors must be positive, but is " + numColors);
+        }
+        String key = type + ":" + name + ":" + numColors;
+        InterpolatedEntry entry = interpolatedColorSchemes.get(key);
+        if (entry != null)
+        {
+            if (!entry.referenced)
+            {
+                entry.referenced = true;
+            }
+            return entry.colorScheme;
+        }
+        ColorScheme colorScheme = 
+            createInterpolatedColorScheme(type, name, numColors);
+        InterpolatedEntry newEntry = new InterpolatedEntry(colorScheme);
+        InterpolatedEntry existingEntry = 
+            interpolatedColorSchemes.putIfAbsent(key, newEntry);
+        if (existingEntry != null)
+        {
+            return existingEntry.colorScheme;
+        }
+        interpolatedEvictionQueue.add(key);
+        evictInterpolatedIfNecessary();
+        return colorScheme;
+    }
+    
+    /**
+     * Evict interpolated color schemes until the cache is not larger than
+     * {@link #MAX_INTERPOLATED_CACHE_SIZE}. Entries that have been 
+     * referenced since they have last been visited by this method will
+     * be kept, but marked as unreferenced.
+     */
+    private static void evictInterpolatedIfNecessary()
+    {
+        if (interpolatedColorSchemes.size() <= MAX_INTERPOLATED_CACHE_SIZE)
+        {
+            return;
+        }
+        synchronized (interpolatedEvictionLock)
+        {
+            while (interpolatedColorSchemes.size() 
+                > MAX_INTERPOLATED_CACHE_SIZE)
+            {
+                String key = interpolatedEvictionQueue.poll();
+                if (key == null)
+                {
+                    break;
+                }
+                InterpolatedEntry entry = interpolatedColorSchemes.get(key);
+                if (entry == null)
+                {
+                    continue;
+                }
+                if (entry.referenced)
+                {
+                    entry.referenced = false;
+                    interpolatedEvictionQueue.add(key);
+                    continue;
+                }
+                interpolatedColorSchemes.remove(key, entry);
+            }
+        }
+    }
+    
+    /**
+     * Creates the {@link ColorScheme} with the given type, name and number
+     * of colors, as described in 
+     * {@link #getInterpolated(ColorSchemeType, String, int)}
+     * 
+     * @param type The type
+     * @param name The name
+     * @param numColors The number of colors
+     * @return The {@link ColorScheme}
+     * @throws IllegalArgumentException If no color scheme with the given
+     * name and type could be found
+     */
+    private static ColorScheme createInterpolatedColorScheme(
+        ColorSchemeType type, String name, int numColors)
+    {
+        List<ColorScheme> colorSchemes = getColorSchemes();
+        ColorScheme largest = null;
+        for (ColorScheme colorScheme : colorSchemes)
+        {
+            if (colorScheme.getType() != type || 
+                !colorScheme.getName().equals(name))
+            {
+                continue;
+            }
+            int size = colorScheme.getColors().size();
+            if (size == numColors)
+            {
+                return colorScheme;
+            }
+            if (largest == null || size > largest.getColors().size())
+            {
+                largest = colorScheme;
+            }
+        }
+        if (largest == null)
+        {
+            throw new IllegalArgumentException(
+                "No color schemes found with type " + type 
+                + " and name " + name);
+        }
+        int argbs[] = largest.getArgbs();
+        List<Color> colors = new ArrayList<Color>();
+        for (int i = 0; i < numColors; i++)
+        {
+            double t = numColors == 1 ? 0.5 : (double) i / (numColors - 1);
+            double position = t * (argbs.length - 1);
+            int index0 = Math.min((int)position, argbs.length - 2);
+            double localT = position - index0;
+            int argb = ColorSpaces.interpolateOkLab(
+                argbs[index0], argbs[index0 + 1], localT);
+            colors.add(new Color(argb, true));
+        }
+        return new ColorScheme(type, name, colors);
+    }
+    
     /**
      * Returns the names of all {@link ColorScheme} instances with the given
      * type
@@ -174,12 +527,32 @@ public class ColorBrewer
      * @throws IOException If something goes wrong
      */
     private static List<ColorScheme> createColorSchemes() throws IOException
+    {
+        String resourceName = "/ColorBrewer_all_schemes_RGBonly3.csv";
+        InputStream inputStream = 
+            ColorBrewer.class.getResourceAsStream(resourceName);
+        if (inputStream == null)
+        {
+            throw new IOException("Resource not found: " + resourceName);
+        }
+        try (BufferedReader br = 
+            new BufferedReader(new InputStreamReader(inputStream)))
+        {
+            return readColorSchemes(br);
+        }
+    }
+    
+    /**
+     * Read the list of {@link ColorScheme} instances from the given reader
+     * 
+     * @param br The reader
+     * @return The {@link ColorScheme} instances
+     * @throws IOException If something goes wrong
+     */
+    private static List<ColorScheme> readColorSchemes(BufferedReader br) 
+        throws IOException
     {
         List<ColorScheme> colorSchemes = new ArrayList<ColorScheme>();
-        InputStream inputStream = ColorBrewer.class.getResourceAsStream(
-            "/ColorBrewer_all_schemes_RGBonly3.csv");
-        BufferedReader br = 
-            new BufferedReader(new InputStreamReader(inputStream));
         int lineCounter = 0;
         while (true)
         {
@@ -0,0 +1,83 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors.brewer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import de.javagl.colors.palettes.PaletteDescriptor;
+import de.javagl.colors.palettes.PaletteProvider;
+
+/**
+ * Implementation of a {@link PaletteProvider} that offers the 
+ * {@link ColorBrewer} color schemes, in the pack 
+ * <code>"colorbrewer"</code>. For each name, the color scheme with the 
+ * largest number of colors is offered.<br>
+ * <br>
+ * This provider is registered for the <code>ServiceLoader</code>, and
+ * thus contained in the default <code>PaletteRegistry</code>.
+ */
+public final class ColorBrewerPaletteProvider implements PaletteProvider
+{
+    /**
+     * The name of the pack
+     */
+    private static final String PACK = "colorbrewer";
+    
+    /**
+     * Default constructor, as required by the <code>ServiceLoader</code>
+     */
+    public ColorBrewerPaletteProvider()
+    {
+        // Default constructor
+    }
+    
+    @Override
+    public List<PaletteDescriptor> getPalettes()
+    {
+        List<PaletteDescriptor> descriptors = 
+            new ArrayList<PaletteDescriptor>();
+        for (ColorSchemeType type : ColorSchemeType.values())
+        {
+            for (String name : ColorBrewer.getNames(type))
+            {
+                int size = ColorBrewer.getMax(type, name);
+                descriptors.add(
+                    new PaletteDescriptor(PACK, name, type, size));
+            }
+        }
+        return Collections.unmodifiableList(descriptors);
+    }
+    
+    @Override
+    public int[] loadArgbs(PaletteDescriptor descriptor)
+    {
+        return ColorBrewer.getArgbs(descriptor.getType(), 
+            descriptor.getName(), descriptor.getSize());
+    }
+}
@@ -32,6 +32,8 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 
+import de.javagl.colors.Colors;
+
 /**
  * Implementation of a color scheme, as used in the Color Brewer package
  */
@@ -52,6 +54,11 @@ class ColorScheme
      */
     private final List<Color> colors;
     
+    /**
+     * The ARGB values of the colors of this color scheme
+     */
+    private final int argbs[];
+    
     /**
      * Default constructor
      * @param type The type
@@ -64,6 +71,7 @@ class ColorScheme
         this.name = name;
         this.colors = 
             Collections.unmodifiableList(new ArrayList<Color>(colors));
+        this.argbs = Colors.createArgbs(this.colors);
     }
     
     /**
@@ -96,6 +104,17 @@ class ColorScheme
         return colors;
     }
     
+    /**
+     * Returns a reference to the array containing the ARGB values of the
+     * colors of this scheme. This array may not be modified.
+     * 
+     * @return The ARGB values
+     */
+    int[] getArgbs()
+    {
+        return argbs;
+    }
+    
     @Override
     public String toString()
     {
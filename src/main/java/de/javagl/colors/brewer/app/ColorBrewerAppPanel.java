@@ -39,7 +39,7 @@ import de.javagl.colors.Colors;
 import de.javagl.colors.brewer.ColorBrewer;
 import de.javagl.colors.brewer.ColorSchemeType;
 import de.javagl.colors.maps.ColorMap1D;
-import de.javagl.colors.maps.ColorMaps;
+import de.javagl.colors.maps.ColorMapCache;
 import de.javagl.colors.ui.ColorMapPanel1D;
 
 /**
@@ -82,6 +82,11 @@ class ColorBrewerAppPanel extends JPanel
      */
     private ColorMapPanel1D colorMapPanel;
     
+    /**
+     * The cache for the color maps that are shown in the color map panel
+     */
+    private final ColorMapCache colorMapCache = new ColorMapCache(1 << 16);
+    
     /**
      * The button for selecting code generation based on colors
      */
@@ -312,7 +317,7 @@ class ColorBrewerAppPanel extends JPanel
             return;
         }
         List<Color> colors = getColorsOfColumn(selectedColumnIndex);
-        colorMapPanel.setColorMap(ColorMaps.create(colors));
+        colorMapPanel.setColorMap(colorMapCache.create(colors));
     }
     
     /**
@@ -0,0 +1,366 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors.classification;
+
+import java.util.Arrays;
+
+import de.javagl.colors.maps.Histograms;
+
+/**
+ * Methods to compute class breaks for a {@link Classifier}.<br>
+ * <br>
+ * All methods return an array of <code>k-1</code> breaks for 
+ * <code>k</code> classes, sorted in ascending order. NaN values in the
+ * input are ignored.
+ */
+public class ClassBreaks
+{
+    /**
+     * The default maximum number of values that are used for computing
+     * Jenks natural breaks
+     */
+    private static final int DEFAULT_MAX_JENKS_SAMPLES = 1 << 16;
+    
+    /**
+     * Computes class breaks that divide the given range into intervals
+     * of equal size.
+     * 
+     * @param min The minimum value
+     * @param max The maximum value
+     * @param classCount The number of classes
+     * @return The class breaks
+     * @throws IllegalArgumentException If the number of classes is not
+     * positive, or the minimum is larger than the maximum
+     */
+    public static double[] equalInterval(double min, double max, int classCount)
+    {
+        validateClassCount(classCount);
+        if (!(min <= max))
+        {
+            throw new IllegalArgumentException(
+                "Invalid range: [" + min + "," + max + "]");
+        }
+        double breaks[] = new double[classCount - 1];
+        for (int i = 0; i < breaks.length; i++)
+        {
+            breaks[i] = min + (i + 1) * (max - min) / classCount;
+        }
+        return breaks;
+    }
+    
+    /**
+     * Computes class breaks that divide the range of the finite given 
+     * values into intervals of equal size.
+     * 
+     * @param values The values
+     * @param classCount The number of classes
+     * @return The class breaks
+     * @throws IllegalArgumentException If the number of classes is not
+     * positive, or the given array does not contain finite values
+     */
+    public static double[] equalInterval(double values[], int classCount)
+    {
+        double range[] = Histograms.computeRange(values);
+        if (range[0] > range[1])
+        {
+            throw new IllegalArgumentException(
+                "The values do not contain finite values");
+        }
+        return equalInterval(range[0], range[1], classCount);
+    }
+    
+    /**
+     * Computes class breaks so that each class contains (approximately) 
+     * the same number of values. Each break is the largest value of the 
+     * class below the break.
+     * 
+     * @param values The values
+     * @param classCount The number of classes
+     * @return The class breaks
+     * @throws IllegalArgumentException If the number of classes is not
+     * positive, or the given array only contains NaN values
+     */
+    public static double[] quantile(double values[], int classCount)
+    {
+        validateClassCount(classCount);
+        double sorted[] = sortedWithoutNaN(values);
+        int n = sorted.length;
+        double breaks[] = new double[classCount - 1];
+        for (int i = 0; i < breaks.length; i++)
+        {
+            long end = ((long)(i + 1) * n + classCount - 1) / classCount;
+            breaks[i] = sorted[(int)Math.max(0, end - 1)];
+        }
+        return breaks;
+    }
+    
+    /**
+     * Computes Jenks natural breaks for the given values. These are the
+     * breaks that minimize the sum of the squared deviations of the values
+     * from the mean of their class.<br>
+     * <br>
+     * If the given array contains more than an unspecified number of
+     * values, then the breaks are computed for evenly spaced quantiles 
+     * of the values, as described in {@link #jenks(double[], int, int)}.
+     * 
+     * @param values The values
+     * @param classCount The number of classes
+     * @return The class breaks
+     * @throws IllegalArgumentException If the number of classes is not
+     * positive, or the given array only contains NaN values
+     */
+    public static double[] jenks(double values[], int classCount)
+    {
+        return jenks(values, classCount, DEFAULT_MAX_JENKS_SAMPLES);
+    }
+    
+    /**
+     * Computes Jenks natural breaks for the given values. These are the
+     * breaks that minimize the sum of the squared deviations of the values
+     * from the mean of their class.<br>
+     * <br>
+     * The breaks are computed with a dynamic programming approach, where
+     * the optimal splits for each number of classes are found with a
+     * divide-and-conquer scheme, exploiting the fact that the optimal
+     * start of the last class is monotone in the number of values. This 
+     * requires <code>O(k * n * log(n))</code> time and 
+     * <code>O(k * n)</code> memory for <code>n</code> values and 
+     * <code>k</code> classes.<br>
+     * <br>
+     * If the number of (non-NaN) values is larger than the given maximum 
+     * number of samples, then the values are sorted, and the breaks are 
+     * computed for the given number of evenly spaced samples of the 
+     * sorted values.
+     * 
+     * @param values The values
+     * @param classCount The number of classes
+     * @param maxSamples The maximum number of samples
+     * @return The class breaks
+     * @throws IllegalArgumentException If the number of classes or the 
+     * maximum number of samples is not positive, or the given array only 
+     * contains NaN values
+     */
+    public static double[] jenks(
+        double values[], int classCount, int maxSamples)
+    {
+        validateClassCount(classCount);
+        if (maxSamples <= 0)
+        {
+            throw new IllegalArgumentException(
+                "The maximum number of samples must be positive, but is " 
+                + maxSamples);
+        }
+        double sorted[] = sortedWithoutNaN(values);
+        double x[] = sorted;
+        if (sorted.length > maxSamples)
+        {
+            x = new double[maxSamples];
+            for (int i = 0; i < maxSamples; i++)
+            {
+                long index = (long)i * (sorted.length - 1) 
+                    / Math.max(1, maxSamples - 1);
+                x[i] = sorted[(int)index];
+            }
+        }
+        int n = x.length;
+        int k = Math.min(classCount, n);
+        
+        // Prefix sums of the values and their squares, shifted by the
+        // median to reduce cancellation errors
+        double shift = x[n / 2];
+        double s1[] = new double[n + 1];
+        double s2[] = new double[n + 1];
+        for (int i = 0; i < n; i++)
+        {
+            double d = x[i] - shift;
+            s1[i + 1] = s1[i] + d;
+            s2[i + 1] = s2[i] + d * d;
+        }
+        
+        // previous[i] is the minimal cost for x[0..i] with c-1 classes,
+        // current[i] with c classes, and starts[c][i] the start index
+        // of the last class in the optimal solution for x[0..i]
+        double previous[] = new double[n];
+        double current[] = new double[n];
+        int starts[][] = new int[k][];
+        for (int i = 0; i < n; i++)
+        {
+            previous[i] = cost(s1, s2, 0, i);
+        }
+        for (int c = 1; c < k; c++)
+        {
+            starts[c] = new int[n];
+            Arrays.fill(current, Double.POSITIVE_INFINITY);
+            computeRow(s1, s2, c, previous, current, starts[c], 
+                c, n - 1, c, n - 1);
+            double temp[] = previous;
+            previous = current;
+            current = temp;
+        }
+        
+        double breaks[] = new double[classCount - 1];
+        Arrays.fill(breaks, x[n - 1]);
+        int end = n - 1;
+        for (int c = k - 1; c >= 1; c--)
+        {
+            int start = starts[c][end];
+            breaks[c - 1] = x[start - 1];
+            end = start - 1;
+        }
+        return breaks;
+    }
+    
+    /**
+     * Computes the entries of one row of the dynamic programming table 
+     * for Jenks natural breaks, for the indices <code>lo...hi</code>, 
+     * knowing that the optimal start of the last class is in 
+     * <code>optLo...optHi</code>
+     * 
+     * @param s1 The prefix sums
+     * @param s2 The prefix sums of squares
+     * @param c The index of the last class
+     * @param previous The costs for one class less
+     * @param current The costs that are computed
+     * @param starts The optimal start indices that are computed
+     * @param lo The minimum index
+     * @param hi The maximum index
+     * @param optLo The minimum start index
+     * @param optHi The maximum start index
+     */
+    private static void computeRow(double s1[], double s2[], int c,
+        double previous[], double current[], int starts[], 
+        int lo, int hi, int optLo, int optHi)
+    {
+        while (lo <= hi)
+        {
+            int mid = (lo + hi) >>> 1;
+            int bestStart = Math.max(c, optLo);
+            double bestCost = Double.POSITIVE_INFINITY;
+            int maxStart = Math.min(mid, optHi);
+            for (int j = Math.max(c, optLo); j <= maxStart; j++)
+            {
+                double cost = previous[j - 1] + cost(s1, s2, j, mid);
+                if (cost < bestCost)
+                {
+                    bestCost = cost;
+                    bestStart = j;
+                }
+            }
+            current[mid] = bestCost;
+            starts[mid] = bestStart;
+            
+            // Recurse into the smaller half, and continue iteratively
+            // with the larger one, to limit the recursion depth
+            if (mid - lo < hi - mid)
+            {
+                computeRow(s1, s2, c, previous, current, starts, 
+                    lo, mid - 1, optLo, bestStart);
+                lo = mid + 1;
+                optLo = bestStart;
+            }
+            else
+            {
+                computeRow(s1, s2, c, previous, current, starts, 
+                    mid + 1, hi, bestStart, optHi);
+                hi = mid - 1;
+                optHi = bestStart;
+            }
+        }
+    }
+    
+    /**
+     * Computes the sum of the squared deviations of the values 
+     * <code>x[j...i]</code> (inclusive) from their mean
+     * 
+     * @param s1 The prefix sums
+     * @param s2 The prefix sums of squares
+     * @param j The start index
+     * @param i The end index
+     * @return The sum of squared deviations
+     */
+    private static double cost(double s1[], double s2[], int j, int i)
+    {
+        int m = i - j + 1;
+        double sum = s1[i + 1] - s1[j];
+        double sumSquared = s2[i + 1] - s2[j];
+        return Math.max(0.0, sumSquared - sum * sum / m);
+    }
+    
+    /**
+     * Returns a sorted copy of the given values, omitting NaN values
+     * 
+     * @param values The values
+     * @return The sorted values
+     * @throws IllegalArgumentException If the values only contain NaN
+     */
+    private static double[] sortedWithoutNaN(double values[])
+    {
+        double sorted[] = values.clone();
+        Arrays.parallelSort(sorted);
+        
+        // NaN values are sorted to the end
+        int n = sorted.length;
+        while (n > 0 && Double.isNaN(sorted[n - 1]))
+        {
+            n--;
+        }
+        if (n == 0)
+        {
+            throw new IllegalArgumentException(
+                "The values do not contain non-NaN values");
+        }
+        if (n < sorted.length)
+        {
+            sorted = Arrays.copyOf(sorted, n);
+        }
+        return sorted;
+    }
+    
+    /**
+     * Make sure that the given number of classes is positive
+     * 
+     * @param classCount The number of classes
+     * @throws IllegalArgumentException If the number is not positive
+     */
+    private static void validateClassCount(int classCount)
+    {
+        if (classCount <= 0)
+        {
+            throw new IllegalArgumentException(
+                "The number of classes must be positive, but is " 
+                + classCount);
+        }
+    }
+    
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private ClassBreaks()
+    {
+        // Private constructor to prevent instantiation
+    }
+}
@@ -0,0 +1,369 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors.classification;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+import de.javagl.colors.maps.indexed.IndexedColorMap1D;
+
+/**
+ * A class that assigns data values to classes, based on class breaks, 
+ * and to the colors of an {@link IndexedColorMap1D}.<br>
+ * <br>
+ * The class breaks are a sorted array of <code>k-1</code> values that
+ * define <code>k</code> classes. A value belongs to the class whose 
+ * index is the number of breaks that are smaller than the value. This
+ * means that a value that is equal to a break belongs to the lower 
+ * class. NaN values do not belong to any class: Their class index is -1,
+ * and their color is the "no data" color. <br>
+ * <br>
+ * Class breaks may be computed with the {@link ClassBreaks} class.<br>
+ * <br>
+ * Instances of this class are immutable and thread-safe.
+ */
+public final class Classifier
+{
+    /**
+     * The minimum number of elements that one task of the parallel
+     * bulk methods processes
+     */
+    private static final int PARALLEL_CHUNK_SIZE = 1 << 16;
+    
+    /**
+     * The class breaks
+     */
+    private final double breaks[];
+    
+    /**
+     * The ARGB colors of the classes
+     */
+    private final int argbs[];
+    
+    /**
+     * The ARGB color for NaN values
+     */
+    private final int noDataArgb;
+    
+    /**
+     * Creates a new classifier with the given breaks. The colors of 
+     * the classes will be the first colors of the given color map. 
+     * NaN values will receive a fully transparent color.
+     * 
+     * @param breaks The class breaks
+     * @param colorMap The {@link IndexedColorMap1D}
+     * @throws IllegalArgumentException If the breaks are not sorted in
+     * ascending order or contain NaN, or the color map has fewer colors 
+     * than there are classes.
+     */
+    public Classifier(double breaks[], IndexedColorMap1D colorMap)
+    {
+        this(breaks, colorMap, 0);
+    }
+    
+    /**
+     * Creates a new classifier with the given breaks. The colors of 
+     * the classes will be the first colors of the given color map.
+     * 
+     * @param breaks The class breaks
+     * @param colorMap The {@link IndexedColorMap1D}
+     * @param noDataArgb The ARGB color for NaN values
+     * @throws IllegalArgumentException If the breaks are not sorted in
+     * ascending order or contain NaN, or the color map has fewer colors 
+     * than there are classes.
+     */
+    public Classifier(double breaks[], IndexedColorMap1D colorMap, 
+        int noDataArgb)
+    {
+        Objects.requireNonNull(breaks, "The breaks may not be null");
+        Objects.requireNonNull(colorMap, "The colorMap may not be null");
+        for (int i = 0; i < breaks.length; i++)
+        {
+            if (Double.isNaN(breaks[i]) 
+                || (i > 0 && breaks[i] < breaks[i - 1]))
+            {
+                throw new IllegalArgumentException(
+                    "The breaks must be sorted in ascending order, but are "
+                    + Arrays.toString(breaks));
+            }
+        }
+        int classCount = breaks.length + 1;
+        if (colorMap.getSize() < classCount)
+        {
+            throw new IllegalArgumentException(
+                "The color map has " + colorMap.getSize() 
+                + " colors, but there are " + classCount + " classes");
+        }
+        this.breaks = breaks.clone();
+        this.argbs = new int[classCount];
+        for (int i = 0; i < classCount; i++)
+        {
+            argbs[i] = colorMap.getColor(i).getRGB();
+        }
+        this.noDataArgb = noDataArgb;
+    }
+    
+    /**
+     * Returns the number of classes
+     * 
+     * @return The number of classes
+     */
+    public int getClassCount()
+    {
+        return argbs.length;
+    }
+    
+    /**
+     * Returns a copy of the class breaks
+     * 
+     * @return The class breaks
+     */
+    public double[] getBreaks()
+    {
+        return breaks.clone();
+    }
+    
+    /**
+     * Returns the ARGB color of the specified class
+     * 
+     * @param classIndex The class index
+     * @return The ARGB color
+     * @throws IndexOutOfBoundsException If the index is negative or 
+     * not smaller than the number of classes
+     */
+    public int getArgb(int classIndex)
+    {
+        return argbs[classIndex];
+    }
+    
+    /**
+     * Returns the index of the class of the given value, or -1 if the
+     * value is NaN.
+     * 
+     * @param value The value
+     * @return The class index
+     */
+    public int classify(double value)
+    {
+        if (value != value)
+        {
+            return -1;
+        }
+        return countSmaller(breaks, value);
+    }
+    
+    /**
+     * Returns the ARGB color for the given value
+     * 
+     * @param value The value
+     * @return The ARGB color
+     */
+    public int getArgbForValue(double value)
+    {
+        if (value != value)
+        {
+            return noDataArgb;
+        }
+        return argbs[countSmaller(breaks, value)];
+    }
+    
+    /**
+     * Returns the number of elements in the given sorted array that are
+     * smaller than the given value, which may not be NaN.<br>
+     * <br>
+     * This is a binary search where the loop only depends on the length 
+     * of the array, and the comparison only selects the next base index, 
+     * which allows it to be compiled into a conditional move.
+     * 
+     * @param array The array
+     * @param value The value
+     * @return The number of smaller elements
+     */
+    static int countSmaller(double array[], double value)
+    {
+        int n = array.length;
+        if (n == 0)
+        {
+            return 0;
+        }
+        int base = 0;
+        while (n > 1)
+        {
+            int half = n >>> 1;
+            base = array[base + half] < value ? base + half : base;
+            n -= half;
+        }
+        return base + (array[base] < value ? 1 : 0);
+    }
+    
+    /**
+     * Writes the class indices for the given values into the given
+     * target array
+     * 
+     * @param values The values
+     * @param classIndices The target array
+     * @throws IndexOutOfBoundsException If the target array is smaller
+     * than the values array
+     */
+    public void classify(double values[], int classIndices[])
+    {
+        classify(values, 0, classIndices, 0, values.length);
+    }
+    
+    /**
+     * Writes the class indices for the specified range of the given 
+     * values into the given target array
+     * 
+     * @param values The values
+     * @param valuesOffset The offset in the values array
+     * @param classIndices The target array
+     * @param classIndicesOffset The offset in the target array
+     * @param length The number of values
+     * @throws IndexOutOfBoundsException If the given offsets and length
+     * cause an access outside of the arrays
+     */
+    public void classify(double values[], int valuesOffset, 
+        int classIndices[], int classIndicesOffset, int length)
+    {
+        double localBreaks[] = breaks;
+        for (int i = 0; i < length; i++)
+        {
+            double value = values[valuesOffset + i];
+            int classIndex = countSmaller(localBreaks, value);
+            classIndices[classIndicesOffset + i] = 
+                value != value ? -1 : classIndex;
+        }
+    }
+    
+    /**
+     * Writes the ARGB colors for the given values into the given
+     * target array
+     * 
+     * @param values The values
+     * @param argbs The target array
+     * @throws IndexOutOfBoundsException If the target array is smaller
+     * than the values array
+     */
+    public void colorize(double values[], int argbs[])
+    {
+        colorize(values, 0, argbs, 0, values.length);
+    }
+    
+    /**
+     * Writes the ARGB colors for the specified range of the given values 
+     * into the given target array
+     * 
+     * @param values The values
+     * @param valuesOffset The offset in the values array
+     * @param argbs The target array
+     * @param argbsOffset The offset in the target array
+     * @param length The number of values
+     * @throws IndexOutOfBoundsException If the given offsets and length
+     * cause an access outside of the arrays
+     */
+    public void colorize(double values[], int valuesOffset, 
+        int argbs[], int argbsOffset, int length)
+    {
+        double localBreaks[] = breaks;
+        int localArgbs[] = this.argbs;
+        for (int i = 0; i < length; i++)
+        {
+            double value = values[valuesOffset + i];
+            int argb = localArgbs[countSmaller(localBreaks, value)];
+            argbs[argbsOffset + i] = value != value ? noDataArgb : argb;
+        }
+    }
+    
+    /**
+     * Writes the class indices for the given values into the given
+     * target array, using multiple threads for large arrays
+     * 
+     * @param values The values
+     * @param classIndices The target array
+     * @throws IndexOutOfBoundsException If the target array is smaller
+     * than the values array
+     */
+    public void classifyParallel(double values[], int classIndices[])
+    {
+        checkLength(values.length, classIndices.length);
+        int n = values.length;
+        int chunks = (n + PARALLEL_CHUNK_SIZE - 1) / PARALLEL_CHUNK_SIZE;
+        IntStream.range(0, chunks).parallel().forEach(c -> 
+        {
+            int start = c * PARALLEL_CHUNK_SIZE;
+            int length = Math.min(PARALLEL_CHUNK_SIZE, n - start);
+            classify(values, start, classIndices, start, length);
+        });
+    }
+    
+    /**
+     * Writes the ARGB colors for the given values into the given
+     * target array, using multiple threads for large arrays
+     * 
+     * @param values The values
+     * @param argbs The target array
+     * @throws IndexOutOfBoundsException If the target array is smaller
+     * than the values array
+     */
+    public void colorizeParallel(double values[], int argbs[])
+    {
+        checkLength(values.length, argbs.length);
+        int n = values.length;
+        int chunks = (n + PARALLEL_CHUNK_SIZE - 1) / PARALLEL_CHUNK_SIZE;
+        IntStream.range(0, chunks).parallel().forEach(c -> 
+        {
+            int start = c * PARALLEL_CHUNK_SIZE;
+            int length = Math.min(PARALLEL_CHUNK_SIZE, n - start);
+            colorize(values, start, argbs, start, length);
+        });
+    }
+    
+    /**
+     * Make sure that the target length is not smaller than the source
+     * length
+     * 
+     * @param sourceLength The source length
+     * @param targetLength The target length
+     * @throws IndexOutOfBoundsException If the target length is smaller
+     */
+    private static void checkLength(int sourceLength, int targetLength)
+    {
+        if (targetLength < sourceLength)
+        {
+            throw new IndexOutOfBoundsException(
+                "Target array has length " + targetLength 
+                + ", expected at least " + sourceLength);
+        }
+    }
+    
+    @Override
+    public String toString()
+    {
+        return "Classifier[breaks=" + Arrays.toString(breaks) + "]";
+    }
+}
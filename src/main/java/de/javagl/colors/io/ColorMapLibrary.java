@@ -0,0 +1,470 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors.io;
+
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import de.javagl.colors.maps.ColorMap1D;
+import de.javagl.colors.maps.indexed.IndexedColorMap1D;
+
+/**
+ * A library of named color maps that is read from a memory-mapped 
+ * file. Such a file can be created with a {@link ColorMapLibraryWriter}.
+ * <br>
+ * <br>
+ * The color maps that are returned by this class are views on the 
+ * mapped file. The colors are not copied into the heap, so that many
+ * processes can share one library file through the page cache.<br>
+ * <br>
+ * The file consists of the following parts. All values are stored in 
+ * little-endian byte order.
+ * <ul>
+ *   <li>
+ *     The header, with 32 bytes: The magic bytes <code>"JCML"</code>, 
+ *     the version (int32, currently 1), the number of entries (int32), 
+ *     a reserved int32, the offset of the entry table (int64), and the 
+ *     offset of the name table (int64)
+ *   </li>
+ *   <li>
+ *     The entry table, with 24 bytes for each entry: The offset of the
+ *     name in the name table (int32), the length of the name (int32), 
+ *     the type (int32, 0 for a {@link ColorMap1D} lookup table, and 1 
+ *     for an {@link IndexedColorMap1D}), the number of colors (int32), 
+ *     and the offset of the colors in the file (int64). The entries are
+ *     sorted by the unsigned bytes of the UTF-8 encoded names.
+ *   </li>
+ *   <li>
+ *     The name table, containing the UTF-8 encoded names
+ *   </li>
+ *   <li>
+ *     The colors, as ARGB int32 values, aligned to 8 bytes
+ *   </li>
+ * </ul>
+ * Files that are larger than 2 GB are not supported.<br>
+ * <br>
+ * This class is thread-safe.
+ */
+public final class ColorMapLibrary
+{
+    /**
+     * The magic bytes at the start of the file
+     */
+    static final int MAGIC = 
+        'J' | ('C' << 8) | ('M' << 16) | ('L' << 24);
+    
+    /**
+     * The version of the file format
+     */
+    static final int VERSION = 1;
+    
+    /**
+     * The size of the header, in bytes
+     */
+    static final int HEADER_SIZE = 32;
+    
+    /**
+     * The size of one entry in the entry table, in bytes
+     */
+    static final int ENTRY_SIZE = 24;
+    
+    /**
+     * The type of an entry that is a {@link ColorMap1D} lookup table
+     */
+    static final int TYPE_COLOR_MAP = 0;
+    
+    /**
+     * The type of an entry that is an {@link IndexedColorMap1D}
+     */
+    static final int TYPE_INDEXED_COLOR_MAP = 1;
+    
+    /**
+     * The buffer containing the whole file
+     */
+    private final ByteBuffer buffer;
+    
+    /**
+     * The number of entries
+     */
+    private final int count;
+    
+    /**
+     * The offset of the entry table
+     */
+    private final int entriesOffset;
+    
+    /**
+     * The offset of the name table
+     */
+    private final int namesOffset;
+    
+    /**
+     * Creates a new instance
+     * 
+     * @param buffer The buffer containing the file
+     * @throws IOException If the buffer does not contain a valid library
+     */
+    private ColorMapLibrary(ByteBuffer buffer) throws IOException
+    {
+        this.buffer = buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC)
+        {
+            throw new IOException("Not a color map library");
+        }
+        int version = buffer.getInt(4);
+        if (version != VERSION)
+        {
+            throw new IOException(
+                "Unsupported color map library version: " + version);
+        }
+        this.count = buffer.getInt(8);
+        long entriesOffset = buffer.getLong(16);
+        long namesOffset = buffer.getLong(24);
+        long entriesEnd = entriesOffset + (long)count * ENTRY_SIZE;
+        if (count < 0 || entriesOffset < HEADER_SIZE 
+            || entriesEnd > buffer.capacity() || namesOffset < entriesEnd 
+            || namesOffset > buffer.capacity())
+        {
+            throw new IOException("Invalid color map library header");
+        }
+        this.entriesOffset = (int)entriesOffset;
+        this.namesOffset = (int)namesOffset;
+        for (int i = 0; i < count; i++)
+        {
+            validateEntry(i);
+        }
+    }
+    
+    /**
+     * Opens the color map library from the given file, by mapping it
+     * into memory
+     * 
+     * @param path The path of the file
+     * @return The {@link ColorMapLibrary}
+     * @throws IOException If the file can not be read, is larger than 
+     * 2 GB, or does not contain a valid library
+     */
+    public static ColorMapLibrary open(Path path) throws IOException
+    {
+        try (FileChannel channel = 
+            FileChannel.open(path, StandardOpenOption.READ))
+        {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE)
+            {
+                throw new IOException("The file " + path + " has " + size 
+                    + " bytes, but at most " + Integer.MAX_VALUE 
+                    + " are supported");
+            }
+            MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, 0, size);
+            return new ColorMapLibrary(buffer);
+        }
+    }
+    
+    /**
+     * Creates a color map library that is read from the given buffer. 
+     * The buffer is used from position 0 up to its capacity, and must 
+     * not be modified afterwards.
+     * 
+     * @param buffer The buffer
+     * @return The {@link ColorMapLibrary}
+     * @throws IOException If the buffer does not contain a valid library
+     */
+    public static ColorMapLibrary create(ByteBuffer buffer) throws IOException
+    {
+        ByteBuffer duplicate = buffer.duplicate();
+        ((Buffer)duplicate).clear();
+        return new ColorMapLibrary(duplicate);
+    }
+    
+    /**
+     * Returns the number of entries in this library
+     * 
+     * @return The number of entries
+     */
+    public int getSize()
+    {
+        return count;
+    }
+    
+    /**
+     * Returns an unmodifiable list of the names of all entries in this
+     * library, in the order in which they are stored
+     * 
+     * @return The names
+     */
+    public List<String> getNames()
+    {
+        List<String> names = new ArrayList<String>(count);
+        for (int i = 0; i < count; i++)
+        {
+            names.add(getName(i));
+        }
+        return Collections.unmodifiableList(names);
+    }
+    
+    /**
+     * Returns whether this library contains an entry with the given name
+     * 
+     * @param name The name
+     * @return Whether the entry exists
+     */
+    public boolean contains(String name)
+    {
+        return find(name) >= 0;
+    }
+    
+    /**
+     * Returns whether the entry with the given name is an 
+     * {@link IndexedColorMap1D}
+     * 
+     * @param name The name
+     * @return Whether the entry is an indexed color map
+     * @throws IllegalArgumentException If there is no entry with the
+     * given name
+     */
+    public boolean isIndexed(String name)
+    {
+        return getType(findChecked(name)) == TYPE_INDEXED_COLOR_MAP;
+    }
+    
+    /**
+     * Returns a {@link ColorMap1D} that is a view on the lookup table 
+     * with the given name. A value in [0,1] is mapped to the nearest 
+     * entry of the lookup table. Values that are not in [0,1] are 
+     * clamped.
+     * 
+     * @param name The name
+     * @return The {@link ColorMap1D}
+     * @throws IllegalArgumentException If there is no entry with the
+     * given name, or the entry is an {@link IndexedColorMap1D}
+     */
+    public ColorMap1D getColorMap(String name)
+    {
+        int entry = findChecked(name);
+        if (getType(entry) != TYPE_COLOR_MAP)
+        {
+            throw new IllegalArgumentException(
+                "The entry " + name + " is not a color map");
+        }
+        return new MappedColorMap1D(getArgbs(entry));
+    }
+    
+    /**
+     * Returns an {@link IndexedColorMap1D} that is a view on the 
+     * palette with the given name
+     * 
+     * @param name The name
+     * @return The {@link IndexedColorMap1D}
+     * @throws IllegalArgumentException If there is no entry with the
+     * given name, or the entry is not an {@link IndexedColorMap1D}
+     */
+    public IndexedColorMap1D getIndexedColorMap(String name)
+    {
+        int entry = findChecked(name);
+        if (getType(entry) != TYPE_INDEXED_COLOR_MAP)
+        {
+            throw new IllegalArgumentException(
+                "The entry " + name + " is not an indexed color map");
+        }
+        return new MappedIndexedColorMap1D(getArgbs(entry));
+    }
+    
+    /**
+     * Returns a read-only view on the ARGB colors of the entry with the 
+     * given name
+     * 
+     * @param name The name
+     * @return The colors
+     * @throws IllegalArgumentException If there is no entry with the
+     * given name
+     */
+    public IntBuffer getArgbs(String name)
+    {
+        return getArgbs(findChecked(name));
+    }
+    
+    /**
+     * Validate the entry with the given index
+     * 
+     * @param entry The entry index
+     * @throws IOException If the entry is not valid
+     */
+    private void validateEntry(int entry) throws IOException
+    {
+        int base = entriesOffset + entry * ENTRY_SIZE;
+        long nameOffset = buffer.getInt(base);
+        long nameLength = buffer.getInt(base + 4);
+        int type = buffer.getInt(base + 8);
+        long size = buffer.getInt(base + 12);
+        long colorsOffset = buffer.getLong(base + 16);
+        if (nameOffset < 0 || nameLength < 0 
+            || namesOffset + nameOffset + nameLength > buffer.capacity()
+            || (type != TYPE_COLOR_MAP && type != TYPE_INDEXED_COLOR_MAP)
+            || size <= 0 || colorsOffset < 0 || (colorsOffset & 3) != 0
+            || colorsOffset + size * 4 > buffer.capacity())
+        {
+            throw new IOException("Invalid color map library entry " 
+                + entry);
+        }
+    }
+    
+    /**
+     * Returns the index of the entry with the given name, or a negative
+     * value if no such entry exists
+     * 
+     * @param name The name
+     * @return The entry index
+     */
+    private int find(String name)
+    {
+        byte key[] = name.getBytes(StandardCharsets.UTF_8);
+        int lo = 0;
+        int hi = count - 1;
+        while (lo <= hi)
+        {
+            int mid = (lo + hi) >>> 1;
+            int c = compareName(mid, key);
+            if (c < 0)
+            {
+                lo = mid + 1;
+            }
+            else if (c > 0)
+            {
+                hi = mid - 1;
+            }
+            else
+            {
+                return mid;
+            }
+        }
+        return -1;
+    }
+    
+    /**
+     * Returns the index of the entry with the given name
+     * 
+     * @param name The name
+     * @return The entry index
+     * @throws IllegalArgumentException If there is no entry with the
+     * given name
+     */
+    private int findChecked(String name)
+    {
+        int entry = find(name);
+        if (entry < 0)
+        {
+            throw new IllegalArgumentException(
+                "No color map found with name " + name);
+        }
+        return entry;
+    }
+    
+    /**
+     * Compares the name of the given entry with the given UTF-8 bytes
+     * 
+     * @param entry The entry index
+     * @param key The UTF-8 bytes
+     * @return The result of the comparison of the unsigned bytes
+     */
+    private int compareName(int entry, byte key[])
+    {
+        int base = entriesOffset + entry * ENTRY_SIZE;
+        int nameOffset = namesOffset + buffer.getInt(base);
+        int nameLength = buffer.getInt(base + 4);
+        int n = Math.min(nameLength, key.length);
+        for (int i = 0; i < n; i++)
+        {
+            int a = buffer.get(nameOffset + i) & 0xFF;
+            int b = key[i] & 0xFF;
+            if (a != b)
+            {
+                return a - b;
+            }
+        }
+        return nameLength - key.length;
+    }
+    
+    /**
+     * Returns the name of the given entry
+     * 
+     * @param entry The entry index
+     * @return The name
+     */
+    private String getName(int entry)
+    {
+        int base = entriesOffset + entry * ENTRY_SIZE;
+        int nameOffset = namesOffset + buffer.getInt(base);
+        int nameLength = buffer.getInt(base + 4);
+        byte bytes[] = new byte[nameLength];
+        ByteBuffer b = buffer.duplicate();
+        ((Buffer)b).position(nameOffset);
+        b.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Returns the type of the given entry
+     * 
+     * @param entry The entry index
+     * @return The type
+     */
+    private int getType(int entry)
+    {
+        return buffer.getInt(entriesOffset + entry * ENTRY_SIZE + 8);
+    }
+    
+    /**
+     * Returns a read-only view on the colors of the given entry
+     * 
+     * @param entry The entry index
+     * @return The colors
+     */
+    private IntBuffer getArgbs(int entry)
+    {
+        int base = entriesOffset + entry * ENTRY_SIZE;
+        int size = buffer.getInt(base + 12);
+        int colorsOffset = (int)buffer.getLong(base + 16);
+        ByteBuffer b = buffer.duplicate();
+        ((Buffer)b).limit(colorsOffset + size * 4);
+        ((Buffer)b).position(colorsOffset);
+        return b.slice().order(ByteOrder.LITTLE_ENDIAN)
+            .asIntBuffer().asReadOnlyBuffer();
+    }
+}
@@ -0,0 +1,355 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import de.javagl.colors.maps.ColorMap1D;
+import de.javagl.colors.maps.indexed.IndexedColorMap1D;
+
+/**
+ * A class for writing files that can be read with the 
+ * {@link ColorMapLibrary}. The color maps are added under unique names,
+ * and written with {@link #write(Path)} or {@link #write(OutputStream)}.
+ * <br>
+ * <br>
+ * A {@link ColorMap1D} is stored as a lookup table, which is created
+ * by sampling the color map at equidistant values in [0,1]. An 
+ * {@link IndexedColorMap1D} is stored with all its colors.
+ */
+public final class ColorMapLibraryWriter
+{
+    /**
+     * The default size of the lookup tables for {@link ColorMap1D} 
+     * instances
+     */
+    public static final int DEFAULT_LUT_SIZE = 256;
+    
+    /**
+     * The size of the buffer that is used for writing the colors
+     */
+    private static final int WRITE_BUFFER_SIZE = 1 << 16;
+    
+    /**
+     * The entries that have been added, keyed by name
+     */
+    private final Map<String, Entry> entries;
+    
+    /**
+     * The total number of colors in all entries
+     */
+    private long totalColors;
+    
+    /**
+     * A single entry of the library
+     */
+    private static final class Entry
+    {
+        /**
+         * The UTF-8 encoded name
+         */
+        final byte name[];
+        
+        /**
+         * The type
+         */
+        final int type;
+        
+        /**
+         * The ARGB colors
+         */
+        final int argbs[];
+        
+        /**
+         * Creates a new instance
+         * 
+         * @param name The name
+         * @param type The type
+         * @param argbs The colors
+         */
+        Entry(String name, int type, int argbs[])
+        {
+            this.name = name.getBytes(StandardCharsets.UTF_8);
+            this.type = type;
+            this.argbs = argbs;
+        }
+    }
+    
+    /**
+     * Creates a new, empty writer
+     */
+    public ColorMapLibraryWriter()
+    {
+        this.entries = new LinkedHashMap<String, Entry>();
+    }
+    
+    /**
+     * Adds the given {@link ColorMap1D} under the given name, with a
+     * lookup table of size {@link #DEFAULT_LUT_SIZE}
+     * 
+     * @param name The name
+     * @param colorMap The {@link ColorMap1D}
+     * @throws IllegalArgumentException If an entry with the given name
+     * was already added
+     */
+    public void add(String name, ColorMap1D colorMap)
+    {
+        add(name, colorMap, DEFAULT_LUT_SIZE);
+    }
+    
+    /**
+     * Adds the given {@link ColorMap1D} under the given name, with a
+     * lookup table of the given size
+     * 
+     * @param name The name
+     * @param colorMap The {@link ColorMap1D}
+     * @param size The size of the lookup table
+     * @throws IllegalArgumentException If an entry with the given name
+     * was already added, or the size is smaller than 2
+     */
+    public void add(String name, ColorMap1D colorMap, int size)
+    {
+        Objects.requireNonNull(colorMap, "The colorMap may not be null");
+        if (size < 2)
+        {
+            throw new IllegalArgumentException(
+                "The size must be at least 2, but is " + size);
+        }
+        int argbs[] = new int[size];
+        for (int i = 0; i < size; i++)
+        {
+            argbs[i] = colorMap.getArgb((double)i / (size - 1));
+        }
+        add(new Entry(name, ColorMapLibrary.TYPE_COLOR_MAP, argbs), name);
+    }
+    
+    /**
+     * Adds the given {@link IndexedColorMap1D} under the given name
+     * 
+     * @param name The name
+     * @param indexedColorMap The {@link IndexedColorMap1D}
+     * @throws IllegalArgumentException If an entry with the given name
+     * was already added, or the color map is empty
+     */
+    public void add(String name, IndexedColorMap1D indexedColorMap)
+    {
+        Objects.requireNonNull(indexedColorMap, 
+            "The indexedColorMap may not be null");
+        int size = indexedColorMap.getSize();
+        if (size <= 0)
+        {
+            throw new IllegalArgumentException(
+                "The indexed color map may not be empty");
+        }
+        int argbs[] = new int[size];
+        for (int i = 0; i < size; i++)
+        {
+            argbs[i] = indexedColorMap.getArgb(i);
+        }
+        add(new Entry(name, 
+            ColorMapLibrary.TYPE_INDEXED_COLOR_MAP, argbs), name);
+    }
+    
+    /**
+     * Add the given entry
+     * 
+     * @param entry The entry
+     * @param name The name
+     * @throws IllegalArgumentException If an entry with the given name
+     * was already added
+     */
+    private void add(Entry entry, String name)
+    {
+        if (entries.containsKey(name))
+        {
+            throw new IllegalArgumentException(
+                "An entry with name " + name + " was already added");
+        }
+        entries.put(name, entry);
+        totalColors += entry.argbs.length;
+    }
+    
+    /**
+     * Writes the library to the given file
+     * 
+     * @param path The path of the file
+     * @throws IOException If an IO error occurs
+     */
+    public void write(Path path) throws IOException
+    {
+        try (OutputStream outputStream = Files.newOutputStream(path))
+        {
+            write(outputStream);
+        }
+    }
+    
+    /**
+     * Writes the library to the given stream. The caller is responsible
+     * for closing the stream.
+     * 
+     * @param outputStream The output stream
+     * @throws IOException If an IO error occurs, or the library would 
+     * be larger than 2 GB
+     */
+    public void write(OutputStream outputStream) throws IOException
+    {
+        List<Entry> sortedEntries = new ArrayList<Entry>(entries.values());
+        Collections.sort(sortedEntries, 
+            Comparator.comparing(e -> e.name, 
+                ColorMapLibraryWriter::compareUnsigned));
+        int count = sortedEntries.size();
+        long entriesOffset = ColorMapLibrary.HEADER_SIZE;
+        long namesOffset = 
+            entriesOffset + (long)count * ColorMapLibrary.ENTRY_SIZE;
+        long namesLength = 0;
+        for (Entry entry : sortedEntries)
+        {
+            namesLength += entry.name.length;
+        }
+        long colorsOffset = align(namesOffset + namesLength);
+        long totalSize = colorsOffset + totalColors * 4;
+        if (totalSize > Integer.MAX_VALUE)
+        {
+            throw new IOException("The library would have " + totalSize 
+                + " bytes, but at most " + Integer.MAX_VALUE 
+                + " are supported");
+        }
+        
+        ByteBuffer head = ByteBuffer.allocate((int)(colorsOffset))
+            .order(ByteOrder.LITTLE_ENDIAN);
+        head.putInt(ColorMapLibrary.MAGIC);
+        head.putInt(ColorMapLibrary.VERSION);
+        head.putInt(count);
+        head.putInt(0);
+        head.putLong(entriesOffset);
+        head.putLong(namesOffset);
+        int nameOffset = 0;
+        long offset = colorsOffset;
+        for (Entry entry : sortedEntries)
+        {
+            head.putInt(nameOffset);
+            head.putInt(entry.name.length);
+            head.putInt(entry.type);
+            head.putInt(entry.argbs.length);
+            head.putLong(offset);
+            nameOffset += entry.name.length;
+            offset += entry.argbs.length * 4L;
+        }
+        for (Entry entry : sortedEntries)
+        {
+            head.put(entry.name);
+        }
+        ((Buffer)head).position(head.capacity());
+        ((Buffer)head).flip();
+        
+        WritableByteChannel channel = Channels.newChannel(outputStream);
+        writeFully(channel, head);
+        ByteBuffer colors = ByteBuffer.allocate(WRITE_BUFFER_SIZE)
+            .order(ByteOrder.LITTLE_ENDIAN);
+        for (Entry entry : sortedEntries)
+        {
+            for (int argb : entry.argbs)
+            {
+                if (!colors.hasRemaining())
+                {
+                    ((Buffer)colors).flip();
+                    writeFully(channel, colors);
+                    ((Buffer)colors).clear();
+                }
+                colors.putInt(argb);
+            }
+        }
+        ((Buffer)colors).flip();
+        writeFully(channel, colors);
+    }
+    
+    /**
+     * Write all remaining bytes of the given buffer to the given channel
+     * 
+     * @param channel The channel
+     * @param buffer The buffer
+     * @throws IOException If an IO error occurs
+     */
+    private static void writeFully(
+        WritableByteChannel channel, ByteBuffer buffer) throws IOException
+    {
+        while (buffer.hasRemaining())
+        {
+            channel.write(buffer);
+        }
+    }
+    
+    /**
+     * Returns the smallest multiple of 8 that is not smaller than the 
+     * given value
+     * 
+     * @param value The value
+     * @return The aligned value
+     */
+    private static long align(long value)
+    {
+        return (value + 7) & ~7L;
+    }
+    
+    /**
+     * Compares the given arrays lexicographically, treating the bytes 
+     * as unsigned values
+     * 
+     * @param a The first array
+     * @param b The second array
+     * @return The result of the comparison
+     */
+    private static int compareUnsigned(byte a[], byte b[])
+    {
+        int n = Math.min(a.length, b.length);
+        for (int i = 0; i < n; i++)
+        {
+            int c = (a[i] & 0xFF) - (b[i] & 0xFF);
+            if (c != 0)
+            {
+                return c;
+            }
+        }
+        return a.length - b.length;
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors.io;
+
+import java.awt.Color;
+import java.nio.IntBuffer;
+
+import de.javagl.colors.maps.ColorMap1D;
+
+/**
+ * Implementation of a {@link ColorMap1D} that is a view on a lookup 
+ * table in a {@link ColorMapLibrary}. A value in [0,1] is mapped to 
+ * the nearest entry of the lookup table. Values that are not in [0,1] 
+ * are clamped.
+ */
+final class MappedColorMap1D implements ColorMap1D
+{
+    /**
+     * The ARGB values of the lookup table
+     */
+    private final IntBuffer argbs;
+    
+    /**
+     * The largest index in the lookup table
+     */
+    private final int maxIndex;
+    
+    /**
+     * Creates a new instance. The given buffer is stored by reference, 
+     * and must contain at least one element.
+     * 
+     * @param argbs The ARGB values of the lookup table
+     */
+    MappedColorMap1D(IntBuffer argbs)
+    {
+        this.argbs = argbs;
+        this.maxIndex = argbs.capacity() - 1;
+    }
+    
+    @Override
+    public Color getColor(double value)
+    {
+        return new Color(getArgb(value), true);
+    }
+    
+    @Override
+    public int getArgb(double value)
+    {
+        double d = Math.max(0.0, Math.min(1.0, value));
+        int index = (int)(d * maxIndex + 0.5);
+        return argbs.get(index);
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors.io;
+
+import java.awt.Color;
+import java.nio.IntBuffer;
+
+import de.javagl.colors.maps.indexed.IndexedColorMap1D;
+
+/**
+ * Implementation of an {@link IndexedColorMap1D} that is a view on a 
+ * palette in a {@link ColorMapLibrary}
+ */
+final class MappedIndexedColorMap1D implements IndexedColorMap1D
+{
+    /**
+     * The ARGB values of the palette
+     */
+    private final IntBuffer argbs;
+    
+    /**
+     * Creates a new instance. The given buffer is stored by reference.
+     * 
+     * @param argbs The ARGB values of the palette
+     */
+    MappedIndexedColorMap1D(IntBuffer argbs)
+    {
+        this.argbs = argbs;
+    }
+    
+    @Override
+    public int getSize()
+    {
+        return argbs.capacity();
+    }
+    
+    @Override
+    public Color getColor(int index)
+    {
+        return new Color(getArgb(index), true);
+    }
+    
+    @Override
+    public int getArgb(int index)
+    {
+        return argbs.get(index);
+    }
+}
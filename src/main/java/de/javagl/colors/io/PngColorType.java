@@ -0,0 +1,92 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors.io;
+
+/**
+ * The color types that are supported by the {@link PngWriter}. All
+ * of them use a bit depth of 8.
+ */
+public enum PngColorType
+{
+    /**
+     * Truecolor, with 3 bytes per pixel (R, G, B)
+     */
+    TRUECOLOR(2, 3),
+    
+    /**
+     * Truecolor with alpha, with 4 bytes per pixel (R, G, B, A)
+     */
+    TRUECOLOR_ALPHA(6, 4),
+    
+    /**
+     * Indexed color, with 1 byte per pixel that is an index into
+     * a palette of at most 256 colors
+     */
+    INDEXED(3, 1);
+    
+    /**
+     * The color type code, as stored in the IHDR chunk
+     */
+    private final int code;
+    
+    /**
+     * The number of bytes per pixel
+     */
+    private final int bytesPerPixel;
+    
+    /**
+     * Creates a new instance
+     * 
+     * @param code The color type code
+     * @param bytesPerPixel The number of bytes per pixel
+     */
+    private PngColorType(int code, int bytesPerPixel)
+    {
+        this.code = code;
+        this.bytesPerPixel = bytesPerPixel;
+    }
+    
+    /**
+     * Returns the color type code, as stored in the IHDR chunk
+     * 
+     * @return The code
+     */
+    int getCode()
+    {
+        return code;
+    }
+    
+    /**
+     * Returns the number of bytes per pixel
+     * 
+     * @return The number of bytes per pixel
+     */
+    public int getBytesPerPixel()
+    {
+        return bytesPerPixel;
+    }
+}
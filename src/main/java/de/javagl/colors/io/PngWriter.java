@@ -0,0 +1,1086 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.Adler32;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * A class for writing PNG images in a streaming fashion.<br>
+ * <br>
+ * The rows of the image are passed to this writer in order, as ARGB 
+ * values or as palette indices. Groups of rows are filtered and 
+ * compressed in parallel, into independent deflate blocks that are 
+ * concatenated in the output. Only a bounded number of row groups
+ * is held in memory at any time, so the whole image never has to be 
+ * stored.<br>
+ * <br>
+ * For indexed images, the palette may be obtained from a lookup table
+ * based color map with 
+ * {@link de.javagl.colors.maps.ColorMaps#getPalette}, or from an
+ * indexed color map with 
+ * {@link de.javagl.colors.maps.indexed.IndexedColorMaps#toArgbs}.<br>
+ * <br>
+ * The writer does not close the underlying channel or stream. Instances
+ * of this class are not thread-safe.
+ */
+public final class PngWriter implements Closeable
+{
+    /**
+     * The PNG file signature
+     */
+    private static final byte SIGNATURE[] = 
+    { 
+        (byte)0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' 
+    };
+    
+    /**
+     * The zlib stream header for deflate with a 32K window
+     */
+    private static final byte ZLIB_HEADER[] = { 0x78, (byte)0x9C };
+    
+    /**
+     * The modulus of the Adler-32 checksum
+     */
+    private static final long ADLER_BASE = 65521;
+    
+    /**
+     * The approximate size of the filtered data of one group of rows
+     * that is compressed as one block, in bytes
+     */
+    private static final int TARGET_BLOCK_SIZE = 1 << 18;
+    
+    /**
+     * The filter type for no filtering
+     */
+    private static final int FILTER_NONE = 0;
+    
+    /**
+     * The filter type for the Sub filter
+     */
+    private static final int FILTER_SUB = 1;
+    
+    /**
+     * The filter type for the Up filter
+     */
+    private static final int FILTER_UP = 2;
+    
+    /**
+     * The filter type for the Average filter
+     */
+    private static final int FILTER_AVERAGE = 3;
+    
+    /**
+     * The filter type for the Paeth filter
+     */
+    private static final int FILTER_PAETH = 4;
+    
+    /**
+     * The target channel
+     */
+    private final WritableByteChannel channel;
+    
+    /**
+     * The width of the image
+     */
+    private final int width;
+    
+    /**
+     * The height of the image
+     */
+    private final int height;
+    
+    /**
+     * The {@link PngColorType}
+     */
+    private final PngColorType colorType;
+    
+    /**
+     * The palette, for indexed images
+     */
+    private final int palette[];
+    
+    /**
+     * The lookup table from ARGB values to palette indices, for 
+     * indexed images. This is an open addressing hash table, where 
+     * each entry consists of a key (the ARGB value) and a value (the
+     * palette index, plus 1, so that 0 indicates an empty slot) 
+     */
+    private final int paletteLookup[];
+    
+    /**
+     * The compression level
+     */
+    private final int compressionLevel;
+    
+    /**
+     * The executor for compressing the blocks
+     */
+    private final Executor executor;
+    
+    /**
+     * The size of one row, in bytes, without the filter type byte
+     */
+    private final int rowSize;
+    
+    /**
+     * The number of rows per block
+     */
+    private final int rowsPerBlock;
+    
+    /**
+     * The maximum number of blocks that may be pending
+     */
+    private final int maxPendingBlocks;
+    
+    /**
+     * The blocks that are currently compressed
+     */
+    private final Deque<CompletableFuture<Block>> pendingBlocks;
+    
+    /**
+     * The unfiltered data of the rows of the current block
+     */
+    private byte currentRows[];
+    
+    /**
+     * The number of rows in the current block
+     */
+    private int currentRowCount;
+    
+    /**
+     * The unfiltered data of the last row of the previous block
+     */
+    private byte previousRow[];
+    
+    /**
+     * The number of rows that have been passed to this writer
+     */
+    private int rowCount;
+    
+    /**
+     * The Adler-32 checksum of all data that has been written
+     */
+    private long adler;
+    
+    /**
+     * Whether the zlib header has already been written
+     */
+    private boolean zlibHeaderWritten;
+    
+    /**
+     * Whether this writer was closed
+     */
+    private boolean closed;
+    
+    /**
+     * Creates a new writer for a truecolor image
+     * 
+     * @param outputStream The output stream
+     * @param width The width of the image
+     * @param height The height of the image
+     * @param alpha Whether the alpha component should be written
+     * @throws IOException If writing the header fails
+     */
+    public PngWriter(OutputStream outputStream, 
+        int width, int height, boolean alpha) throws IOException
+    {
+        this(Channels.newChannel(outputStream), width, height, alpha);
+    }
+    
+    /**
+     * Creates a new writer for an indexed image
+     * 
+     * @param outputStream The output stream
+     * @param width The width of the image
+     * @param height The height of the image
+     * @param palette The palette, containing between 1 and 256 ARGB values
+     * @throws IOException If writing the header fails
+     */
+    public PngWriter(OutputStream outputStream, 
+        int width, int height, int palette[]) throws IOException
+    {
+        this(Channels.newChannel(outputStream), width, height, palette);
+    }
+    
+    /**
+     * Creates a new writer for a truecolor image
+     * 
+     * @param channel The channel
+     * @param width The width of the image
+     * @param height The height of the image
+     * @param alpha Whether the alpha component should be written
+     * @throws IOException If writing the header fails
+     */
+    public PngWriter(WritableByteChannel channel, 
+        int width, int height, boolean alpha) throws IOException
+    {
+        this(channel, width, height, 
+            alpha ? PngColorType.TRUECOLOR_ALPHA : PngColorType.TRUECOLOR, 
+            null, Deflater.DEFAULT_COMPRESSION, ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Creates a new writer for an indexed image
+     * 
+     * @param channel The channel
+     * @param width The width of the image
+     * @param height The height of the image
+     * @param palette The palette, containing between 1 and 256 ARGB values
+     * @throws IOException If writing the header fails
+     */
+    public PngWriter(WritableByteChannel channel, 
+        int width, int height, int palette[]) throws IOException
+    {
+        this(channel, width, height, PngColorType.INDEXED, palette, 
+            Deflater.DEFAULT_COMPRESSION, ForkJoinPool.commonPool());
+    }
+    
+    /**
+     * Creates a new instance. This will immediately write the header 
+     * of the PNG file to the given channel.
+     * 
+     * @param channel The channel
+     * @param width The width of the image
+     * @param height The height of the image
+     * @param colorType The {@link PngColorType}
+     * @param palette The palette, containing between 1 and 256 ARGB 
+     * values. This is only used for the {@link PngColorType#INDEXED}
+     * type, and may be <code>null</code> otherwise. A copy of the given
+     * array will be stored.
+     * @param compressionLevel The compression level, as defined in the
+     * <code>Deflater</code> class
+     * @param executor The executor that will be used for compressing
+     * the row groups
+     * @throws IllegalArgumentException If the width or height is not
+     * positive, the compression level is not valid, or the color type
+     * is {@link PngColorType#INDEXED} and the palette does not contain
+     * between 1 and 256 elements
+     * @throws IOException If writing the header fails
+     */
+    public PngWriter(WritableByteChannel channel, int width, int height, 
+        PngColorType colorType, int palette[], int compressionLevel, 
+        Executor executor) throws IOException
+    {
+        this.channel = Objects.requireNonNull(
+            channel, "The channel may not be null");
+        this.colorType = Objects.requireNonNull(
+            colorType, "The colorType may not be null");
+        this.executor = Objects.requireNonNull(
+            executor, "The executor may not be null");
+        if (width <= 0 || height <= 0)
+        {
+            throw new IllegalArgumentException(
+                "Invalid size: " + width + "x" + height);
+        }
+        if (compressionLevel != Deflater.DEFAULT_COMPRESSION && 
+            (compressionLevel < 0 || compressionLevel > 9))
+        {
+            throw new IllegalArgumentException(
+                "Invalid compression level: " + compressionLevel);
+        }
+        long longRowSize = (long)width * colorType.getBytesPerPixel();
+        if (longRowSize + 1 > Integer.MAX_VALUE)
+        {
+            throw new IllegalArgumentException(
+                "The width " + width + " is too large");
+        }
+        this.width = width;
+        this.height = height;
+        this.compressionLevel = compressionLevel;
+        if (colorType == PngColorType.INDEXED)
+        {
+            Objects.requireNonNull(palette, "The palette may not be null");
+            if (palette.length < 1 || palette.length > 256)
+            {
+                throw new IllegalArgumentException(
+                    "The palette must contain between 1 and 256 colors, "
+                    + "but contains " + palette.length);
+            }
+            this.palette = palette.clone();
+            this.paletteLookup = createPaletteLookup(this.palette);
+        }
+        else
+        {
+            this.palette = null;
+            this.paletteLookup = null;
+        }
+        this.rowSize = (int)longRowSize;
+        this.rowsPerBlock = Math.max(1, TARGET_BLOCK_SIZE / (rowSize + 1));
+        this.maxPendingBlocks = 
+            2 * Math.max(1, Runtime.getRuntime().availableProcessors());
+        this.pendingBlocks = new ArrayDeque<CompletableFuture<Block>>();
+        this.previousRow = new byte[rowSize];
+        this.adler = 1;
+        writeHeader();
+    }
+    
+    /**
+     * Returns the width of the image
+     * 
+     * @return The width
+     */
+    public int getWidth()
+    {
+        return width;
+    }
+    
+    /**
+     * Returns the height of the image
+     * 
+     * @return The height
+     */
+    public int getHeight()
+    {
+        return height;
+    }
+    
+    /**
+     * Returns the {@link PngColorType}
+     * 
+     * @return The {@link PngColorType}
+     */
+    public PngColorType getColorType()
+    {
+        return colorType;
+    }
+    
+    /**
+     * Write the given rows of ARGB values. The given array must contain
+     * <code>rows * width</code> ARGB values, starting at the given offset.
+     * For indexed images, each ARGB value must be contained in the 
+     * palette.
+     * 
+     * @param argbs The ARGB values
+     * @param offset The offset in the array
+     * @param rows The number of rows
+     * @throws IOException If an IO error occurs
+     * @throws IllegalArgumentException If more rows are written than the
+     * height of the image, or the image is indexed and one of the ARGB 
+     * values is not contained in the palette
+     * @throws IndexOutOfBoundsException If the array does not contain 
+     * the specified number of values
+     */
+    public void writeRows(int argbs[], int offset, int rows) 
+        throws IOException
+    {
+        checkRows(argbs.length, offset, rows);
+        for (int r = 0; r < rows; r++)
+        {
+            int start = offset + r * width;
+            int target = currentRowCount * rowSize;
+            switch (colorType)
+            {
+                case TRUECOLOR:
+                    for (int x = 0; x < width; x++)
+                    {
+                        int argb = argbs[start + x];
+                        currentRows[target++] = (byte)(argb >> 16);
+                        currentRows[target++] = (byte)(argb >>  8);
+                        currentRows[target++] = (byte)(argb      );
+                    }
+                    break;
+                    
+                case TRUECOLOR_ALPHA:
+                    for (int x = 0; x < width; x++)
+                    {
+                        int argb = argbs[start + x];
+                        currentRows[target++] = (byte)(argb >> 16);
+                        currentRows[target++] = (byte)(argb >>  8);
+                        currentRows[target++] = (byte)(argb      );
+                        currentRows[target++] = (byte)(argb >> 24);
+                    }
+                    break;
+                    
+                case INDEXED:
+                default:
+                    for (int x = 0; x < width; x++)
+                    {
+                        int argb = argbs[start + x];
+                        currentRows[target++] = (byte)lookupIndex(argb);
+                    }
+                    break;
+            }
+            finishRow();
+        }
+    }
+    
+    /**
+     * Write the given rows of palette indices, for an indexed image. 
+     * The given array must contain <code>rows * width</code> indices, 
+     * starting at the given offset.
+     * 
+     * @param indices The palette indices
+     * @param offset The offset in the array
+     * @param rows The number of rows
+     * @throws IOException If an IO error occurs
+     * @throws IllegalStateException If this is not an indexed image
+     * @throws IllegalArgumentException If more rows are written than the
+     * height of the image, or one of the indices is not a valid palette
+     * index
+     * @throws IndexOutOfBoundsException If the array does not contain 
+     * the specified number of values
+     */
+    public void writeIndexedRows(int indices[], int offset, int rows) 
+        throws IOException
+    {
+        if (colorType != PngColorType.INDEXED)
+        {
+            throw new IllegalStateException(
+                "Can not write indices for color type " + colorType);
+        }
+        checkRows(indices.length, offset, rows);
+        for (int r = 0; r < rows; r++)
+        {
+            int start = offset + r * width;
+            int target = currentRowCount * rowSize;
+            for (int x = 0; x < width; x++)
+            {
+                int index = indices[start + x];
+                if (index < 0 || index >= palette.length)
+                {
+                    throw new IllegalArgumentException(
+                        "Invalid palette index: " + index);
+                }
+                currentRows[target++] = (byte)index;
+            }
+            finishRow();
+        }
+    }
+    
+    /**
+     * Make sure that the specified rows may be written
+     * 
+     * @param length The length of the input array
+     * @param offset The offset in the input array
+     * @param rows The number of rows
+     * @throws IllegalStateException If this writer was already closed
+     * @throws IllegalArgumentException If more rows would be written 
+     * than the height of the image
+     * @throws IndexOutOfBoundsException If the array does not contain 
+     * the specified number of values
+     */
+    private void checkRows(int length, int offset, int rows)
+    {
+        if (closed)
+        {
+            throw new IllegalStateException("The writer was closed");
+        }
+        if (rows < 0 || rows > height - rowCount)
+        {
+            throw new IllegalArgumentException("Can not write " + rows 
+                + " rows after " + rowCount + " of " + height + " rows");
+        }
+        long required = (long)rows * width;
+        if (offset < 0 || offset + required > length)
+        {
+            throw new IndexOutOfBoundsException("Can not read " + required 
+                + " values at offset " + offset + " from an array with " 
+                + "length " + length);
+        }
+        if (currentRows == null)
+        {
+            currentRows = new byte[rowsPerBlock * rowSize];
+        }
+    }
+    
+    /**
+     * Called after one row was stored in the current block. If the 
+     * block is complete, it will be submitted for compression.
+     * 
+     * @throws IOException If an IO error occurs
+     */
+    private void finishRow() throws IOException
+    {
+        currentRowCount++;
+        rowCount++;
+        if (currentRowCount == rowsPerBlock || rowCount == height)
+        {
+            submitBlock();
+        }
+    }
+    
+    /**
+     * Submit the current block for compression, and write all pending
+     * blocks until the number of pending blocks is below the maximum
+     * 
+     * @throws IOException If an IO error occurs
+     */
+    private void submitBlock() throws IOException
+    {
+        byte rows[] = currentRows;
+        int rows0 = currentRowCount;
+        byte previous[] = previousRow;
+        boolean last = rowCount == height;
+        previousRow = Arrays.copyOfRange(
+            rows, (rows0 - 1) * rowSize, rows0 * rowSize);
+        currentRows = last ? null : new byte[rowsPerBlock * rowSize];
+        currentRowCount = 0;
+        
+        CompletableFuture<Block> future = CompletableFuture.supplyAsync(
+            () -> compressBlock(rows, rows0, previous, last), executor);
+        pendingBlocks.addLast(future);
+        while (pendingBlocks.size() >= maxPendingBlocks)
+        {
+            writeBlock(pendingBlocks.removeFirst());
+        }
+    }
+    
+    /**
+     * Filter and compress the given rows
+     * 
+     * @param rows The unfiltered rows
+     * @param numRows The number of rows
+     * @param previousRow The unfiltered row before the given rows. This
+     * is all zeros for the first row of the image.
+     * @param last Whether these are the last rows of the image
+     * @return The compressed {@link Block}
+     */
+    private Block compressBlock(
+        byte rows[], int numRows, byte previousRow[], boolean last)
+    {
+        int filteredRowSize = rowSize + 1;
+        byte filtered[] = new byte[numRows * filteredRowSize];
+        for (int r = 0; r < numRows; r++)
+        {
+            filterRow(rows, r * rowSize, 
+                r == 0 ? previousRow : rows, r == 0 ? 0 : (r - 1) * rowSize,
+                filtered, r * filteredRowSize);
+        }
+        Adler32 adler32 = new Adler32();
+        adler32.update(filtered, 0, filtered.length);
+        
+        Deflater deflater = new Deflater(compressionLevel, true);
+        try
+        {
+            deflater.setInput(filtered);
+            if (last)
+            {
+                deflater.finish();
+            }
+            byte output[] = new byte[Math.max(64, filtered.length / 2)];
+            int outputLength = 0;
+            while (true)
+            {
+                if (outputLength == output.length)
+                {
+                    output = Arrays.copyOf(output, output.length * 2);
+                }
+                int n;
+                if (last)
+                {
+                    n = deflater.deflate(output, outputLength, 
+                        output.length - outputLength);
+                }
+                else
+                {
+                    n = deflater.deflate(output, outputLength, 
+                        output.length - outputLength, Deflater.SYNC_FLUSH);
+                }
+                outputLength += n;
+                if (last)
+                {
+                    if (deflater.finished())
+                    {
+                        break;
+                    }
+                }
+                else if (outputLength < output.length)
+                {
+                    // The deflater did not fill the output buffer, so 
+                    // all input was consumed and flushed
+                    break;
+                }
+            }
+            return new Block(output, outputLength, 
+                adler32.getValue(), filtered.length);
+        }
+        finally
+        {
+            deflater.end();
+        }
+    }
+    
+    /**
+     * Filter the given row. For indexed images, no filter is applied. 
+     * For truecolor images, the filter that yields the smallest sum of
+     * absolute values of the filtered bytes is chosen.
+     * 
+     * @param row The array containing the row
+     * @param rowOffset The offset of the row in the array
+     * @param prior The array containing the prior row
+     * @param priorOffset The offset of the prior row in the array
+     * @param target The target array
+     * @param targetOffset The offset in the target array, where the 
+     * filter type byte will be written, followed by the filtered row
+     */
+    private void filterRow(byte row[], int rowOffset, 
+        byte prior[], int priorOffset, byte target[], int targetOffset)
+    {
+        if (colorType == PngColorType.INDEXED)
+        {
+            target[targetOffset] = FILTER_NONE;
+            System.arraycopy(row, rowOffset, target, targetOffset + 1, 
+                rowSize);
+            return;
+        }
+        int bpp = colorType.getBytesPerPixel();
+        long sums[] = new long[5];
+        for (int i = 0; i < rowSize; i++)
+        {
+            int x = row[rowOffset + i] & 0xFF;
+            int a = i >= bpp ? row[rowOffset + i - bpp] & 0xFF : 0;
+            int b = prior[priorOffset + i] & 0xFF;
+            int c = i >= bpp ? prior[priorOffset + i - bpp] & 0xFF : 0;
+            sums[FILTER_NONE] += Math.abs((byte)x);
+            sums[FILTER_SUB] += Math.abs((byte)(x - a));
+            sums[FILTER_UP] += Math.abs((byte)(x - b));
+            sums[FILTER_AVERAGE] += Math.abs((byte)(x - ((a + b) >> 1)));
+            sums[FILTER_PAETH] += Math.abs((byte)(x - paeth(a, b, c)));
+        }
+        int filter = FILTER_NONE;
+        for (int f = 1; f < sums.length; f++)
+        {
+            if (sums[f] < sums[filter])
+            {
+                filter = f;
+            }
+        }
+        target[targetOffset] = (byte)filter;
+        int t = targetOffset + 1;
+        for (int i = 0; i < rowSize; i++)
+        {
+            int x = row[rowOffset + i] & 0xFF;
+            int a = i >= bpp ? row[rowOffset + i - bpp] & 0xFF : 0;
+            int b = prior[priorOffset + i] & 0xFF;
+            int c = i >= bpp ? prior[priorOffset + i - bpp] & 0xFF : 0;
+            int predicted;
+            switch (filter)
+            {
+                case FILTER_SUB:
+                    predicted = a;
+                    break;
+                    
+                case FILTER_UP:
+                    predicted = b;
+                    break;
+                    
+                case FILTER_AVERAGE:
+                    predicted = (a + b) >> 1;
+                    break;
+                    
+                case FILTER_PAETH:
+                    predicted = paeth(a, b, c);
+                    break;
+                    
+                case FILTER_NONE:
+                default:
+                    predicted = 0;
+                    break;
+            }
+            target[t + i] = (byte)(x - predicted);
+        }
+    }
+    
+    /**
+     * Computes the Paeth predictor for the given values
+     * 
+     * @param a The left value
+     * @param b The upper value
+     * @param c The upper left value
+     * @return The predictor
+     */
+    private static int paeth(int a, int b, int c)
+    {
+        int p = a + b - c;
+        int pa = Math.abs(p - a);
+        int pb = Math.abs(p - b);
+        int pc = Math.abs(p - c);
+        if (pa <= pb && pa <= pc)
+        {
+            return a;
+        }
+        if (pb <= pc)
+        {
+            return b;
+        }
+        return c;
+    }
+    
+    /**
+     * Wait for the given block to be compressed, and write it as an
+     * IDAT chunk
+     * 
+     * @param future The future of the block
+     * @throws IOException If an IO error occurs
+     */
+    private void writeBlock(CompletableFuture<Block> future) 
+        throws IOException
+    {
+        Block block;
+        try
+        {
+            block = future.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException(
+                "Interrupted while compressing");
+        }
+        catch (ExecutionException e)
+        {
+            throw new IOException("Failed to compress", e.getCause());
+        }
+        adler = combineAdler32(adler, block.adler, block.inputLength);
+        boolean last = pendingBlocks.isEmpty() && rowCount == height;
+        byte prefix[] = zlibHeaderWritten ? new byte[0] : ZLIB_HEADER;
+        zlibHeaderWritten = true;
+        byte suffix[] = new byte[0];
+        if (last)
+        {
+            suffix = ByteBuffer.allocate(4).putInt((int)adler).array();
+        }
+        writeChunk("IDAT", ByteBuffer.wrap(prefix), 
+            ByteBuffer.wrap(block.data, 0, block.length), 
+            ByteBuffer.wrap(suffix));
+    }
+    
+    /**
+     * Combine two Adler-32 checksums, in the same way as the 
+     * <code>adler32_combine</code> function of zlib
+     * 
+     * @param adler1 The checksum of the first sequence
+     * @param adler2 The checksum of the second sequence
+     * @param length2 The length of the second sequence
+     * @return The checksum of the concatenated sequences
+     */
+    static long combineAdler32(long adler1, long adler2, long length2)
+    {
+        long rem = length2 % ADLER_BASE;
+        long sum1 = adler1 & 0xFFFF;
+        long sum2 = (rem * sum1) % ADLER_BASE;
+        sum1 += (adler2 & 0xFFFF) + ADLER_BASE - 1;
+        sum2 += ((adler1 >> 16) & 0xFFFF) + ((adler2 >> 16) & 0xFFFF) 
+            + ADLER_BASE - rem;
+        if (sum1 >= ADLER_BASE) 
+        {
+            sum1 -= ADLER_BASE;
+        }
+        if (sum1 >= ADLER_BASE)
+        {
+            sum1 -= ADLER_BASE;
+        }
+        if (sum2 >= (ADLER_BASE << 1))
+        {
+            sum2 -= (ADLER_BASE << 1);
+        }
+        if (sum2 >= ADLER_BASE)
+        {
+            sum2 -= ADLER_BASE;
+        }
+        return sum1 | (sum2 << 16);
+    }
+    
+    /**
+     * Write the signature, the IHDR chunk, and, for indexed images,
+     * the PLTE chunk and (if necessary) the tRNS chunk
+     * 
+     * @throws IOException If an IO error occurs
+     */
+    private void writeHeader() throws IOException
+    {
+        write(ByteBuffer.wrap(SIGNATURE));
+        ByteBuffer ihdr = ByteBuffer.allocate(13);
+        ihdr.putInt(width);
+        ihdr.putInt(height);
+        ihdr.put((byte)8);
+        ihdr.put((byte)colorType.getCode());
+        ihdr.put((byte)0);
+        ihdr.put((byte)0);
+        ihdr.put((byte)0);
+        writeChunk("IHDR", ihdr.array());
+        if (palette == null)
+        {
+            return;
+        }
+        byte plte[] = new byte[palette.length * 3];
+        int numAlphas = 0;
+        for (int i = 0; i < palette.length; i++)
+        {
+            int argb = palette[i];
+            plte[i * 3 + 0] = (byte)(argb >> 16);
+            plte[i * 3 + 1] = (byte)(argb >>  8);
+            plte[i * 3 + 2] = (byte)(argb      );
+            if ((argb >>> 24) != 0xFF)
+            {
+                numAlphas = i + 1;
+            }
+        }
+        writeChunk("PLTE", plte);
+        if (numAlphas > 0)
+        {
+            byte trns[] = new byte[numAlphas];
+            for (int i = 0; i < numAlphas; i++)
+            {
+                trns[i] = (byte)(palette[i] >>> 24);
+            }
+            writeChunk("tRNS", trns);
+        }
+    }
+    
+    /**
+     * Write a chunk with the given type, consisting of the given parts
+     * 
+     * @param type The chunk type
+     * @param parts The parts of the chunk data
+     * @throws IOException If an IO error occurs
+     */
+    private void writeChunk(String type, byte[]... parts) throws IOException
+    {
+        ByteBuffer buffers[] = new ByteBuffer[parts.length];
+        for (int i = 0; i < parts.length; i++)
+        {
+            buffers[i] = ByteBuffer.wrap(parts[i]);
+        }
+        writeChunk(type, buffers);
+    }
+    
+    /**
+     * Write a chunk with the given type, consisting of the given parts
+     * 
+     * @param type The chunk type
+     * @param parts The parts of the chunk data
+     * @throws IOException If an IO error occurs
+     */
+    private void writeChunk(String type, ByteBuffer... parts) 
+        throws IOException
+    {
+        long length = 0;
+        for (ByteBuffer part : parts)
+        {
+            length += part.remaining();
+        }
+        if (length > Integer.MAX_VALUE)
+        {
+            throw new IOException("Chunk too large: " + length);
+        }
+        byte typeBytes[] = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(typeBytes);
+        ByteBuffer chunkHeader = ByteBuffer.allocate(8);
+        chunkHeader.putInt((int)length);
+        chunkHeader.put(typeBytes);
+        ((Buffer)chunkHeader).flip();
+        write(chunkHeader);
+        for (ByteBuffer part : parts)
+        {
+            crc.update(part.duplicate());
+            write(part);
+        }
+        ByteBuffer chunkCrc = ByteBuffer.allocate(4);
+        chunkCrc.putInt((int)crc.getValue());
+        ((Buffer)chunkCrc).flip();
+        write(chunkCrc);
+    }
+    
+    /**
+     * Write the given buffer completely to the channel
+     * 
+     * @param buffer The buffer
+     * @throws IOException If an IO error occurs
+     */
+    private void write(ByteBuffer buffer) throws IOException
+    {
+        while (buffer.hasRemaining())
+        {
+            channel.write(buffer);
+        }
+    }
+    
+    /**
+     * Creates the lookup table from ARGB values to palette indices
+     * 
+     * @param palette The palette
+     * @return The lookup table
+     */
+    private static int[] createPaletteLookup(int palette[])
+    {
+        int lookup[] = new int[1024];
+        int mask = lookup.length / 2 - 1;
+        for (int i = 0; i < palette.length; i++)
+        {
+            int slot = hash(palette[i]) & mask;
+            while (true)
+            {
+                if (lookup[slot * 2 + 1] == 0)
+                {
+                    lookup[slot * 2] = palette[i];
+                    lookup[slot * 2 + 1] = i + 1;
+                    break;
+                }
+                if (lookup[slot * 2] == palette[i])
+                {
+                    // Duplicate palette entry: Keep the first index
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+        return lookup;
+    }
+    
+    /**
+     * Returns the palette index for the given ARGB value
+     * 
+     * @param argb The ARGB value
+     * @return The palette index
+     * @throws IllegalArgumentException If the value is not contained 
+     * in the palette
+     */
+    private int lookupIndex(int argb)
+    {
+        int mask = paletteLookup.length / 2 - 1;
+        int slot = hash(argb) & mask;
+        while (true)
+        {
+            int value = paletteLookup[slot * 2 + 1];
+            if (value == 0)
+            {
+                throw new IllegalArgumentException(String.format(
+                    "The color 0x%08X is not contained in the palette", 
+                    argb));
+            }
+            if (paletteLookup[slot * 2] == argb)
+            {
+                return value - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+    
+    /**
+     * Computes a hash code for the given ARGB value
+     * 
+     * @param argb The ARGB value
+     * @return The hash code
+     */
+    private static int hash(int argb)
+    {
+        int h = argb * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+    
+    /**
+     * Finish writing the image. This will write all pending data, and 
+     * the IEND chunk. The underlying channel or stream will not be 
+     * closed.
+     * 
+     * @throws IOException If an IO error occurs, or not all rows of 
+     * the image have been written
+     */
+    @Override
+    public void close() throws IOException
+    {
+        if (closed)
+        {
+            return;
+        }
+        closed = true;
+        if (rowCount != height)
+        {
+            pendingBlocks.clear();
+            throw new IOException("Expected " + height 
+                + " rows, but only " + rowCount + " have been written");
+        }
+        while (!pendingBlocks.isEmpty())
+        {
+            writeBlock(pendingBlocks.removeFirst());
+        }
+        writeChunk("IEND", new byte[0]);
+    }
+    
+    /**
+     * A compressed group of rows
+     */
+    private static final class Block
+    {
+        /**
+         * The compressed data
+         */
+        final byte data[];
+        
+        /**
+         * The length of the compressed data
+         */
+        final int length;
+        
+        /**
+         * The Adler-32 checksum of the uncompressed data
+         */
+        final long adler;
+        
+        /**
+         * The length of the uncompressed data
+         */
+        final long inputLength;
+        
+        /**
+         * Creates a new instance
+         * 
+         * @param data The compressed data
+         * @param length The length of the compressed data
+         * @param adler The Adler-32 checksum of the uncompressed data
+         * @param inputLength The length of the uncompressed data
+         */
+        Block(byte data[], int length, long adler, long inputLength)
+        {
+            this.data = data;
+            this.length = length;
+            this.adler = adler;
+            this.inputLength = inputLength;
+        }
+    }
+}
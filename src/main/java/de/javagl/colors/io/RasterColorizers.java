@@ -0,0 +1,359 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors.io;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+import de.javagl.colors.maps.ColorMap1D;
+import de.javagl.colors.maps.ColorMaps;
+import de.javagl.colors.maps.Normalizer;
+import de.javagl.colors.maps.ScaledColorMap1D;
+
+/**
+ * Methods to colorize files that contain single-channel floating point
+ * rasters, and write the result into image files.<br>
+ * <br>
+ * The input and output files are memory-mapped in chunks of rows, and 
+ * the chunks are processed in parallel. The raster data is never copied
+ * into the Java heap, so the size of the rasters is not limited by the 
+ * heap size. Note that mapped buffers can not be unmapped explicitly, 
+ * but are released when they are garbage collected.
+ */
+public class RasterColorizers
+{
+    /**
+     * The default maximum size of the input region that is mapped 
+     * for a single chunk, in bytes
+     */
+    private static final long DEFAULT_MAX_CHUNK_SIZE = 1L << 24;
+    
+    /**
+     * Colorize the raster that is described by the given header and 
+     * contained in the given input file, and write the result into
+     * the given output file.<br>
+     * <br>
+     * Each value of the raster will be normalized with the given 
+     * {@link Normalizer}, and the color for the normalized value will 
+     * be looked up in the given {@link ColorMap1D}. The output file will
+     * contain the rows from top to bottom, regardless of whether the 
+     * input is stored {@link RasterHeader#isBottomUp() bottom-up}.
+     * 
+     * @param input The input file
+     * @param header The {@link RasterHeader} describing the input file
+     * @param colorMap The {@link ColorMap1D}
+     * @param normalizer The {@link Normalizer}
+     * @param output The output file. If it exists, it will be overwritten.
+     * @param format The {@link RasterOutputFormat}
+     * @throws IOException If an IO error occurs, or the input file is 
+     * too small for the given header
+     */
+    public static void colorize(Path input, RasterHeader header, 
+        ColorMap1D colorMap, Normalizer normalizer, 
+        Path output, RasterOutputFormat format) throws IOException
+    {
+        colorize(input, header, colorMap, normalizer, output, format, 
+            DEFAULT_MAX_CHUNK_SIZE);
+    }
+    
+    /**
+     * Colorize the raster that is described by the given header and 
+     * contained in the given input file, and write the result into
+     * the given output file. See 
+     * {@link #colorize(Path, RasterHeader, ColorMap1D, Normalizer, 
+     * Path, RasterOutputFormat)} for details.<br>
+     * <br>
+     * The given maximum chunk size determines how many rows of the input
+     * are mapped and processed together. At least one row will be 
+     * processed in each chunk. 
+     * 
+     * @param input The input file
+     * @param header The {@link RasterHeader} describing the input file
+     * @param colorMap The {@link ColorMap1D}
+     * @param normalizer The {@link Normalizer}
+     * @param output The output file. If it exists, it will be overwritten.
+     * @param format The {@link RasterOutputFormat}
+     * @param maxChunkSize The maximum size of the input region that is 
+     * mapped for a single chunk, in bytes
+     * @throws IOException If an IO error occurs, or the input file is 
+     * too small for the given header
+     * @throws IllegalArgumentException If the maximum chunk size is
+     * not positive
+     */
+    public static void colorize(Path input, RasterHeader header, 
+        ColorMap1D colorMap, Normalizer normalizer, 
+        Path output, RasterOutputFormat format, long maxChunkSize) 
+            throws IOException
+    {
+        Objects.requireNonNull(header, "The header may not be null");
+        Objects.requireNonNull(format, "The format may not be null");
+        if (maxChunkSize <= 0)
+        {
+            throw new IllegalArgumentException(
+                "The maximum chunk size must be positive, but is " 
+                + maxChunkSize);
+        }
+        ScaledColorMap1D scaledColorMap = 
+            ColorMaps.scaled(colorMap, normalizer);
+        
+        int width = header.getWidth();
+        int height = header.getHeight();
+        long inputRowSize = header.getRowSize();
+        long outputRowSize = (long)width * format.getBytesPerPixel();
+        long maxRowSize = Math.max(inputRowSize, outputRowSize);
+        long maxChunkRows = Math.min(
+            maxChunkSize / inputRowSize, Integer.MAX_VALUE / maxRowSize);
+        if (maxChunkRows < 1 && maxRowSize > Integer.MAX_VALUE)
+        {
+            throw new IOException(
+                "The row size " + maxRowSize + " is too large");
+        }
+        int rowsPerChunk = (int)Math.max(1, Math.min(height, maxChunkRows));
+        int numChunks = (height + rowsPerChunk - 1) / rowsPerChunk;
+        
+        byte outputHeader[] = createHeader(format, width, height);
+        long outputDataOffset = outputHeader.length;
+        
+        try (FileChannel inputChannel = FileChannel.open(input, 
+                StandardOpenOption.READ);
+            FileChannel outputChannel = FileChannel.open(output, 
+                StandardOpenOption.CREATE, 
+                StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, 
+                StandardOpenOption.WRITE))
+        {
+            long requiredSize = 
+                header.getDataOffset() + inputRowSize * height;
+            if (inputChannel.size() < requiredSize)
+            {
+                throw new IOException("The input file has a size of " 
+                    + inputChannel.size() + " bytes, but the header "
+                    + "requires " + requiredSize + " bytes");
+            }
+            ByteBuffer headerBuffer = ByteBuffer.wrap(outputHeader);
+            while (headerBuffer.hasRemaining())
+            {
+                outputChannel.write(headerBuffer);
+            }
+            
+            try
+            {
+                IntStream.range(0, numChunks).parallel().forEach(c -> 
+                {
+                    int minRow = c * rowsPerChunk;
+                    int maxRow = Math.min(height, minRow + rowsPerChunk);
+                    try
+                    {
+                        processChunk(inputChannel, header, 
+                            outputChannel, outputDataOffset, 
+                            outputRowSize, format, scaledColorMap, 
+                            minRow, maxRow);
+                    }
+                    catch (IOException e)
+                    {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+            catch (UncheckedIOException e)
+            {
+                throw e.getCause();
+            }
+        }
+    }
+    
+    /**
+     * Process the specified chunk of rows
+     * 
+     * @param inputChannel The input channel
+     * @param header The {@link RasterHeader}
+     * @param outputChannel The output channel
+     * @param outputDataOffset The offset of the data in the output
+     * @param outputRowSize The size of one output row, in bytes
+     * @param format The {@link RasterOutputFormat}
+     * @param colorMap The {@link ScaledColorMap1D}
+     * @param minRow The minimum output row, inclusive
+     * @param maxRow The maximum output row, exclusive
+     * @throws IOException If an IO error occurs
+     */
+    private static void processChunk(
+        FileChannel inputChannel, RasterHeader header, 
+        FileChannel outputChannel, long outputDataOffset, 
+        long outputRowSize, RasterOutputFormat format, 
+        ScaledColorMap1D colorMap, int minRow, int maxRow) 
+            throws IOException
+    {
+        int width = header.getWidth();
+        int rows = maxRow - minRow;
+        long inputRowSize = header.getRowSize();
+        
+        // For bottom-up inputs, the output rows [minRow, maxRow) are 
+        // read from the input rows [height-maxRow, height-minRow),
+        // in reverse order
+        int minInputRow = header.isBottomUp() ? 
+            header.getHeight() - maxRow : minRow;
+        MappedByteBuffer inputBuffer = inputChannel.map(MapMode.READ_ONLY, 
+            header.getDataOffset() + minInputRow * inputRowSize, 
+            rows * inputRowSize);
+        inputBuffer.order(header.getByteOrder());
+        MappedByteBuffer outputBuffer = outputChannel.map(
+            MapMode.READ_WRITE, 
+            outputDataOffset + minRow * outputRowSize, 
+            rows * outputRowSize);
+        outputBuffer.order(ByteOrder.BIG_ENDIAN);
+        
+        // The decisions about the input type and the output format are
+        // made once per row, and each row is converted in bulk
+        FloatBuffer floatBuffer = null;
+        DoubleBuffer doubleBuffer = null;
+        float floatRow[] = null;
+        double doubleRow[] = null;
+        if (header.getDataType() == RasterDataType.FLOAT32)
+        {
+            floatBuffer = inputBuffer.asFloatBuffer();
+            floatRow = new float[width];
+        }
+        else
+        {
+            doubleBuffer = inputBuffer.asDoubleBuffer();
+            doubleRow = new double[width];
+        }
+        IntBuffer intBuffer = null;
+        byte byteRow[] = null;
+        if (format == RasterOutputFormat.PPM)
+        {
+            byteRow = new byte[width * 3];
+        }
+        else
+        {
+            intBuffer = outputBuffer.asIntBuffer();
+        }
+        int argbs[] = new int[width];
+        
+        for (int r = 0; r < rows; r++)
+        {
+            int inputRow = header.isBottomUp() ? rows - 1 - r : r;
+            int inputIndex = inputRow * width;
+            if (floatBuffer != null)
+            {
+                ((Buffer)floatBuffer).position(inputIndex);
+                floatBuffer.get(floatRow);
+                colorMap.getArgbs(floatRow, argbs);
+            }
+            else
+            {
+                ((Buffer)doubleBuffer).position(inputIndex);
+                doubleBuffer.get(doubleRow);
+                colorMap.getArgbs(doubleRow, argbs);
+            }
+            
+            if (byteRow != null)
+            {
+                for (int x = 0; x < width; x++)
+                {
+                    int argb = argbs[x];
+                    int b = x * 3;
+                    byteRow[b + 0] = (byte)(argb >> 16);
+                    byteRow[b + 1] = (byte)(argb >>  8);
+                    byteRow[b + 2] = (byte)(argb      );
+                }
+                ((Buffer)outputBuffer).position(r * byteRow.length);
+                outputBuffer.put(byteRow);
+            }
+            else
+            {
+                if (format == RasterOutputFormat.PAM)
+                {
+                    for (int x = 0; x < width; x++)
+                    {
+                        argbs[x] = Integer.rotateLeft(argbs[x], 8);
+                    }
+                }
+                ((Buffer)intBuffer).position(r * width);
+                intBuffer.put(argbs);
+            }
+        }
+    }
+    
+    /**
+     * Create the header for the given output format
+     * 
+     * @param format The {@link RasterOutputFormat}
+     * @param width The width
+     * @param height The height
+     * @return The header bytes. This may be an empty array.
+     */
+    private static byte[] createHeader(
+        RasterOutputFormat format, int width, int height)
+    {
+        String header;
+        switch (format)
+        {
+            case PPM:
+                header = "P6\n" + width + " " + height + "\n255\n";
+                break;
+                
+            case PAM:
+                header = "P7\n" 
+                    + "WIDTH " + width + "\n" 
+                    + "HEIGHT " + height + "\n"
+                    + "DEPTH 4\n"
+                    + "MAXVAL 255\n"
+                    + "TUPLTYPE RGB_ALPHA\n"
+                    + "ENDHDR\n";
+                break;
+                
+            case RAW_ARGB:
+            default:
+                header = "";
+                break;
+        }
+        return header.getBytes(StandardCharsets.US_ASCII);
+    }
+    
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private RasterColorizers()
+    {
+        // Private constructor to prevent instantiation
+    }
+}
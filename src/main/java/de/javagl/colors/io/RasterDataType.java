@@ -0,0 +1,69 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors.io;
+
+/**
+ * An enumeration of the data types of raster files that are supported
+ * by the {@link RasterColorizers}
+ */
+public enum RasterDataType
+{
+    /**
+     * 32 bit IEEE 754 floating point values
+     */
+    FLOAT32(4),
+    
+    /**
+     * 64 bit IEEE 754 floating point values
+     */
+    FLOAT64(8);
+    
+    /**
+     * The size of one value, in bytes
+     */
+    private final int size;
+    
+    /**
+     * Creates a new instance
+     * 
+     * @param size The size of one value, in bytes
+     */
+    private RasterDataType(int size)
+    {
+        this.size = size;
+    }
+    
+    /**
+     * Returns the size of one value, in bytes
+     * 
+     * @return The size
+     */
+    public int getSize()
+    {
+        return size;
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors.io;
+
+import java.nio.ByteOrder;
+import java.util.Objects;
+
+/**
+ * A description of the layout of a file that contains a single-channel
+ * raster of floating point values. Instances of this class may be 
+ * created with the constructor, for raw files without a header, or 
+ * read from the headers of known file formats with the methods in
+ * the {@link RasterHeaders} class.
+ */
+public final class RasterHeader
+{
+    /**
+     * The width of the raster
+     */
+    private final int width;
+    
+    /**
+     * The height of the raster
+     */
+    private final int height;
+    
+    /**
+     * The data type
+     */
+    private final RasterDataType dataType;
+    
+    /**
+     * The byte order
+     */
+    private final ByteOrder byteOrder;
+    
+    /**
+     * The offset of the data in the file, in bytes
+     */
+    private final long dataOffset;
+    
+    /**
+     * Whether the rows are stored from bottom to top
+     */
+    private final boolean bottomUp;
+    
+    /**
+     * Creates a new instance
+     * 
+     * @param width The width of the raster
+     * @param height The height of the raster
+     * @param dataType The {@link RasterDataType}
+     * @param byteOrder The byte order
+     * @param dataOffset The offset of the data in the file, in bytes
+     * @param bottomUp Whether the rows are stored from bottom to top
+     * @throws IllegalArgumentException If the width or height is not 
+     * positive, or the offset is negative
+     */
+    public RasterHeader(int width, int height, RasterDataType dataType, 
+        ByteOrder byteOrder, long dataOffset, boolean bottomUp)
+    {
+        if (width <= 0 || height <= 0)
+        {
+            throw new IllegalArgumentException(
+                "Invalid size: " + width + "x" + height);
+        }
+        if (dataOffset < 0)
+        {
+            throw new IllegalArgumentException(
+                "The offset may not be negative, but is " + dataOffset);
+        }
+        this.width = width;
+        this.height = height;
+        this.dataType = Objects.requireNonNull(
+            dataType, "The dataType may not be null");
+        this.byteOrder = Objects.requireNonNull(
+            byteOrder, "The byteOrder may not be null");
+        this.dataOffset = dataOffset;
+        this.bottomUp = bottomUp;
+    }
+    
+    /**
+     * Returns the width of the raster
+     * 
+     * @return The width
+     */
+    public int getWidth()
+    {
+        return width;
+    }
+    
+    /**
+     * Returns the height of the raster
+     * 
+     * @return The height
+     */
+    public int getHeight()
+    {
+        return height;
+    }
+    
+    /**
+     * Returns the {@link RasterDataType}
+     * 
+     * @return The {@link RasterDataType}
+     */
+    public RasterDataType getDataType()
+    {
+        return dataType;
+    }
+    
+    /**
+     * Returns the byte order
+     * 
+     * @return The byte order
+     */
+    public ByteOrder getByteOrder()
+    {
+        return byteOrder;
+    }
+    
+    /**
+     * Returns the offset of the data in the file, in bytes
+     * 
+     * @return The offset
+     */
+    public long getDataOffset()
+    {
+        return dataOffset;
+    }
+    
+    /**
+     * Returns whether the rows are stored from bottom to top
+     * 
+     * @return Whether the rows are stored from bottom to top
+     */
+    public boolean isBottomUp()
+    {
+        return bottomUp;
+    }
+    
+    /**
+     * Returns the size of one row of the raster, in bytes
+     * 
+     * @return The row size
+     */
+    public long getRowSize()
+    {
+        return (long)width * dataType.getSize();
+    }
+    
+    @Override
+    public String toString()
+    {
+        return "RasterHeader[" 
+            + "width=" + width + ","
+            + "height=" + height + ","
+            + "dataType=" + dataType + ","
+            + "byteOrder=" + byteOrder + ","
+            + "dataOffset=" + dataOffset + ","
+            + "bottomUp=" + bottomUp + "]";
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Methods to read {@link RasterHeader} instances from files
+ */
+public class RasterHeaders
+{
+    /**
+     * The maximum size of a PFM header that is accepted
+     */
+    private static final int MAX_PFM_HEADER_SIZE = 1024;
+    
+    /**
+     * Reads the {@link RasterHeader} from the given PFM (portable float
+     * map) file. Only single-channel (<code>"Pf"</code>) files are 
+     * supported. 
+     * 
+     * @param path The path of the PFM file
+     * @return The {@link RasterHeader}
+     * @throws IOException If the file cannot be read, or does not 
+     * contain a valid single-channel PFM header
+     */
+    public static RasterHeader readPfm(Path path) throws IOException
+    {
+        try (InputStream inputStream = Files.newInputStream(path))
+        {
+            String tokens[] = new String[4];
+            int position = 0;
+            for (int t = 0; t < tokens.length; t++)
+            {
+                StringBuilder sb = new StringBuilder();
+                while (true)
+                {
+                    int c = inputStream.read();
+                    position++;
+                    if (c == -1 || position > MAX_PFM_HEADER_SIZE)
+                    {
+                        throw new IOException(
+                            "Invalid PFM header in " + path);
+                    }
+                    if (Character.isWhitespace(c))
+                    {
+                        if (sb.length() > 0)
+                        {
+                            break;
+                        }
+                        continue;
+                    }
+                    sb.append((char)c);
+                }
+                tokens[t] = sb.toString();
+            }
+            if (tokens[0].equals("PF"))
+            {
+                throw new IOException(
+                    "Only single-channel PFM files are supported");
+            }
+            if (!tokens[0].equals("Pf"))
+            {
+                throw new IOException(
+                    "Expected PFM identifier, found " + tokens[0]);
+            }
+            int width = parseInt(tokens[1], "width");
+            int height = parseInt(tokens[2], "height");
+            double scale = parseDouble(tokens[3], "scale");
+            ByteOrder byteOrder = scale < 0 ? 
+                ByteOrder.LITTLE_ENDIAN : ByteOrder.BIG_ENDIAN;
+            return new RasterHeader(width, height, RasterDataType.FLOAT32, 
+                byteOrder, position, true);
+        }
+    }
+    
+    /**
+     * Reads the {@link RasterHeader} from the given ENVI header file. 
+     * This is the <code>.hdr</code> file that describes the actual data 
+     * file. Only single-band files with 32 or 64 bit floating point 
+     * values are supported.
+     * 
+     * @param path The path of the ENVI header file
+     * @return The {@link RasterHeader}
+     * @throws IOException If the file cannot be read, or does not 
+     * contain a valid ENVI header for a supported file
+     */
+    public static RasterHeader readEnvi(Path path) throws IOException
+    {
+        List<String> lines = Files.readAllLines(path, StandardCharsets.UTF_8);
+        if (lines.isEmpty() || !lines.get(0).trim().equals("ENVI"))
+        {
+            throw new IOException("Expected ENVI header in " + path);
+        }
+        Map<String, String> values = new LinkedHashMap<String, String>();
+        for (String line : lines)
+        {
+            int index = line.indexOf('=');
+            if (index > 0)
+            {
+                String key = line.substring(0, index).trim();
+                String value = line.substring(index + 1).trim();
+                values.put(key.toLowerCase(Locale.ENGLISH), value);
+            }
+        }
+        int width = parseInt(getValue(values, "samples"), "samples");
+        int height = parseInt(getValue(values, "lines"), "lines");
+        int bands = parseInt(values.getOrDefault("bands", "1"), "bands");
+        if (bands != 1)
+        {
+            throw new IOException(
+                "Only single-band files are supported, found " + bands);
+        }
+        int dataTypeCode = 
+            parseInt(getValue(values, "data type"), "data type");
+        RasterDataType dataType;
+        if (dataTypeCode == 4)
+        {
+            dataType = RasterDataType.FLOAT32;
+        }
+        else if (dataTypeCode == 5)
+        {
+            dataType = RasterDataType.FLOAT64;
+        }
+        else
+        {
+            throw new IOException(
+                "Only floating point data is supported, found data type " 
+                + dataTypeCode);
+        }
+        int byteOrderCode = parseInt(
+            values.getOrDefault("byte order", "0"), "byte order");
+        ByteOrder byteOrder = byteOrderCode == 1 ? 
+            ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+        long offset = parseInt(
+            values.getOrDefault("header offset", "0"), "header offset");
+        return new RasterHeader(
+            width, height, dataType, byteOrder, offset, false);
+    }
+    
+    /**
+     * Returns the value for the given key from the given map
+     * 
+     * @param values The values
+     * @param key The key
+     * @return The value
+     * @throws IOException If there is no value for the given key
+     */
+    private static String getValue(Map<String, String> values, String key) 
+        throws IOException
+    {
+        String value = values.get(key);
+        if (value == null)
+        {
+            throw new IOException("No value found for " + key);
+        }
+        return value;
+    }
+    
+    /**
+     * Try to parse an integer from the given string, wrapping 
+     * number format exceptions into IO exceptions
+     * 
+     * @param s The string
+     * @param name The name for the value. Only used in the exception 
+     * message
+     * @return The integer value
+     * @throws IOException If the value cannot be parsed
+     */
+    private static int parseInt(String s, String name) throws IOException
+    {
+        try
+        {
+            return Integer.parseInt(s);
+        }
+        catch (NumberFormatException e)
+        {
+            throw new IOException("Expected " + name + ", found " + s, e);
+        }
+    }
+    
+    /**
+     * Try to parse a double from the given string, wrapping 
+     * number format exceptions into IO exceptions
+     * 
+     * @param s The string
+     * @param name The name for the value. Only used in the exception 
+     * message
+     * @return The double value
+     * @throws IOException If the value cannot be parsed
+     */
+    private static double parseDouble(String s, String name) 
+        throws IOException
+    {
+        try
+        {
+            return Double.parseDouble(s);
+        }
+        catch (NumberFormatException e)
+        {
+            throw new IOException("Expected " + name + ", found " + s, e);
+        }
+    }
+    
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private RasterHeaders()
+    {
+        // Private constructor to prevent instantiation
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors.io;
+
+/**
+ * An enumeration of the output formats of the {@link RasterColorizers}
+ */
+public enum RasterOutputFormat
+{
+    /**
+     * Raw ARGB values, with 4 bytes per pixel, stored in big-endian
+     * order (that is, the bytes are A, R, G, B), without a header
+     */
+    RAW_ARGB(4),
+    
+    /**
+     * A binary PPM file (P6), with 3 bytes per pixel (R, G, B). The
+     * alpha component of the colors is omitted.
+     */
+    PPM(3),
+    
+    /**
+     * A PAM file (P7) with the tuple type RGB_ALPHA, with 4 bytes per 
+     * pixel (R, G, B, A)
+     */
+    PAM(4);
+    
+    /**
+     * The number of bytes per pixel
+     */
+    private final int bytesPerPixel;
+    
+    /**
+     * Creates a new instance
+     * 
+     * @param bytesPerPixel The number of bytes per pixel
+     */
+    private RasterOutputFormat(int bytesPerPixel)
+    {
+        this.bytesPerPixel = bytesPerPixel;
+    }
+    
+    /**
+     * Returns the number of bytes per pixel
+     * 
+     * @return The number of bytes per pixel
+     */
+    public int getBytesPerPixel()
+    {
+        return bytesPerPixel;
+    }
+}
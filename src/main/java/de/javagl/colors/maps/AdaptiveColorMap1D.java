@@ -0,0 +1,275 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors.maps;
+
+import java.awt.Color;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Implementation of a {@link ColorMap1D} that is defined by colors at
+ * arbitrary positions. <br>
+ * <br>
+ * Initially, the colors are computed exactly for each value. The size
+ * of a lookup table that approximates the exact colors with a given
+ * maximum error is computed at construction time. After a certain number
+ * of lookups has been performed, this lookup table will be created and
+ * used for all further lookups. In order to avoid contention between 
+ * threads, the number of lookups is only compared to the threshold at
+ * randomly sampled lookups, so the lookup table may be created a few 
+ * lookups after the threshold was exceeded. The lookup table may also 
+ * be created explicitly, by calling {@link #materialize()}.<br>
+ * <br>
+ * In both modes, the values are clamped to the range [0,1]. <br>
+ * <br>
+ * Instances of this class may be created with the 
+ * {@link ColorMaps#createAdaptive(double[], int[], double)} method.
+ */
+public final class AdaptiveColorMap1D implements ColorMap1D
+{
+    /**
+     * The maximum size of the lookup table
+     */
+    static final int MAX_LUT_SIZE = 65536;
+    
+    /**
+     * The number of exact lookups (on average) after which the number of
+     * lookups is compared to the materialization threshold. Must be a 
+     * power of two.
+     */
+    private static final int THRESHOLD_CHECK_INTERVAL = 64;
+    
+    /**
+     * The positions of the colors, sorted in ascending order
+     */
+    private final double positions[];
+    
+    /**
+     * The ARGB colors
+     */
+    private final int argbs[];
+    
+    /**
+     * The size of the lookup table
+     */
+    private final int lutSize;
+    
+    /**
+     * The number of lookups after which the lookup table is created
+     */
+    private final long materializationThreshold;
+    
+    /**
+     * The number of lookups that have been performed without the lookup
+     * table. A striped counter is used, so that concurrent lookups do not
+     * contend for a single shared field.
+     */
+    private final LongAdder exactLookups;
+    
+    /**
+     * The lookup table, or <code>null</code> if it was not created yet
+     */
+    private volatile int lut[];
+    
+    /**
+     * Creates a new instance. The given arrays will be stored by
+     * reference, and are assumed to be valid, as checked by
+     * {@link ColorMaps#validateStops(double[], int[])}
+     * 
+     * @param positions The positions of the colors
+     * @param argbs The ARGB colors
+     * @param maxError The maximum error, per color component
+     * @param materializationThreshold The number of lookups after which
+     * the lookup table is created
+     */
+    AdaptiveColorMap1D(double positions[], int argbs[], 
+        double maxError, long materializationThreshold)
+    {
+        this.positions = positions;
+        this.argbs = argbs;
+        this.lutSize = computeLutSize(positions, argbs, maxError);
+        this.materializationThreshold = materializationThreshold;
+        this.exactLookups = new LongAdder();
+        if (materializationThreshold == 0)
+        {
+            materialize();
+        }
+    }
+    
+    /**
+     * Computes the size of a lookup table that contains the colors for
+     * evenly spaced values in [0,1], so that the color that is looked
+     * up for any value (by rounding it to the nearest entry) differs from 
+     * the exact color by at most the given error in each component. 
+     * Note that for colors that are defined with a sharp edge, there is 
+     * no lookup table size that meets this bound. In this case, the 
+     * maximum lookup table size is returned.
+     * 
+     * @param positions The positions of the colors
+     * @param argbs The ARGB colors
+     * @param maxError The maximum error, per color component
+     * @return The lookup table size
+     */
+    private static int computeLutSize(
+        double positions[], int argbs[], double maxError)
+    {
+        if (argbs.length == 1)
+        {
+            return 1;
+        }
+        double maxSlope = 0.0;
+        for (int i = 0; i < argbs.length - 1; i++)
+        {
+            int d = maxComponentDifference(argbs[i], argbs[i + 1]);
+            if (d == 0)
+            {
+                continue;
+            }
+            double width = positions[i + 1] - positions[i];
+            if (width <= 0.0)
+            {
+                return MAX_LUT_SIZE;
+            }
+            maxSlope = Math.max(maxSlope, d / width);
+        }
+        
+        // When rounding to the nearest of n evenly spaced entries, the 
+        // distance to the entry is at most 0.5/(n-1)
+        double intervals = Math.ceil(maxSlope / (2.0 * maxError));
+        if (intervals >= MAX_LUT_SIZE - 1)
+        {
+            return MAX_LUT_SIZE;
+        }
+        return Math.max(2, (int)intervals + 1);
+    }
+    
+    /**
+     * Returns the maximum absolute difference of the components of the 
+     * given ARGB colors
+     * 
+     * @param argb0 The first color
+     * @param argb1 The second color
+     * @return The maximum difference
+     */
+    private static int maxComponentDifference(int argb0, int argb1)
+    {
+        int max = 0;
+        for (int shift = 0; shift < 32; shift += 8)
+        {
+            int c0 = (argb0 >> shift) & 0xFF;
+            int c1 = (argb1 >> shift) & 0xFF;
+            max = Math.max(max, Math.abs(c1 - c0));
+        }
+        return max;
+    }
+    
+    /**
+     * Returns the number of colors that define this color map
+     * 
+     * @return The number of colors
+     */
+    public int getStopCount()
+    {
+        return argbs.length;
+    }
+    
+    /**
+     * Returns the size of the lookup table that is used (or will be used)
+     * by this color map, as computed from the maximum error that was given
+     * at construction time.
+     * 
+     * @return The lookup table size
+     */
+    public int getLutSize()
+    {
+        return lutSize;
+    }
+    
+    /**
+     * Returns whether the lookup table of this color map has already
+     * been created
+     * 
+     * @return Whether the lookup table was created
+     */
+    public boolean isMaterialized()
+    {
+        return lut != null;
+    }
+    
+    /**
+     * Create the lookup table of this color map, if it was not created yet.
+     */
+    public void materialize()
+    {
+        if (lut != null)
+        {
+            return;
+        }
+        int newLut[] = new int[lutSize];
+        double denominator = Math.max(1, lutSize - 1);
+        for (int i = 0; i < lutSize; i++)
+        {
+            newLut[i] = 
+                ColorMaps.interpolate(positions, argbs, i / denominator);
+        }
+        lut = newLut;
+    }
+    
+    @Override
+    public Color getColor(double value)
+    {
+        return new Color(getArgb(value), true);
+    }
+    
+    @Override
+    public int getArgb(double value)
+    {
+        double d = Math.max(0.0, Math.min(1.0, value));
+        int currentLut[] = lut;
+        if (currentLut != null)
+        {
+            return currentLut[(int)Math.round(d * (currentLut.length - 1))];
+        }
+        exactLookups.increment();
+        if ((ThreadLocalRandom.current().nextInt() 
+            & (THRESHOLD_CHECK_INTERVAL - 1)) == 0 
+            && exactLookups.sum() > materializationThreshold)
+        {
+            materialize();
+        }
+        return ColorMaps.interpolate(positions, argbs, d);
+    }
+    
+    @Override
+    public String toString()
+    {
+        return "AdaptiveColorMap1D[" 
+            + "stopCount=" + getStopCount() + ","
+            + "lutSize=" + getLutSize() + ","
+            + "materialized=" + isMaterialized() + "]";
+    }
+}
@@ -43,5 +43,22 @@ public interface ColorMap1D
      * @return The color
      */
     Color getColor(double x);
+    
+    /**
+     * Returns the ARGB value of the color for the given value. The same
+     * range considerations as for {@link #getColor(double)} apply.<br>
+     * <br>
+     * The default implementation returns the RGB value of the color that
+     * is returned by {@link #getColor(double)}. Implementations that are
+     * backed by ARGB values should override this method to avoid the 
+     * creation of <code>Color</code> objects.
+     * 
+     * @param x The value
+     * @return The ARGB color
+     */
+    default int getArgb(double x)
+    {
+        return getColor(x).getRGB();
+    }
 }
 
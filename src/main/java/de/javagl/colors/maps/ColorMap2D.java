@@ -0,0 +1,92 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors.maps;
+
+import java.awt.Color;
+
+/**
+ * Interface for a color map that maps two double values to a color. 
+ * This may be used for visualizing bivariate data, where each pixel 
+ * represents two values at once.
+ */
+public interface ColorMap2D
+{
+    /**
+     * Returns the color for the given values. These values will usually
+     * be in [0,1]. Implementations of this class will usually clamp the
+     * values to this range.
+     * 
+     * @param u The first value
+     * @param v The second value
+     * @return The color
+     */
+    Color getColor(double u, double v);
+    
+    /**
+     * Returns the ARGB value of the color for the given values. The same
+     * range considerations as for {@link #getColor(double, double)} 
+     * apply.<br>
+     * <br>
+     * The default implementation returns the RGB value of the color that
+     * is returned by {@link #getColor(double, double)}. Implementations 
+     * that are backed by ARGB values should override this method to 
+     * avoid the creation of <code>Color</code> objects.
+     * 
+     * @param u The first value
+     * @param v The second value
+     * @return The ARGB color
+     */
+    default int getArgb(double u, double v)
+    {
+        return getColor(u, v).getRGB();
+    }
+    
+    /**
+     * Writes the ARGB colors for the specified range of the given value
+     * pairs into the given target array. The same offset is used for 
+     * all arrays.<br>
+     * <br>
+     * The default implementation calls {@link #getArgb(double, double)}
+     * for each pair of values.
+     * 
+     * @param u The first values
+     * @param v The second values
+     * @param argbs The target array
+     * @param offset The offset in the arrays
+     * @param length The number of values
+     * @throws IndexOutOfBoundsException If the given offset and length
+     * cause an access outside of the arrays
+     */
+    default void getArgbs(double u[], double v[], 
+        int argbs[], int offset, int length)
+    {
+        for (int i = offset; i < offset + length; i++)
+        {
+            argbs[i] = getArgb(u[i], v[i]);
+        }
+    }
+}
@@ -0,0 +1,472 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors.maps;
+
+import java.awt.Color;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import de.javagl.colors.Colors;
+
+/**
+ * A cache for {@link ColorMap1D} instances. <br>
+ * <br>
+ * The methods of this class create the same color maps as the 
+ * corresponding methods in {@link ColorMaps}. But when a color map
+ * is requested with the same colors, positions and number of steps 
+ * as a previously created color map, then the cached instance is 
+ * returned.<br>
+ * <br>
+ * The cache is bounded by a maximum weight, which is the total number 
+ * of lookup table entries of all cached color maps. When this weight 
+ * is exceeded, color maps that have not been requested recently will
+ * be evicted from the cache. <br>
+ * <br>
+ * This class is thread-safe. Lookups of cached color maps do not
+ * require any locks. 
+ */
+public final class ColorMapCache
+{
+    /**
+     * The cache entries
+     */
+    private final ConcurrentHashMap<Key, Entry> entries;
+    
+    /**
+     * The keys of the entries, in the order of their insertion, used
+     * for determining the entries to evict
+     */
+    private final Queue<Key> evictionQueue;
+    
+    /**
+     * The lock for the eviction
+     */
+    private final Object evictionLock = new Object();
+    
+    /**
+     * The maximum weight
+     */
+    private final long maxWeight;
+    
+    /**
+     * The current weight
+     */
+    private final AtomicLong weight;
+    
+    /**
+     * The number of cache hits
+     */
+    private final LongAdder hitCount;
+    
+    /**
+     * The number of cache misses
+     */
+    private final LongAdder missCount;
+    
+    /**
+     * The number of evictions
+     */
+    private final LongAdder evictionCount;
+    
+    /**
+     * Creates a new cache with the given maximum weight. The weight of 
+     * a color map is the number of entries in its lookup table.
+     * 
+     * @param maxWeight The maximum weight
+     * @throws IllegalArgumentException If the maximum weight is not 
+     * positive
+     */
+    public ColorMapCache(long maxWeight)
+    {
+        if (maxWeight <= 0)
+        {
+            throw new IllegalArgumentException(
+                "The maximum weight must be positive, but is " + maxWeight);
+        }
+        this.entries = new ConcurrentHashMap<Key, Entry>();
+        this.evictionQueue = new ConcurrentLinkedQueue<Key>();
+        this.maxWeight = maxWeight;
+        this.weight = new AtomicLong();
+        this.hitCount = new LongAdder();
+        this.missCount = new LongAdder();
+        this.evictionCount = new LongAdder();
+    }
+    
+    /**
+     * Returns a {@link ColorMap1D} as created by 
+     * {@link ColorMaps#create(List)}, using a cached instance if possible
+     * 
+     * @param colors The colors
+     * @return The color map
+     */
+    public ColorMap1D create(List<? extends Color> colors)
+    {
+        return create(ColorMaps.DEFAULT_INTERPOLATION_STEPS, 
+            Colors.createArgbs(colors));
+    }
+    
+    /**
+     * Returns a {@link ColorMap1D} as created by 
+     * {@link ColorMaps#create(int...)}, using a cached instance if possible
+     * 
+     * @param argbs The ARGB colors
+     * @return The color map
+     */
+    public ColorMap1D create(int ... argbs)
+    {
+        return create(ColorMaps.DEFAULT_INTERPOLATION_STEPS, argbs);
+    }
+    
+    /**
+     * Returns a {@link ColorMap1D} as created by 
+     * {@link ColorMaps#create(int, int...)}, using a cached instance 
+     * if possible
+     * 
+     * @param steps The number of interpolation steps
+     * @param argbs The ARGB colors
+     * @return The color map
+     * @throws IllegalArgumentException If the colors are <code>null</code>
+     * or empty, or the number of steps is negative
+     */
+    public ColorMap1D create(int steps, int ... argbs)
+    {
+        if (argbs == null)
+        {
+            throw new IllegalArgumentException(
+                "Cannot create color map from null colors");
+        }
+        if (argbs.length == 0)
+        {
+            throw new IllegalArgumentException(
+                "Cannot create color map from empty colors");
+        }
+        
+        // The color map ignores the alpha components, so they are 
+        // ignored in the key as well
+        int opaqueArgbs[] = new int[argbs.length];
+        for (int i = 0; i < argbs.length; i++)
+        {
+            opaqueArgbs[i] = argbs[i] | 0xFF000000;
+        }
+        Key key = new Key(null, opaqueArgbs, steps);
+        return get(key, () -> ColorMaps.create(steps, opaqueArgbs));
+    }
+    
+    /**
+     * Returns a {@link ColorMap1D} as created by 
+     * {@link ColorMaps#create(double[], int[], int)}, using a cached 
+     * instance if possible
+     * 
+     * @param positions The positions of the colors
+     * @param argbs The ARGB colors
+     * @param steps The number of interpolation steps
+     * @return The color map
+     * @throws IllegalArgumentException If the arrays are <code>null</code>
+     * or empty or have different lengths, or the positions are not sorted 
+     * in ascending order
+     */
+    public ColorMap1D create(double positions[], int argbs[], int steps)
+    {
+        ColorMaps.validateStops(positions, argbs);
+        Key key = new Key(positions.clone(), argbs.clone(), steps);
+        return get(key, () -> ColorMaps.create(positions, argbs, steps));
+    }
+    
+    /**
+     * Returns the color map for the given key, creating it with the given 
+     * supplier if it is not contained in this cache
+     * 
+     * @param key The key
+     * @param supplier The supplier for the color map
+     * @return The color map
+     */
+    private ColorMap1D get(Key key, Supplier<ColorMap1D> supplier)
+    {
+        Entry entry = entries.get(key);
+        if (entry != null)
+        {
+            hitCount.increment();
+            if (!entry.referenced)
+            {
+                entry.referenced = true;
+            }
+            return entry.colorMap;
+        }
+        missCount.increment();
+        Entry newEntry = new Entry(supplier.get(), Math.max(1, key.steps));
+        Entry existingEntry = entries.putIfAbsent(key, newEntry);
+        if (existingEntry != null)
+        {
+            return existingEntry.colorMap;
+        }
+        weight.addAndGet(newEntry.weight);
+        evictionQueue.add(key);
+        evictIfNecessary();
+        return newEntry.colorMap;
+    }
+    
+    /**
+     * Evict entries from this cache until the weight is not larger than
+     * the maximum weight. Entries that have been referenced since they 
+     * have last been visited by this method will be kept, but marked
+     * as unreferenced.
+     */
+    private void evictIfNecessary()
+    {
+        if (weight.get() <= maxWeight)
+        {
+            return;
+        }
+        synchronized (evictionLock)
+        {
+            while (weight.get() > maxWeight)
+            {
+                Key key = evictionQueue.poll();
+                if (key == null)
+                {
+                    break;
+                }
+                Entry entry = entries.get(key);
+                if (entry == null)
+                {
+                    continue;
+                }
+                if (entry.referenced)
+                {
+                    entry.referenced = false;
+                    evictionQueue.add(key);
+                    continue;
+                }
+                if (entries.remove(key, entry))
+                {
+                    weight.addAndGet(-entry.weight);
+                    evictionCount.increment();
+                }
+            }
+        }
+    }
+    
+    /**
+     * Removes all entries from this cache. The statistics will not
+     * be reset.
+     */
+    public void clear()
+    {
+        synchronized (evictionLock)
+        {
+            evictionQueue.clear();
+            entries.clear();
+            weight.set(0);
+        }
+    }
+    
+    /**
+     * Returns the number of color maps in this cache
+     * 
+     * @return The number of color maps
+     */
+    public int getSize()
+    {
+        return entries.size();
+    }
+    
+    /**
+     * Returns the current weight of this cache, which is the total number
+     * of lookup table entries of the cached color maps
+     * 
+     * @return The weight
+     */
+    public long getWeight()
+    {
+        return weight.get();
+    }
+    
+    /**
+     * Returns the maximum weight of this cache
+     * 
+     * @return The maximum weight
+     */
+    public long getMaxWeight()
+    {
+        return maxWeight;
+    }
+    
+    /**
+     * Returns the number of requests that have been answered with a 
+     * cached color map
+     * 
+     * @return The number of cache hits
+     */
+    public long getHitCount()
+    {
+        return hitCount.sum();
+    }
+    
+    /**
+     * Returns the number of requests that caused a new color map to
+     * be created
+     * 
+     * @return The number of cache misses
+     */
+    public long getMissCount()
+    {
+        return missCount.sum();
+    }
+    
+    /**
+     * Returns the number of color maps that have been evicted from 
+     * this cache
+     * 
+     * @return The number of evictions
+     */
+    public long getEvictionCount()
+    {
+        return evictionCount.sum();
+    }
+    
+    @Override
+    public String toString()
+    {
+        return "ColorMapCache[" 
+            + "size=" + getSize() + ","
+            + "weight=" + getWeight() + ","
+            + "maxWeight=" + getMaxWeight() + ","
+            + "hits=" + getHitCount() + ","
+            + "misses=" + getMissCount() + ","
+            + "evictions=" + getEvictionCount() + "]";
+    }
+    
+    /**
+     * An entry of the cache
+     */
+    private static final class Entry
+    {
+        /**
+         * The color map
+         */
+        final ColorMap1D colorMap;
+        
+        /**
+         * The weight of the color map
+         */
+        final int weight;
+        
+        /**
+         * Whether the entry was referenced since it was last visited
+         * during the eviction
+         */
+        volatile boolean referenced;
+        
+        /**
+         * Creates a new instance
+         * 
+         * @param colorMap The color map
+         * @param weight The weight
+         */
+        Entry(ColorMap1D colorMap, int weight)
+        {
+            this.colorMap = colorMap;
+            this.weight = weight;
+        }
+    }
+    
+    /**
+     * The key of a cache entry. The positions are <code>null</code> for 
+     * color maps with evenly spaced colors, which are created differently
+     * than color maps with explicit positions.
+     */
+    private static final class Key
+    {
+        /**
+         * The positions, or <code>null</code>
+         */
+        private final double positions[];
+        
+        /**
+         * The ARGB colors
+         */
+        private final int argbs[];
+        
+        /**
+         * The number of interpolation steps
+         */
+        private final int steps;
+        
+        /**
+         * The hash code
+         */
+        private final int hashCode;
+        
+        /**
+         * Creates a new key. The arrays are stored by reference.
+         * 
+         * @param positions The positions, or <code>null</code>
+         * @param argbs The ARGB colors
+         * @param steps The number of interpolation steps
+         */
+        Key(double positions[], int argbs[], int steps)
+        {
+            this.positions = positions;
+            this.argbs = argbs;
+            this.steps = steps;
+            int h = Arrays.hashCode(argbs);
+            h = 31 * h + Arrays.hashCode(positions);
+            h = 31 * h + steps;
+            this.hashCode = h;
+        }
+        
+        @Override
+        public int hashCode()
+        {
+            return hashCode;
+        }
+        
+        @Override
+        public boolean equals(Object object)
+        {
+            if (this == object)
+            {
+                return true;
+            }
+            if (!(object instanceof Key))
+            {
+                return false;
+            }
+            Key other = (Key)object;
+            return hashCode == other.hashCode
+                && steps == other.steps
+                && Arrays.equals(argbs, other.argbs)
+                && Arrays.equals(positions, other.positions);
+        }
+    }
+}
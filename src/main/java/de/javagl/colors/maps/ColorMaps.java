@@ -29,8 +29,10 @@ package de.javagl.colors.maps;
 import java.awt.Color;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
 
 import de.javagl.colors.Colors;
 import de.javagl.colors.maps.indexed.IndexedColorMap1D;
@@ -43,7 +45,13 @@ public class ColorMaps
     /**
      * The default number of interpolation steps
      */
-    private static final int DEFAULT_INTERPOLATION_STEPS = 1024;
+    static final int DEFAULT_INTERPOLATION_STEPS = 1024;
+    
+    /**
+     * The default number of lookups after which an adaptive color map
+     * creates its lookup table
+     */
+    private static final long DEFAULT_MATERIALIZATION_THRESHOLD = 1 << 16;
     
     /**
      * Returns a {@link ColorMap1D} that provides a clamping access
@@ -57,15 +65,7 @@ public class ColorMaps
     public static ColorMap1D clamping(ColorMap1D delegate)
     {
         Objects.requireNonNull(delegate, "The delegate may not be null");
-        return new ColorMap1D()
-        {
-            @Override
-            public Color getColor(double value)
-            {
-                double v = Math.max(0.0, Math.min(1.0, value));
-                return delegate.getColor(v);
-            }
-        };
+        return new ClampingColorMap1D(delegate);
     }
     
     /**
@@ -74,6 +74,9 @@ public class ColorMaps
      * {@link ColorMap1D#getColor(double)} method will be mapped
      * to the <code>smaller</code> color when they are negative, and
      * to the <code>larger</code> color when they are greater than 1.0.
+     * If one of these colors is <code>null</code>, then the 
+     * {@link ColorMap1D#getArgb(double)} method will return 0 (fully
+     * transparent black) for the respective values.
      * 
      * @param delegate The delegate
      * @param smaller The color for values smaller than 0.0
@@ -84,22 +87,448 @@ public class ColorMaps
         ColorMap1D delegate, Color smaller, Color larger)
     {
         Objects.requireNonNull(delegate, "The delegate may not be null");
-        return new ColorMap1D()
+        return new NestedColorMap1D(delegate, smaller, larger);
+    }
+    
+    /**
+     * Returns a {@link ColorMap1D} that is equivalent to the given one,
+     * but may be more efficient.<br>
+     * <br>
+     * If the given color map is a chain of color maps that have been 
+     * created with {@link #clamping(ColorMap1D)} and 
+     * {@link #nested(ColorMap1D, Color, Color)}, around a color map that
+     * is backed by a lookup table, then the returned color map will be
+     * a single color map that is backed by this lookup table, and that
+     * directly returns the colors for values that are out of range.<br>
+     * <br>
+     * Otherwise, the given color map is returned.
+     * 
+     * @param colorMap The {@link ColorMap1D}
+     * @return The resulting {@link ColorMap1D}
+     */
+    public static ColorMap1D compile(ColorMap1D colorMap)
+    {
+        Objects.requireNonNull(colorMap, "The colorMap may not be null");
+        
+        // The outermost wrapper determines the colors for values that are 
+        // out of range: All wrappers pass only values in [0,1] to their 
+        // delegate, so the behavior of inner wrappers does not matter.
+        boolean outOfRangeDetermined = false;
+        boolean clamp = false;
+        Color smaller = null;
+        Color larger = null;
+        ColorMap1D current = colorMap;
+        while (true)
         {
-            @Override
-            public Color getColor(double value)
+            if (current instanceof ClampingColorMap1D)
             {
-                if (value < 0.0)
+                if (!outOfRangeDetermined)
                 {
-                    return smaller;
+                    clamp = true;
+                    outOfRangeDetermined = true;
                 }
-                if (value > 1.0)
+                current = ((ClampingColorMap1D)current).delegate;
+            }
+            else if (current instanceof NestedColorMap1D)
+            {
+                NestedColorMap1D nested = (NestedColorMap1D)current;
+                if (!outOfRangeDetermined)
                 {
-                    return larger;
+                    smaller = nested.smaller;
+                    larger = nested.larger;
+                    outOfRangeDetermined = true;
                 }
-                return delegate.getColor(value);
+                current = nested.delegate;
+            }
+            else
+            {
+                break;
+            }
+        }
+        int argbs[];
+        Color colors[];
+        if (current instanceof CompiledColorMap1D)
+        {
+            CompiledColorMap1D compiled = (CompiledColorMap1D)current;
+            if (!outOfRangeDetermined)
+            {
+                return compiled;
+            }
+            argbs = compiled.getArgbs();
+            colors = compiled.getColors();
+        }
+        else if (current instanceof DefaultColorMap1D)
+        {
+            DefaultColorMap1D defaultColorMap = (DefaultColorMap1D)current;
+            argbs = defaultColorMap.getArgbs();
+            colors = defaultColorMap.getColors();
+            if (!outOfRangeDetermined)
+            {
+                clamp = true;
+            }
+        }
+        else
+        {
+            return colorMap;
+        }
+        if (argbs.length == 0)
+        {
+            return colorMap;
+        }
+        if (clamp)
+        {
+            return new CompiledColorMap1D(argbs, colors, 
+                colors[0], colors[colors.length - 1]);
+        }
+        if (smaller == null || larger == null)
+        {
+            // The colors for out-of-range values may intentionally be
+            // null, which can not be represented with ARGB values
+            return colorMap;
+        }
+        return new CompiledColorMap1D(argbs, colors, smaller, larger);
+    }
+    
+    /**
+     * Returns a {@link ScaledColorMap1D} that maps data values to colors,
+     * by normalizing them with the given {@link Normalizer}, and passing
+     * the result to the given {@link ColorMap1D}.
+     * 
+     * @param colorMap The {@link ColorMap1D}
+     * @param normalizer The {@link Normalizer}
+     * @return The {@link ScaledColorMap1D}
+     */
+    public static ScaledColorMap1D scaled(
+        ColorMap1D colorMap, Normalizer normalizer)
+    {
+        Objects.requireNonNull(colorMap, "The colorMap may not be null");
+        Objects.requireNonNull(normalizer, "The normalizer may not be null");
+        return new ScaledColorMap1D(colorMap, normalizer);
+    }
+    
+    /**
+     * Returns the distinct ARGB values that the given {@link ColorMap1D}
+     * may return, in the order of their first occurrence in the
+     * lookup table, if the given map is backed by a lookup table with
+     * at most the given number of distinct colors. This may be used, 
+     * for example, to determine whether colorized data can be stored as 
+     * an indexed image.<br>
+     * <br>
+     * If the given map is not backed by a lookup table, or the lookup 
+     * table contains more than the given number of distinct colors, then
+     * <code>null</code> is returned.
+     * 
+     * @param colorMap The {@link ColorMap1D}
+     * @param maxSize The maximum size of the palette
+     * @return The palette, or <code>null</code>
+     */
+    public static int[] getPalette(ColorMap1D colorMap, int maxSize)
+    {
+        ColorMap1D current = colorMap;
+        if (current instanceof ScaledColorMap1D)
+        {
+            current = ((ScaledColorMap1D)current).getDelegate();
+        }
+        int argbs[];
+        int extraArgbs[] = new int[0];
+        if (current instanceof DefaultColorMap1D)
+        {
+            argbs = ((DefaultColorMap1D)current).getArgbs();
+        }
+        else if (current instanceof LutViewColorMap1D)
+        {
+            argbs = ((LutViewColorMap1D)current).getArgbs();
+        }
+        else if (current instanceof CompiledColorMap1D)
+        {
+            CompiledColorMap1D compiled = (CompiledColorMap1D)current;
+            argbs = compiled.getArgbs();
+            extraArgbs = new int[] { 
+                compiled.getSmallerArgb(), compiled.getLargerArgb() };
+        }
+        else
+        {
+            return null;
+        }
+        Set<Integer> palette = new LinkedHashSet<Integer>();
+        for (int argb : argbs)
+        {
+            palette.add(argb);
+            if (palette.size() > maxSize)
+            {
+                return null;
+            }
+        }
+        for (int argb : extraArgbs)
+        {
+            palette.add(argb);
+            if (palette.size() > maxSize)
+            {
+                return null;
+            }
+        }
+        return palette.stream().mapToInt(Integer::intValue).toArray();
+    }
+    
+    /**
+     * Returns a {@link ColorMap1D} that is the reversed version of the
+     * given one. This means that the returned map will return the color
+     * for a value <code>x</code> in [0,1] that the given map returns for
+     * the value <code>1-x</code>. Values that are not in [0,1] will be
+     * clamped.<br>
+     * <br>
+     * If the given color map is backed by a lookup table, then the 
+     * returned map will be a view on this lookup table. Otherwise, the
+     * returned map will be backed by a new lookup table that has an 
+     * unspecified size.
+     * 
+     * @param colorMap The {@link ColorMap1D}
+     * @return The resulting {@link ColorMap1D}
+     */
+    public static ColorMap1D reversed(ColorMap1D colorMap)
+    {
+        return subRange(colorMap, 1.0, 0.0);
+    }
+    
+    /**
+     * Returns a {@link ColorMap1D} that covers the specified range of the
+     * given one. This means that the returned map will return the color
+     * for a value <code>x</code> in [0,1] that the given map returns for
+     * the value <code>lo+x*(hi-lo)</code>. Values that are not in [0,1] 
+     * will be clamped. The value <code>lo</code> may be larger than
+     * the value <code>hi</code>, to obtain a reversed range.<br>
+     * <br>
+     * If the given color map is backed by a lookup table, then the 
+     * returned map will be a view on this lookup table. Otherwise, the
+     * returned map will be backed by a new lookup table that has an 
+     * unspecified size.
+     * 
+     * @param colorMap The {@link ColorMap1D}
+     * @param lo The value that corresponds to 0.0 in the returned map
+     * @param hi The value that corresponds to 1.0 in the returned map
+     * @return The resulting {@link ColorMap1D}
+     * @throws IllegalArgumentException If the given values are not
+     * in [0,1]
+     */
+    public static ColorMap1D subRange(ColorMap1D colorMap, double lo, double hi)
+    {
+        Objects.requireNonNull(colorMap, "The colorMap may not be null");
+        if (!(lo >= 0.0 && lo <= 1.0) || !(hi >= 0.0 && hi <= 1.0))
+        {
+            throw new IllegalArgumentException(
+                "The range must be in [0,1], but is [" + lo + "," + hi + "]");
+        }
+        LutViewColorMap1D view = asView(colorMap);
+        return view.subView(lo, hi);
+    }
+    
+    /**
+     * Returns a {@link ColorMap1D} that is composed of the given color
+     * maps. The range [0,1] is divided into intervals by the given
+     * breakpoints, and each color map covers one of these intervals.
+     * Values that are not in [0,1] will be clamped.<br>
+     * <br>
+     * For color maps that are backed by a lookup table, the returned 
+     * map will use views on these lookup tables. Other color maps will
+     * be sampled into new lookup tables that have an unspecified size.
+     * 
+     * @param colorMaps The color maps
+     * @param breakpoints The breakpoints. This must contain one element 
+     * less than the given list, be sorted in strictly ascending order, 
+     * and contain only values in (0,1). 
+     * @return The resulting {@link ColorMap1D}
+     * @throws IllegalArgumentException If the given list is empty, or
+     * the breakpoints are not valid
+     */
+    public static ColorMap1D concat(
+        List<? extends ColorMap1D> colorMaps, double ... breakpoints)
+    {
+        Objects.requireNonNull(colorMaps, "The colorMaps may not be null");
+        Objects.requireNonNull(breakpoints, "The breakpoints may not be null");
+        if (colorMaps.isEmpty())
+        {
+            throw new IllegalArgumentException(
+                "Cannot concatenate an empty list of color maps");
+        }
+        if (breakpoints.length != colorMaps.size() - 1)
+        {
+            throw new IllegalArgumentException(
+                "Expected " + (colorMaps.size() - 1) + " breakpoints for " 
+                + colorMaps.size() + " color maps, but found " 
+                + breakpoints.length);
+        }
+        double positions[] = new double[colorMaps.size() + 1];
+        positions[0] = 0.0;
+        positions[positions.length - 1] = 1.0;
+        System.arraycopy(breakpoints, 0, positions, 1, breakpoints.length);
+        for (int i = 1; i < positions.length; i++)
+        {
+            if (!(positions[i] > positions[i - 1]))
+            {
+                throw new IllegalArgumentException(
+                    "The breakpoints must be in (0,1) and sorted in "
+                    + "strictly ascending order, but are " 
+                    + Arrays.toString(breakpoints));
             }
-        };
+        }
+        LutViewColorMap1D segments[] = new LutViewColorMap1D[colorMaps.size()];
+        for (int i = 0; i < segments.length; i++)
+        {
+            segments[i] = asView(colorMaps.get(i));
+        }
+        if (segments.length == 1)
+        {
+            return segments[0];
+        }
+        return new ConcatenatedColorMap1D(positions, segments);
+    }
+    
+    /**
+     * Returns a {@link LutViewColorMap1D} for the given color map. If the
+     * given color map is backed by a lookup table, then the result will 
+     * be a view on this lookup table. Otherwise, the result will be a
+     * view on a lookup table that is created by sampling the given map.
+     * 
+     * @param colorMap The {@link ColorMap1D}
+     * @return The {@link LutViewColorMap1D}
+     */
+    private static LutViewColorMap1D asView(ColorMap1D colorMap)
+    {
+        if (colorMap instanceof LutViewColorMap1D)
+        {
+            return (LutViewColorMap1D)colorMap;
+        }
+        DefaultColorMap1D defaultColorMap = null;
+        if (colorMap instanceof DefaultColorMap1D)
+        {
+            defaultColorMap = (DefaultColorMap1D)colorMap;
+        }
+        if (defaultColorMap == null || defaultColorMap.getArgbs().length == 0)
+        {
+            int argbs[] = new int[DEFAULT_INTERPOLATION_STEPS];
+            for (int i = 0; i < argbs.length; i++)
+            {
+                double x = (double) i / (argbs.length - 1);
+                argbs[i] = colorMap.getArgb(x);
+            }
+            defaultColorMap = new DefaultColorMap1D(argbs);
+        }
+        int argbs[] = defaultColorMap.getArgbs();
+        Color colors[] = defaultColorMap.getColors();
+        return new LutViewColorMap1D(argbs, colors, 0.0, argbs.length - 1);
+    }
+    
+    /**
+     * Implementation of a {@link ColorMap1D} that clamps the values to
+     * be in [0,1] before passing them to a delegate
+     */
+    private static final class ClampingColorMap1D implements ColorMap1D
+    {
+        /**
+         * The delegate
+         */
+        private final ColorMap1D delegate;
+        
+        /**
+         * Creates a new instance 
+         * 
+         * @param delegate The delegate
+         */
+        ClampingColorMap1D(ColorMap1D delegate)
+        {
+            this.delegate = delegate;
+        }
+        
+        @Override
+        public Color getColor(double value)
+        {
+            double v = Math.max(0.0, Math.min(1.0, value));
+            return delegate.getColor(v);
+        }
+        
+        @Override
+        public int getArgb(double value)
+        {
+            double v = Math.max(0.0, Math.min(1.0, value));
+            return delegate.getArgb(v);
+        }
+    }
+    
+    /**
+     * Implementation of a {@link ColorMap1D} that returns fixed colors 
+     * for values that are not in [0,1], and otherwise passes the values
+     * to a delegate
+     */
+    private static final class NestedColorMap1D implements ColorMap1D
+    {
+        /**
+         * The delegate
+         */
+        private final ColorMap1D delegate;
+        
+        /**
+         * The color for values smaller than 0.0
+         */
+        private final Color smaller;
+        
+        /**
+         * The color for values larger than 1.0
+         */
+        private final Color larger;
+        
+        /**
+         * The ARGB value for values smaller than 0.0
+         */
+        private final int smallerArgb;
+        
+        /**
+         * The ARGB value for values larger than 1.0
+         */
+        private final int largerArgb;
+        
+        /**
+         * Creates a new instance 
+         * 
+         * @param delegate The delegate
+         * @param smaller The color for values smaller than 0.0
+         * @param larger The color for values larger than 1.0
+         */
+        NestedColorMap1D(ColorMap1D delegate, Color smaller, Color larger)
+        {
+            this.delegate = delegate;
+            this.smaller = smaller;
+            this.larger = larger;
+            this.smallerArgb = smaller == null ? 0 : smaller.getRGB();
+            this.largerArgb = larger == null ? 0 : larger.getRGB();
+        }
+        
+        @Override
+        public Color getColor(double value)
+        {
+            if (value < 0.0)
+            {
+                return smaller;
+            }
+            if (value > 1.0)
+            {
+                return larger;
+            }
+            return delegate.getColor(value);
+        }
+        
+        @Override
+        public int getArgb(double value)
+        {
+            if (value < 0.0)
+            {
+                return smallerArgb;
+            }
+            if (value > 1.0)
+            {
+                return largerArgb;
+            }
+            return delegate.getArgb(value);
+        }
     }
     
     
@@ -224,59 +653,305 @@ public class ColorMaps
      */
     public static ColorMap1D create(int steps, int ... argbs)
     {
-        Color colors[] = Colors.createColors(argbs);
-        Color colorsArray[] = createColorsArray(steps, Arrays.asList(colors));
-        return new DefaultColorMap1D(colorsArray);
+        int opaqueArgbs[] = new int[argbs.length];
+        for (int i = 0; i < argbs.length; i++)
+        {
+            opaqueArgbs[i] = argbs[i] | 0xFF000000;
+        }
+        int argbsArray[] = createArgbsArray(steps, opaqueArgbs);
+        return new DefaultColorMap1D(argbsArray);
+    }
+    
+    /**
+     * Creates a new {@link ColorMap1D} that maps a value between 0.0 
+     * and 1.0 (inclusive) to the colors that are given at arbitrary
+     * positions, internally using the given number of steps for 
+     * interpolating between the colors.<br>
+     * <br>
+     * The given positions must be sorted in ascending order. Values that 
+     * are smaller than the first position will be mapped to the first
+     * color, and values that are larger than the last position will be
+     * mapped to the last color. Two equal positions may be used to 
+     * define a sharp edge between two colors. In contrast to the
+     * methods that receive evenly spaced colors, the alpha components
+     * of the given colors are interpolated as well.
+     *
+     * @param positions The positions of the colors
+     * @param argbs The ARGB colors
+     * @param steps The number of interpolation steps
+     * @return The color map
+     * @throws IllegalArgumentException If the number of steps is negative,
+     * the arrays are empty or have different lengths, or the positions
+     * are not sorted in ascending order
+     */
+    public static ColorMap1D create(
+        double positions[], int argbs[], int steps)
+    {
+        if (steps < 0)
+        {
+            throw new IllegalArgumentException(
+                "The steps may not be negative, but is " + steps);
+        }
+        validateStops(positions, argbs);
+        int argbsArray[] = new int[steps];
+        double denominator = Math.max(1, steps - 1);
+        for (int i = 0; i < steps; i++)
+        {
+            double x = i / denominator;
+            argbsArray[i] = interpolate(positions, argbs, x);
+        }
+        return new DefaultColorMap1D(argbsArray);
+    }
+    
+    /**
+     * Creates a new {@link ColorMap1D} that maps a value between 0.0 
+     * and 1.0 (inclusive) to the colors that are given at arbitrary
+     * positions. The returned color map will not use a lookup table,
+     * but compute the interpolated color for each value exactly.<br>
+     * <br>
+     * The same conditions as for {@link #create(double[], int[], int)}
+     * apply. Copies of the given arrays will be stored internally.
+     *
+     * @param positions The positions of the colors
+     * @param argbs The ARGB colors
+     * @return The color map
+     * @throws IllegalArgumentException If the arrays are empty or have 
+     * different lengths, or the positions are not sorted in ascending order
+     */
+    public static ColorMap1D createExact(double positions[], int argbs[])
+    {
+        validateStops(positions, argbs);
+        return new PiecewiseLinearColorMap1D(
+            positions.clone(), argbs.clone());
+    }
+    
+    /**
+     * Creates a new {@link AdaptiveColorMap1D} that maps a value between 
+     * 0.0 and 1.0 (inclusive) to the colors that are given at arbitrary
+     * positions. <br>
+     * <br>
+     * The returned color map will initially compute the colors exactly.
+     * After an unspecified number of lookups, it will create a lookup 
+     * table. The size of this lookup table is chosen so that the colors
+     * from the lookup table differ from the exact colors by at most the
+     * given error in each component (where components are in [0,255]),
+     * apart from the rounding of the components to integer values.
+     * <br>
+     * <br>
+     * The same conditions as for {@link #create(double[], int[], int)}
+     * apply. Copies of the given arrays will be stored internally.
+     *
+     * @param positions The positions of the colors
+     * @param argbs The ARGB colors
+     * @param maxError The maximum error
+     * @return The color map
+     * @throws IllegalArgumentException If the arrays are empty or have 
+     * different lengths, the positions are not sorted in ascending order,
+     * or the maximum error is not positive
+     */
+    public static AdaptiveColorMap1D createAdaptive(
+        double positions[], int argbs[], double maxError)
+    {
+        return createAdaptive(positions, argbs, maxError, 
+            DEFAULT_MATERIALIZATION_THRESHOLD);
+    }
+    
+    /**
+     * Creates a new {@link AdaptiveColorMap1D} that maps a value between 
+     * 0.0 and 1.0 (inclusive) to the colors that are given at arbitrary
+     * positions. <br>
+     * <br>
+     * The returned color map will initially compute the colors exactly.
+     * After the given number of lookups, it will create a lookup table.
+     * The size of this lookup table is chosen so that the colors from 
+     * the lookup table differ from the exact colors by at most the 
+     * given error in each component (where components are in [0,255]),
+     * apart from the rounding of the components to integer values.
+     * <br>
+     * <br>
+     * The same conditions as for {@link #create(double[], int[], int)}
+     * apply. Copies of the given arrays will be stored internally.
+     *
+     * @param positions The positions of the colors
+     * @param argbs The ARGB colors
+     * @param maxError The maximum error
+     * @param materializationThreshold The number of lookups after which
+     * the lookup table is created. 
+     * @return The color map
+     * @throws IllegalArgumentException If the arrays are empty or have 
+     * different lengths, the positions are not sorted in ascending order,
+     * the maximum error is not positive, or the threshold is negative
+     */
+    public static AdaptiveColorMap1D createAdaptive(
+        double positions[], int argbs[], double maxError, 
+        long materializationThreshold)
+    {
+        validateStops(positions, argbs);
+        if (!(maxError > 0.0))
+        {
+            throw new IllegalArgumentException(
+                "The maximum error must be positive, but is " + maxError);
+        }
+        if (materializationThreshold < 0)
+        {
+            throw new IllegalArgumentException(
+                "The threshold may not be negative, but is " 
+                + materializationThreshold);
+        }
+        return new AdaptiveColorMap1D(positions.clone(), argbs.clone(), 
+            maxError, materializationThreshold);
+    }
+    
+    /**
+     * Make sure that the given positions and colors are valid for
+     * creating a color map
+     * 
+     * @param positions The positions of the colors
+     * @param argbs The ARGB colors
+     * @throws IllegalArgumentException If the arrays are <code>null</code>
+     * or empty or have different lengths, or the positions are not sorted 
+     * in ascending order
+     */
+    static void validateStops(double positions[], int argbs[])
+    {
+        if (positions == null || argbs == null)
+        {
+            throw new IllegalArgumentException(
+                "Cannot create color map from null positions or colors");
+        }
+        if (argbs.length == 0)
+        {
+            throw new IllegalArgumentException(
+                "Cannot create color map from empty colors");
+        }
+        if (positions.length != argbs.length)
+        {
+            throw new IllegalArgumentException(
+                "There are " + positions.length + " positions but " 
+                + argbs.length + " colors");
+        }
+        for (int i = 0; i < positions.length; i++)
+        {
+            if (!Double.isFinite(positions[i]))
+            {
+                throw new IllegalArgumentException(
+                    "The position at index " + i + " is " + positions[i]);
+            }
+            if (i > 0 && positions[i] < positions[i - 1])
+            {
+                throw new IllegalArgumentException(
+                    "The positions must be sorted in ascending order, but "
+                    + "the position at index " + i + " is " + positions[i]
+                    + " and the previous one is " + positions[i - 1]);
+            }
+        }
+    }
+    
+    /**
+     * Computes the color for the given value, interpolating between the
+     * given colors at the given positions. The arrays are assumed to
+     * be valid, as checked by {@link #validateStops(double[], int[])}
+     * 
+     * @param positions The positions of the colors
+     * @param argbs The ARGB colors
+     * @param x The value
+     * @return The interpolated ARGB color
+     */
+    static int interpolate(double positions[], int argbs[], double x)
+    {
+        int n = positions.length;
+        if (n == 1 || !(x > positions[0]))
+        {
+            return argbs[0];
+        }
+        if (x >= positions[n - 1])
+        {
+            return argbs[n - 1];
+        }
+        int segment = findSegment(positions, x);
+        double p0 = positions[segment];
+        double p1 = positions[segment + 1];
+        double width = p1 - p0;
+        double t = width > 0.0 ? (x - p0) / width : 1.0;
+        return Colors.interpolateClamping(
+            argbs[segment], argbs[segment + 1], t);
+    }
+    
+    /**
+     * Returns the index of the segment that contains the given value. 
+     * This is the largest index <code>i</code> that is smaller than 
+     * <code>positions.length-1</code> and for which 
+     * <code>positions[i] &lt;= x</code> holds, or 0 if there is no 
+     * such index. The positions must be sorted and contain at least
+     * two elements.<br>
+     * <br>
+     * This is a binary search where the loop only depends on the length 
+     * of the array, and the comparison only selects the next base index, 
+     * which allows it to be compiled into a conditional move.
+     * 
+     * @param positions The positions
+     * @param x The value
+     * @return The segment index
+     */
+    static int findSegment(double positions[], double x)
+    {
+        int base = 0;
+        int n = positions.length - 1;
+        while (n > 1)
+        {
+            int half = n >>> 1;
+            base = positions[base + half] <= x ? base + half : base;
+            n -= half;
+        }
+        return base;
     }
 
     /**
-     * Creates the array which contains colors, interpolated through the 
-     * given colors.
+     * Creates the array which contains ARGB colors, interpolated through 
+     * the given colors, which are assumed to be evenly spaced.
      *
      * @param steps The number of interpolation steps, and the size
      * of the resulting array
-     * @param colors The colors for the array
-     * @return The color array
+     * @param argbs The ARGB colors for the array
+     * @return The ARGB color array
      * @throws IllegalArgumentException If the number of steps is negative,
-     * or the given list is <code>null</code> or empty.
+     * or the given array is <code>null</code> or empty.
      */
-    static Color[] createColorsArray(int steps, List<? extends Color> colors)
+    static int[] createArgbsArray(int steps, int argbs[])
     {
         if (steps < 0)
         {
             throw new IllegalArgumentException(
                 "The steps may not be negative, but is " + steps);
         }
-        if (colors == null)
+        if (argbs == null)
         {
             throw new IllegalArgumentException(
                 "Cannot create color map from null colors");
         }
-        if (colors.isEmpty())
+        if (argbs.length == 0)
         {
             throw new IllegalArgumentException(
                 "Cannot create color map from empty colors");
         }
-        Color colorsArray[] = new Color[steps];
-        if (colors.size() == 1)
+        int argbsArray[] = new int[steps];
+        if (argbs.length == 1)
         {
-            Arrays.fill(colorsArray, colors.get(0));
-            return colorsArray;
+            Arrays.fill(argbsArray, argbs[0]);
+            return argbsArray;
         }
-        double colorDelta = 1.0 / (colors.size() - 1);
+        double colorDelta = 1.0 / (argbs.length - 1);
+        double denominator = Math.max(1, steps - 1);
         for (int i=0; i<steps; i++)
         {
-            double globalRel = (double) i / (steps - 1);
+            double globalRel = i / denominator;
             int index0 = (int) (globalRel / colorDelta);
-            int index1 = Math.min(colors.size() - 1, index0 + 1);
+            int index1 = Math.min(argbs.length - 1, index0 + 1);
             double localRel = (globalRel - index0 * colorDelta) / colorDelta;
-            
-            Color color0 = colors.get(index0);
-            Color color1 = colors.get(index1);
-            colorsArray[i] = Colors.interpolateClamping(
-                color0, color1, localRel);
+            argbsArray[i] = Colors.interpolateClamping(
+                argbs[index0], argbs[index1], localRel);
         }
-        return colorsArray;
+        return argbsArray;
     }
     
     
@@ -0,0 +1,188 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors.maps;
+
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+/**
+ * Methods to create {@link ColorMap2D} instances
+ */
+public class ColorMaps2D
+{
+    /**
+     * The minimum number of elements that one task of the parallel
+     * bulk methods processes
+     */
+    private static final int PARALLEL_CHUNK_SIZE = 1 << 16;
+    
+    /**
+     * Creates a {@link ColorMap2D} that interpolates bilinearly between 
+     * the given grid of ARGB values. The values are given in row-major 
+     * order, where the first value that is passed to the color map 
+     * selects the column, and the second value selects the row. The
+     * first row corresponds to a second value of 0.0. A copy of the 
+     * given array will be stored internally.
+     * 
+     * @param columns The number of columns
+     * @param rows The number of rows
+     * @param argbs The ARGB values
+     * @return The {@link ColorMap2D}
+     * @throws IllegalArgumentException If the number of columns or rows 
+     * is not positive, or the array does not contain 
+     * <code>columns * rows</code> values
+     */
+    public static ColorMap2D create(int columns, int rows, int ... argbs)
+    {
+        if (columns <= 0 || rows <= 0)
+        {
+            throw new IllegalArgumentException(
+                "Invalid grid size: " + columns + "x" + rows);
+        }
+        if ((long)columns * rows != argbs.length)
+        {
+            throw new IllegalArgumentException("Expected " 
+                + ((long)columns * rows) + " values for a grid of size " 
+                + columns + "x" + rows + ", but found " + argbs.length);
+        }
+        // The grid is padded to have at least two columns and rows,
+        // so that the interpolation does not need special cases
+        int paddedColumns = Math.max(2, columns);
+        int paddedRows = Math.max(2, rows);
+        int paddedArgbs[] = new int[paddedColumns * paddedRows];
+        for (int y = 0; y < paddedRows; y++)
+        {
+            int sy = Math.min(y, rows - 1);
+            for (int x = 0; x < paddedColumns; x++)
+            {
+                int sx = Math.min(x, columns - 1);
+                paddedArgbs[y * paddedColumns + x] = argbs[sy * columns + sx];
+            }
+        }
+        return new GridColorMap2D(paddedColumns, paddedRows, paddedArgbs);
+    }
+    
+    /**
+     * Creates a {@link ColorMap2D} that combines the given color maps.
+     * The color for a pair of values is computed by multiplying the
+     * components of the colors that the given maps return for these 
+     * values, as in a "multiply" blending of two layers. The result 
+     * is sampled into a grid with the given size, which is used for a 
+     * bilinear interpolation.<br>
+     * <br>
+     * In order to obtain a bivariate color map with an unambiguous
+     * legend, the given maps should start with white or a light gray,
+     * and have clearly distinct hues.
+     * 
+     * @param uColorMap The {@link ColorMap1D} for the first value
+     * @param vColorMap The {@link ColorMap1D} for the second value
+     * @param size The number of grid samples along each axis
+     * @return The {@link ColorMap2D}
+     * @throws IllegalArgumentException If the size is smaller than 2
+     */
+    public static ColorMap2D multiply(
+        ColorMap1D uColorMap, ColorMap1D vColorMap, int size)
+    {
+        Objects.requireNonNull(uColorMap, "The uColorMap may not be null");
+        Objects.requireNonNull(vColorMap, "The vColorMap may not be null");
+        if (size < 2)
+        {
+            throw new IllegalArgumentException(
+                "The size must be at least 2, but is " + size);
+        }
+        int argbs[] = new int[size * size];
+        for (int y = 0; y < size; y++)
+        {
+            int argbV = vColorMap.getArgb((double) y / (size - 1));
+            for (int x = 0; x < size; x++)
+            {
+                int argbU = uColorMap.getArgb((double) x / (size - 1));
+                argbs[y * size + x] = multiplyArgb(argbU, argbV);
+            }
+        }
+        return new GridColorMap2D(size, size, argbs);
+    }
+    
+    /**
+     * Multiply the components of the given ARGB values
+     * 
+     * @param argb0 The first ARGB value
+     * @param argb1 The second ARGB value
+     * @return The product
+     */
+    private static int multiplyArgb(int argb0, int argb1)
+    {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 8)
+        {
+            int c0 = (argb0 >>> shift) & 0xFF;
+            int c1 = (argb1 >>> shift) & 0xFF;
+            int c = (c0 * c1 + 127) / 255;
+            result |= c << shift;
+        }
+        return result;
+    }
+    
+    /**
+     * Writes the ARGB colors for the given value pairs into the given 
+     * target array, using multiple threads for large arrays.
+     * 
+     * @param colorMap The {@link ColorMap2D}
+     * @param u The first values
+     * @param v The second values
+     * @param argbs The target array
+     * @throws IndexOutOfBoundsException If the arrays for the second 
+     * values or the target array are smaller than the array for the 
+     * first values
+     */
+    public static void getArgbsParallel(
+        ColorMap2D colorMap, double u[], double v[], int argbs[])
+    {
+        int n = u.length;
+        if (v.length < n || argbs.length < n)
+        {
+            throw new IndexOutOfBoundsException("Expected arrays with "
+                + "a length of at least " + n + ", but found " + v.length 
+                + " and " + argbs.length);
+        }
+        int chunks = (n + PARALLEL_CHUNK_SIZE - 1) / PARALLEL_CHUNK_SIZE;
+        IntStream.range(0, chunks).parallel().forEach(c -> 
+        {
+            int start = c * PARALLEL_CHUNK_SIZE;
+            int length = Math.min(PARALLEL_CHUNK_SIZE, n - start);
+            colorMap.getArgbs(u, v, argbs, start, length);
+        });
+    }
+    
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private ColorMaps2D()
+    {
+        // Private constructor to prevent instantiation
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors.maps;
+
+import java.awt.Color;
+
+/**
+ * Implementation of a {@link ColorMap1D} that is backed by a lookup table, 
+ * and returns fixed colors for values that are not in [0,1]. <br>
+ * <br>
+ * Instances of this class are created by {@link ColorMaps#compile}.
+ */
+final class CompiledColorMap1D implements ColorMap1D
+{
+    /**
+     * The ARGB values of the lookup table
+     */
+    private final int argbs[];
+    
+    /**
+     * The colors of the lookup table
+     */
+    private final Color colors[];
+    
+    /**
+     * The maximum index in the lookup table
+     */
+    private final int maxIndex;
+    
+    /**
+     * The color for values smaller than 0.0
+     */
+    private final Color smaller;
+    
+    /**
+     * The ARGB value for values smaller than 0.0
+     */
+    private final int smallerArgb;
+    
+    /**
+     * The color for values larger than 1.0
+     */
+    private final Color larger;
+    
+    /**
+     * The ARGB value for values larger than 1.0
+     */
+    private final int largerArgb;
+    
+    /**
+     * Creates a new instance. The given arrays are stored by reference, 
+     * and must not be empty.
+     * 
+     * @param argbs The ARGB values of the lookup table
+     * @param colors The colors of the lookup table
+     * @param smaller The color for values smaller than 0.0
+     * @param larger The color for values larger than 1.0
+     */
+    CompiledColorMap1D(int argbs[], Color colors[], 
+        Color smaller, Color larger)
+    {
+        this.argbs = argbs;
+        this.colors = colors;
+        this.maxIndex = argbs.length - 1;
+        this.smaller = smaller;
+        this.smallerArgb = smaller == null ? 0 : smaller.getRGB();
+        this.larger = larger;
+        this.largerArgb = larger == null ? 0 : larger.getRGB();
+    }
+    
+    /**
+     * Returns a reference to the ARGB values of the lookup table
+     * 
+     * @return The ARGB values
+     */
+    int[] getArgbs()
+    {
+        return argbs;
+    }
+    
+    /**
+     * Returns a reference to the colors of the lookup table
+     * 
+     * @return The colors
+     */
+    Color[] getColors()
+    {
+        return colors;
+    }
+    
+    /**
+     * Returns the ARGB value for values smaller than 0.0
+     * 
+     * @return The ARGB value
+     */
+    int getSmallerArgb()
+    {
+        return smallerArgb;
+    }
+    
+    /**
+     * Returns the ARGB value for values larger than 1.0
+     * 
+     * @return The ARGB value
+     */
+    int getLargerArgb()
+    {
+        return largerArgb;
+    }
+    
+    @Override
+    public Color getColor(double value)
+    {
+        if (value < 0.0)
+        {
+            return smaller;
+        }
+        if (value > 1.0)
+        {
+            return larger;
+        }
+        return colors[(int)Math.round(value * maxIndex)];
+    }
+    
+    @Override
+    public int getArgb(double value)
+    {
+        if (value < 0.0)
+        {
+            return smallerArgb;
+        }
+        if (value > 1.0)
+        {
+            return largerArgb;
+        }
+        return argbs[(int)Math.round(value * maxIndex)];
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors.maps;
+
+import java.awt.Color;
+
+/**
+ * Implementation of a {@link ColorMap1D} that consists of several 
+ * {@link LutViewColorMap1D} instances that are placed between 
+ * breakpoints. Values that are not in [0,1] are clamped.
+ */
+final class ConcatenatedColorMap1D implements ColorMap1D
+{
+    /**
+     * The positions of the segments. This contains 0.0, the breakpoints,
+     * and 1.0, in ascending order
+     */
+    private final double positions[];
+    
+    /**
+     * The views for the segments
+     */
+    private final LutViewColorMap1D segments[];
+    
+    /**
+     * Creates a new instance. The given arrays are stored by reference.
+     * 
+     * @param positions The positions, with one element more than the
+     * number of segments
+     * @param segments The segments
+     */
+    ConcatenatedColorMap1D(double positions[], LutViewColorMap1D segments[])
+    {
+        this.positions = positions;
+        this.segments = segments;
+    }
+    
+    /**
+     * Returns the value that is relative to the segment with the given
+     * index
+     * 
+     * @param d The value, clamped to [0,1]
+     * @param s The segment index
+     * @return The relative value
+     */
+    private double local(double d, int s)
+    {
+        double p0 = positions[s];
+        double p1 = positions[s + 1];
+        return (d - p0) / (p1 - p0);
+    }
+    
+    @Override
+    public Color getColor(double value)
+    {
+        double d = Math.max(0.0, Math.min(1.0, value));
+        int s = ColorMaps.findSegment(positions, d);
+        return segments[s].getColor(local(d, s));
+    }
+    
+    @Override
+    public int getArgb(double value)
+    {
+        double d = Math.max(0.0, Math.min(1.0, value));
+        int s = ColorMaps.findSegment(positions, d);
+        return segments[s].getArgb(local(d, s));
+    }
+}
@@ -31,30 +31,77 @@ import java.util.Objects;
 
 /**
  * Default implementation of a {@link ColorMap1D} that is backed by
- * a simple color array
+ * a simple array of ARGB values
  */
 class DefaultColorMap1D implements ColorMap1D
 {
     /**
-     * The backing array containing the colors
+     * The backing array containing the ARGB values
      */
-    private final Color array[];
+    private final int argbs[];
+    
+    /**
+     * The colors corresponding to the ARGB values
+     */
+    private final Color colors[];
 
     /**
-     * Creates a color map that is backed by the given array
+     * Creates a color map that is backed by the given array. The array
+     * will be stored by reference, and may not be modified.
      *
-     * @param array The array containing colors
+     * @param argbs The array containing the ARGB values
      */
-    DefaultColorMap1D(Color array[])
+    DefaultColorMap1D(int argbs[])
     {
-        this.array = Objects.requireNonNull(array, "The array may not be null");
+        this.argbs = Objects.requireNonNull(argbs, "The array may not be null");
+        this.colors = new Color[argbs.length];
+        for (int i = 0; i < argbs.length; i++)
+        {
+            colors[i] = new Color(argbs[i], true);
+        }
     }
 
+    /**
+     * Returns a reference to the ARGB values that are backing this map
+     * 
+     * @return The ARGB values
+     */
+    int[] getArgbs()
+    {
+        return argbs;
+    }
+    
+    /**
+     * Returns a reference to the colors that are backing this map
+     * 
+     * @return The colors
+     */
+    Color[] getColors()
+    {
+        return colors;
+    }
+    
+    /**
+     * Returns the index of the array element for the given value
+     * 
+     * @param value The value
+     * @return The index
+     */
+    private int index(double value)
+    {
+        double d = Math.max(0.0, Math.min(1.0, value));
+        return (int)Math.round(d * (argbs.length - 1));
+    }
+    
     @Override
     public Color getColor(double value)
     {
-        double d = Math.max(0.0, Math.min(1.0, value));
-        int i = (int)Math.round(d * (array.length - 1));
-        return array[i];
+        return colors[index(value)];
+    }
+    
+    @Override
+    public int getArgb(double value)
+    {
+        return argbs[index(value)];
     }
 }
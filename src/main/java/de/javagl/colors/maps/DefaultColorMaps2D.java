@@ -0,0 +1,104 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors.maps;
+
+/**
+ * Methods to create some default bivariate color maps.<br>
+ * <br>
+ * The color maps are based on the 3x3 bivariate choropleth schemes by
+ * Joshua Stevens 
+ * (https://www.joshuastevens.net/cartography/make-a-bivariate-choropleth-map/),
+ * and interpolate bilinearly between the 9 colors. The first value 
+ * increases from left to right in the legend, and the second value
+ * increases from bottom to top.
+ */
+public class DefaultColorMaps2D
+{
+    /**
+     * Create a bivariate color map from light gray over pink (first
+     * value) and cyan (second value) to dark blue
+     * 
+     * @return The {@link ColorMap2D}
+     */
+    public static ColorMap2D createPinkBlue()
+    {
+        return ColorMaps2D.create(3, 3, 
+            0xFFE8E8E8, 0xFFDFB0D6, 0xFFBE64AC, 
+            0xFFACE4E4, 0xFFA5ADD3, 0xFF8C62AA, 
+            0xFF5AC8C8, 0xFF5698B9, 0xFF3B4994);
+    }
+    
+    /**
+     * Create a bivariate color map from light gray over red (first
+     * value) and blue (second value) to dark gray-purple
+     * 
+     * @return The {@link ColorMap2D}
+     */
+    public static ColorMap2D createBlueRed()
+    {
+        return ColorMaps2D.create(3, 3, 
+            0xFFE8E8E8, 0xFFE4ACAC, 0xFFC85A5A, 
+            0xFFB0D5DF, 0xFFAD9EA5, 0xFF985356, 
+            0xFF64ACBE, 0xFF627F8C, 0xFF574249);
+    }
+    
+    /**
+     * Create a bivariate color map from light gray over blue (first
+     * value) and green (second value) to dark teal
+     * 
+     * @return The {@link ColorMap2D}
+     */
+    public static ColorMap2D createGreenBlue()
+    {
+        return ColorMaps2D.create(3, 3, 
+            0xFFE8E8E8, 0xFFB5C0DA, 0xFF6C83B5, 
+            0xFFB8D6BE, 0xFF90B2B3, 0xFF567994, 
+            0xFF73AE80, 0xFF5A9178, 0xFF2A5A5B);
+    }
+    
+    /**
+     * Create a bivariate color map from light gray over gold (first
+     * value) and purple (second value) to dark brown
+     * 
+     * @return The {@link ColorMap2D}
+     */
+    public static ColorMap2D createPurpleGold()
+    {
+        return ColorMaps2D.create(3, 3, 
+            0xFFE8E8E8, 0xFFE4D9AC, 0xFFC8B35A, 
+            0xFFCBB8D7, 0xFFC8ADA0, 0xFFAF8E53, 
+            0xFF9972AF, 0xFF976B82, 0xFF804D36);
+    }
+    
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private DefaultColorMaps2D()
+    {
+        // Private constructor to prevent instantiation
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors.maps;
+
+import java.awt.Color;
+
+/**
+ * Implementation of a {@link ColorMap2D} that performs a bilinear 
+ * interpolation between the ARGB values of a regular grid.<br>
+ * <br>
+ * The grid is stored as a packed array of ARGB values in row-major
+ * order, where the first value selects the column and the second value
+ * selects the row. The interpolation is done with 8-bit fixed point 
+ * weights, processing two color components at once in each integer.<br>
+ * <br>
+ * Instances of this class are created with the methods in 
+ * {@link ColorMaps2D}.
+ */
+final class GridColorMap2D implements ColorMap2D
+{
+    /**
+     * The mask for the red and blue components
+     */
+    private static final int MASK_RB = 0x00FF00FF;
+    
+    /**
+     * The rounding offset for two components in 8-bit fixed point
+     */
+    private static final int ROUNDING = 0x00800080;
+    
+    /**
+     * The number of columns of the grid. This is at least 2.
+     */
+    private final int columns;
+    
+    /**
+     * The number of rows of the grid. This is at least 2.
+     */
+    private final int rows;
+    
+    /**
+     * The ARGB values of the grid, in row-major order
+     */
+    private final int argbs[];
+    
+    /**
+     * Creates a new instance. The given array is stored by reference, 
+     * and must contain <code>columns * rows</code> values, with both 
+     * the number of columns and rows being at least 2.
+     * 
+     * @param columns The number of columns
+     * @param rows The number of rows
+     * @param argbs The ARGB values
+     */
+    GridColorMap2D(int columns, int rows, int argbs[])
+    {
+        this.columns = columns;
+        this.rows = rows;
+        this.argbs = argbs;
+    }
+    
+    @Override
+    public Color getColor(double u, double v)
+    {
+        return new Color(getArgb(u, v), true);
+    }
+    
+    @Override
+    public int getArgb(double u, double v)
+    {
+        double fx = clamp(u) * (columns - 1);
+        double fy = clamp(v) * (rows - 1);
+        int ix = Math.min((int)fx, columns - 2);
+        int iy = Math.min((int)fy, rows - 2);
+        int tx = (int)((fx - ix) * 256.0 + 0.5);
+        int ty = (int)((fy - iy) * 256.0 + 0.5);
+        int i = iy * columns + ix;
+        int c00 = argbs[i];
+        int c10 = argbs[i + 1];
+        int c01 = argbs[i + columns];
+        int c11 = argbs[i + columns + 1];
+        return lerp(lerp(c00, c10, tx), lerp(c01, c11, tx), ty);
+    }
+    
+    @Override
+    public void getArgbs(double u[], double v[], 
+        int argbs[], int offset, int length)
+    {
+        int localArgbs[] = this.argbs;
+        int localColumns = columns;
+        double scaleX = columns - 1;
+        double scaleY = rows - 1;
+        int maxX = columns - 2;
+        int maxY = rows - 2;
+        for (int j = offset; j < offset + length; j++)
+        {
+            double fx = clamp(u[j]) * scaleX;
+            double fy = clamp(v[j]) * scaleY;
+            int ix = Math.min((int)fx, maxX);
+            int iy = Math.min((int)fy, maxY);
+            int tx = (int)((fx - ix) * 256.0 + 0.5);
+            int ty = (int)((fy - iy) * 256.0 + 0.5);
+            int i = iy * localColumns + ix;
+            int c00 = localArgbs[i];
+            int c10 = localArgbs[i + 1];
+            int c01 = localArgbs[i + localColumns];
+            int c11 = localArgbs[i + localColumns + 1];
+            argbs[j] = lerp(lerp(c00, c10, tx), lerp(c01, c11, tx), ty);
+        }
+    }
+    
+    /**
+     * Linearly interpolate between the given ARGB values, component-wise
+     * 
+     * @param c0 The first ARGB value
+     * @param c1 The second ARGB value
+     * @param t The interpolation weight, in [0,256]
+     * @return The interpolated ARGB value
+     */
+    private static int lerp(int c0, int c1, int t)
+    {
+        int s = 256 - t;
+        int rb = ((c0 & MASK_RB) * s + (c1 & MASK_RB) * t + ROUNDING) >>> 8;
+        int ag = (((c0 >>> 8) & MASK_RB) * s 
+            + ((c1 >>> 8) & MASK_RB) * t + ROUNDING);
+        return (rb & MASK_RB) | (ag & ~MASK_RB);
+    }
+    
+    /**
+     * Clamps the given value to [0,1]. NaN values are mapped to 0.
+     * 
+     * @param value The value
+     * @return The clamped value
+     */
+    private static double clamp(double value)
+    {
+        if (value >= 1.0)
+        {
+            return 1.0;
+        }
+        if (value > 0.0)
+        {
+            return value;
+        }
+        return 0.0;
+    }
+}
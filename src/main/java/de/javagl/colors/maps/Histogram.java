@@ -0,0 +1,461 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors.maps;
+
+import java.util.Arrays;
+
+/**
+ * A histogram of data values, with a fixed number of equally sized bins
+ * in a fixed range. <br>
+ * <br>
+ * Values can be added to a histogram incrementally, for example, chunk 
+ * by chunk while reading data from a stream. Histograms that have the 
+ * same range and number of bins can be merged, so that histograms that 
+ * have been computed for different parts of the data (possibly in 
+ * parallel) can be combined. The {@link Histograms} class offers methods
+ * for computing histograms of arrays in parallel.<br>
+ * <br>
+ * The {@link #createEqualizingNormalizer()} method creates a 
+ * {@link Normalizer} that maps data values to their (approximate) rank. 
+ * When this normalizer is used for a {@link ColorMap1D}, the colors are 
+ * distributed evenly among the data values. <br>
+ * <br>
+ * This class is not thread-safe.
+ */
+public final class Histogram
+{
+    /**
+     * The minimum value
+     */
+    private final double min;
+    
+    /**
+     * The maximum value
+     */
+    private final double max;
+    
+    /**
+     * The number of bins per unit of the value range
+     */
+    private final double binsPerUnit;
+    
+    /**
+     * The counts for the bins
+     */
+    private final long counts[];
+    
+    /**
+     * The number of values that have been smaller than the minimum
+     */
+    private long underflowCount;
+    
+    /**
+     * The number of values that have been larger than the maximum
+     */
+    private long overflowCount;
+    
+    /**
+     * The number of NaN values that have been ignored
+     */
+    private long nanCount;
+    
+    /**
+     * Creates a new, empty histogram
+     * 
+     * @param min The minimum value
+     * @param max The maximum value
+     * @param binCount The number of bins
+     * @throws IllegalArgumentException If the minimum is not smaller than
+     * the maximum, one of them is not finite, or the number of bins is 
+     * not positive
+     */
+    public Histogram(double min, double max, int binCount)
+    {
+        if (!Double.isFinite(min) || !Double.isFinite(max) || !(min < max))
+        {
+            throw new IllegalArgumentException(
+                "Invalid range: [" + min + "," + max + "]");
+        }
+        if (binCount <= 0)
+        {
+            throw new IllegalArgumentException(
+                "The number of bins must be positive, but is " + binCount);
+        }
+        this.min = min;
+        this.max = max;
+        this.binsPerUnit = binCount / (max - min);
+        this.counts = new long[binCount];
+    }
+    
+    /**
+     * Add the given value to this histogram. NaN values are ignored. 
+     * Values that are outside of the range of this histogram are 
+     * counted as underflow or overflow.
+     * 
+     * @param value The value
+     */
+    public void add(double value)
+    {
+        if (value >= min)
+        {
+            if (value <= max)
+            {
+                int bin = (int)((value - min) * binsPerUnit);
+                counts[Math.min(bin, counts.length - 1)]++;
+            }
+            else
+            {
+                overflowCount++;
+            }
+        }
+        else if (value < min)
+        {
+            underflowCount++;
+        }
+        else
+        {
+            nanCount++;
+        }
+    }
+    
+    /**
+     * Add the specified range of the given values to this histogram
+     * 
+     * @param values The values
+     * @param offset The offset
+     * @param length The number of values
+     * @throws IndexOutOfBoundsException If the given offset and length
+     * cause an access outside of the array
+     */
+    public void add(double values[], int offset, int length)
+    {
+        for (int i = 0; i < length; i++)
+        {
+            add(values[offset + i]);
+        }
+    }
+    
+    /**
+     * Add the specified range of the given values to this histogram
+     * 
+     * @param values The values
+     * @param offset The offset
+     * @param length The number of values
+     * @throws IndexOutOfBoundsException If the given offset and length
+     * cause an access outside of the array
+     */
+    public void add(float values[], int offset, int length)
+    {
+        for (int i = 0; i < length; i++)
+        {
+            add(values[offset + i]);
+        }
+    }
+    
+    /**
+     * Add all counts from the given histogram to this histogram
+     * 
+     * @param other The other histogram
+     * @throws IllegalArgumentException If the given histogram does not
+     * have the same range and number of bins as this one
+     */
+    public void merge(Histogram other)
+    {
+        if (other.min != min || other.max != max 
+            || other.counts.length != counts.length)
+        {
+            throw new IllegalArgumentException(
+                "Cannot merge histogram " + other + " into " + this);
+        }
+        for (int i = 0; i < counts.length; i++)
+        {
+            counts[i] += other.counts[i];
+        }
+        underflowCount += other.underflowCount;
+        overflowCount += other.overflowCount;
+        nanCount += other.nanCount;
+    }
+    
+    /**
+     * Returns the minimum value of the range of this histogram
+     * 
+     * @return The minimum
+     */
+    public double getMin()
+    {
+        return min;
+    }
+    
+    /**
+     * Returns the maximum value of the range of this histogram
+     * 
+     * @return The maximum
+     */
+    public double getMax()
+    {
+        return max;
+    }
+    
+    /**
+     * Returns the number of bins of this histogram
+     * 
+     * @return The number of bins
+     */
+    public int getBinCount()
+    {
+        return counts.length;
+    }
+    
+    /**
+     * Returns the number of values in the given bin
+     * 
+     * @param index The bin index
+     * @return The count
+     * @throws IndexOutOfBoundsException If the index is negative or not
+     * smaller than the number of bins
+     */
+    public long getBinCount(int index)
+    {
+        return counts[index];
+    }
+    
+    /**
+     * Returns the number of values that have been smaller than the 
+     * minimum of this histogram
+     * 
+     * @return The underflow count
+     */
+    public long getUnderflowCount()
+    {
+        return underflowCount;
+    }
+    
+    /**
+     * Returns the number of values that have been larger than the 
+     * maximum of this histogram
+     * 
+     * @return The overflow count
+     */
+    public long getOverflowCount()
+    {
+        return overflowCount;
+    }
+    
+    /**
+     * Returns the number of NaN values that have been ignored
+     * 
+     * @return The NaN count
+     */
+    public long getNaNCount()
+    {
+        return nanCount;
+    }
+    
+    /**
+     * Returns the total number of (non-NaN) values that have been added 
+     * to this histogram, including the values that have been outside
+     * of its range
+     * 
+     * @return The total count
+     */
+    public long getTotalCount()
+    {
+        long sum = underflowCount + overflowCount;
+        for (long count : counts)
+        {
+            sum += count;
+        }
+        return sum;
+    }
+    
+    /**
+     * Computes the cumulative distribution at the bin boundaries. The 
+     * resulting array has one element more than the number of bins. 
+     * The first element is the relative number of values that have
+     * been smaller than the minimum, and each following element is
+     * the relative number of values up to the respective bin boundary.
+     * 
+     * @return The cumulative distribution
+     */
+    private double[] computeCumulativeDistribution()
+    {
+        double cdf[] = new double[counts.length + 1];
+        long total = getTotalCount();
+        if (total == 0)
+        {
+            for (int i = 0; i < cdf.length; i++)
+            {
+                cdf[i] = (double) i / counts.length;
+            }
+            return cdf;
+        }
+        double invTotal = 1.0 / total;
+        long sum = underflowCount;
+        cdf[0] = sum * invTotal;
+        for (int i = 0; i < counts.length; i++)
+        {
+            sum += counts[i];
+            cdf[i + 1] = sum * invTotal;
+        }
+        return cdf;
+    }
+    
+    /**
+     * Returns the approximate quantile of the values that have been added 
+     * to this histogram. Within each bin, the values are assumed to be
+     * uniformly distributed. If this histogram is empty, then the 
+     * quantiles are assumed to be uniformly distributed in its range.
+     * 
+     * @param q The quantile, in [0,1]
+     * @return The value of the quantile, clamped to the range of this
+     * histogram
+     * @throws IllegalArgumentException If the quantile is not in [0,1]
+     */
+    public double getQuantile(double q)
+    {
+        if (!(q >= 0.0 && q <= 1.0))
+        {
+            throw new IllegalArgumentException(
+                "The quantile must be in [0,1], but is " + q);
+        }
+        double cdf[] = computeCumulativeDistribution();
+        return quantile(cdf, q);
+    }
+    
+    /**
+     * Computes the quantile based on the given cumulative distribution
+     * 
+     * @param cdf The cumulative distribution
+     * @param q The quantile
+     * @return The value of the quantile
+     */
+    private double quantile(double cdf[], double q)
+    {
+        if (q <= cdf[0])
+        {
+            return min;
+        }
+        if (q >= cdf[cdf.length - 1])
+        {
+            return max;
+        }
+        int index = Arrays.binarySearch(cdf, q);
+        if (index < 0)
+        {
+            index = -index - 2;
+        }
+        else
+        {
+            // Skip empty bins that have the same cumulative value
+            while (index > 0 && cdf[index - 1] == q)
+            {
+                index--;
+            }
+            return min + index / binsPerUnit;
+        }
+        double c0 = cdf[index];
+        double c1 = cdf[index + 1];
+        double frac = (q - c0) / (c1 - c0);
+        return min + (index + frac) / binsPerUnit;
+    }
+    
+    /**
+     * Returns the approximate quantiles of the values that have been 
+     * added to this histogram, as described in {@link #getQuantile(double)}
+     * 
+     * @param qs The quantiles, each in [0,1]
+     * @return The values of the quantiles
+     * @throws IllegalArgumentException If a quantile is not in [0,1]
+     */
+    public double[] getQuantiles(double ... qs)
+    {
+        double cdf[] = computeCumulativeDistribution();
+        double result[] = new double[qs.length];
+        for (int i = 0; i < qs.length; i++)
+        {
+            double q = qs[i];
+            if (!(q >= 0.0 && q <= 1.0))
+            {
+                throw new IllegalArgumentException(
+                    "The quantile must be in [0,1], but is " + q);
+            }
+            result[i] = quantile(cdf, q);
+        }
+        return result;
+    }
+    
+    /**
+     * Creates a {@link Normalizer} that maps each value to the relative 
+     * number of values that have been smaller than the value (that is,
+     * the approximate rank of the value), based on the current state of 
+     * this histogram. Within each bin, the values are assumed to be 
+     * uniformly distributed. The resulting normalizer is monotone, and 
+     * maps values that are smaller than the minimum to 0.0, and values 
+     * that are larger than the maximum to 1.0. NaN values will be
+     * mapped to NaN. <br>
+     * <br>
+     * The returned normalizer is not affected by later changes of this 
+     * histogram. 
+     * 
+     * @return The {@link Normalizer}
+     */
+    public Normalizer createEqualizingNormalizer()
+    {
+        double cdf[] = computeCumulativeDistribution();
+        double localMin = min;
+        double localMax = max;
+        double localBinsPerUnit = binsPerUnit;
+        int maxBin = counts.length - 1;
+        return value ->
+        {
+            if (value < localMin)
+            {
+                return 0.0;
+            }
+            if (value > localMax)
+            {
+                return 1.0;
+            }
+            double position = (value - localMin) * localBinsPerUnit;
+            int bin = Math.min(maxBin, (int)position);
+            double frac = position - bin;
+            double c0 = cdf[bin];
+            double c1 = cdf[bin + 1];
+            return c0 + frac * (c1 - c0);
+        };
+    }
+    
+    @Override
+    public String toString()
+    {
+        return "Histogram[" 
+            + "min=" + min + "," 
+            + "max=" + max + "," 
+            + "binCount=" + counts.length + ","
+            + "totalCount=" + getTotalCount() + "]";
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors.maps;
+
+import java.util.stream.IntStream;
+
+/**
+ * Methods to compute {@link Histogram} instances
+ */
+public class Histograms
+{
+    /**
+     * The minimum number of elements that one task of the parallel
+     * methods processes
+     */
+    private static final int PARALLEL_CHUNK_SIZE = 1 << 16;
+    
+    /**
+     * Computes a {@link Histogram} of the given values, in parallel
+     * 
+     * @param values The values
+     * @param min The minimum value of the histogram range
+     * @param max The maximum value of the histogram range
+     * @param binCount The number of bins
+     * @return The {@link Histogram}
+     * @throws IllegalArgumentException If the minimum is not smaller than
+     * the maximum, one of them is not finite, or the number of bins is 
+     * not positive
+     */
+    public static Histogram compute(
+        double values[], double min, double max, int binCount)
+    {
+        int n = values.length;
+        int chunks = (n + PARALLEL_CHUNK_SIZE - 1) / PARALLEL_CHUNK_SIZE;
+        return IntStream.range(0, chunks).parallel().collect(
+            () -> new Histogram(min, max, binCount),
+            (h, c) -> 
+            {
+                int start = c * PARALLEL_CHUNK_SIZE;
+                int length = Math.min(PARALLEL_CHUNK_SIZE, n - start);
+                h.add(values, start, length);
+            },
+            Histogram::merge);
+    }
+    
+    /**
+     * Computes a {@link Histogram} of the given values, in parallel
+     * 
+     * @param values The values
+     * @param min The minimum value of the histogram range
+     * @param max The maximum value of the histogram range
+     * @param binCount The number of bins
+     * @return The {@link Histogram}
+     * @throws IllegalArgumentException If the minimum is not smaller than
+     * the maximum, one of them is not finite, or the number of bins is 
+     * not positive
+     */
+    public static Histogram compute(
+        float values[], double min, double max, int binCount)
+    {
+        int n = values.length;
+        int chunks = (n + PARALLEL_CHUNK_SIZE - 1) / PARALLEL_CHUNK_SIZE;
+        return IntStream.range(0, chunks).parallel().collect(
+            () -> new Histogram(min, max, binCount),
+            (h, c) -> 
+            {
+                int start = c * PARALLEL_CHUNK_SIZE;
+                int length = Math.min(PARALLEL_CHUNK_SIZE, n - start);
+                h.add(values, start, length);
+            },
+            Histogram::merge);
+    }
+    
+    /**
+     * Computes the range of the finite values in the given array, in 
+     * parallel. The result will be an array containing the minimum and 
+     * the maximum. If the array does not contain any finite values, then 
+     * the result will be <code>{+Infinity, -Infinity}</code>.
+     * 
+     * @param values The values
+     * @return The range
+     */
+    public static double[] computeRange(double values[])
+    {
+        int n = values.length;
+        int chunks = (n + PARALLEL_CHUNK_SIZE - 1) / PARALLEL_CHUNK_SIZE;
+        return IntStream.range(0, chunks).parallel().collect(
+            () -> new double[] { Double.POSITIVE_INFINITY, 
+                Double.NEGATIVE_INFINITY },
+            (r, c) -> 
+            {
+                int start = c * PARALLEL_CHUNK_SIZE;
+                int end = Math.min(start + PARALLEL_CHUNK_SIZE, n);
+                for (int i = start; i < end; i++)
+                {
+                    double v = values[i];
+                    if (Double.isFinite(v))
+                    {
+                        r[0] = Math.min(r[0], v);
+                        r[1] = Math.max(r[1], v);
+                    }
+                }
+            },
+            (r0, r1) -> 
+            {
+                r0[0] = Math.min(r0[0], r1[0]);
+                r0[1] = Math.max(r0[1], r1[1]);
+            });
+    }
+    
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private Histograms()
+    {
+        // Private constructor to prevent instantiation
+    }
+}
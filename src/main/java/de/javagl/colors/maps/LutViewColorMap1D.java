@@ -0,0 +1,149 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors.maps;
+
+import java.awt.Color;
+
+/**
+ * Implementation of a {@link ColorMap1D} that is a view on a lookup table
+ * that may be shared with other color maps. A value in [0,1] is mapped 
+ * to the index <code>round(offset + value * scale)</code> of the lookup 
+ * table. Values that are not in [0,1] are clamped.
+ */
+final class LutViewColorMap1D implements ColorMap1D
+{
+    /**
+     * The ARGB values of the lookup table
+     */
+    private final int argbs[];
+    
+    /**
+     * The colors of the lookup table
+     */
+    private final Color colors[];
+    
+    /**
+     * The (fractional) index for the value 0.0
+     */
+    private final double offset;
+    
+    /**
+     * The (possibly negative) scaling from values to indices
+     */
+    private final double scale;
+    
+    /**
+     * Creates a new instance. The given arrays are stored by reference. 
+     * The caller is responsible for <code>offset</code> and 
+     * <code>offset + scale</code> being valid (fractional) indices
+     * into the arrays.
+     * 
+     * @param argbs The ARGB values of the lookup table
+     * @param colors The colors of the lookup table
+     * @param offset The index for the value 0.0
+     * @param scale The scaling from values to indices
+     */
+    LutViewColorMap1D(int argbs[], Color colors[], 
+        double offset, double scale)
+    {
+        this.argbs = argbs;
+        this.colors = colors;
+        this.offset = offset;
+        this.scale = scale;
+    }
+    
+    /**
+     * Returns a reference to the ARGB values of the lookup table
+     * 
+     * @return The ARGB values
+     */
+    int[] getArgbs()
+    {
+        return argbs;
+    }
+    
+    /**
+     * Returns the (fractional) index for the value 0.0
+     * 
+     * @return The offset
+     */
+    double getOffset()
+    {
+        return offset;
+    }
+    
+    /**
+     * Returns the scaling from values to indices
+     * 
+     * @return The scale
+     */
+    double getScale()
+    {
+        return scale;
+    }
+    
+    /**
+     * Returns a view on the part of the lookup table of this view that
+     * corresponds to the given range. The value <code>lo</code> may be
+     * larger than the value <code>hi</code>, which causes the view to be
+     * reversed. Both values are assumed to be in [0,1].
+     * 
+     * @param lo The value that corresponds to 0.0 in the new view 
+     * @param hi The value that corresponds to 1.0 in the new view
+     * @return The new view
+     */
+    LutViewColorMap1D subView(double lo, double hi)
+    {
+        return new LutViewColorMap1D(argbs, colors, 
+            offset + lo * scale, (hi - lo) * scale);
+    }
+    
+    /**
+     * Returns the index of the array element for the given value
+     * 
+     * @param value The value
+     * @return The index
+     */
+    private int index(double value)
+    {
+        double d = Math.max(0.0, Math.min(1.0, value));
+        int i = (int)Math.round(offset + d * scale);
+        return Math.max(0, Math.min(argbs.length - 1, i));
+    }
+    
+    @Override
+    public Color getColor(double value)
+    {
+        return colors[index(value)];
+    }
+    
+    @Override
+    public int getArgb(double value)
+    {
+        return argbs[index(value)];
+    }
+}
@@ -0,0 +1,242 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors.maps;
+
+/**
+ * Methods to create {@link Normalizer} instances
+ */
+public class Normalizers
+{
+    /**
+     * Returns a {@link Normalizer} that linearly maps values from the
+     * range [min,max] to [0,1].
+     * 
+     * @param min The minimum value
+     * @param max The maximum value
+     * @return The {@link Normalizer}
+     * @throws IllegalArgumentException If the minimum is not smaller 
+     * than the maximum, or the values are not finite
+     */
+    public static Normalizer linear(double min, double max)
+    {
+        validateRange(min, max);
+        return new LinearNormalizer(min, max);
+    }
+    
+    /**
+     * Returns a {@link Normalizer} that maps values from the range 
+     * [min,max] to [0,1] on a logarithmic scale. Values that are not 
+     * positive will be mapped to negative infinity.
+     * 
+     * @param min The minimum value
+     * @param max The maximum value
+     * @return The {@link Normalizer}
+     * @throws IllegalArgumentException If the minimum is not positive,
+     * or not smaller than the maximum, or the values are not finite
+     */
+    public static Normalizer log10(double min, double max)
+    {
+        validateRange(min, max);
+        if (!(min > 0.0))
+        {
+            throw new IllegalArgumentException(
+                "The minimum must be positive, but is " + min);
+        }
+        double logMin = Math.log10(min);
+        double invLogRange = 1.0 / (Math.log10(max) - logMin);
+        return value -> 
+        {
+            if (!(value > 0.0))
+            {
+                return Double.NEGATIVE_INFINITY;
+            }
+            return (Math.log10(value) - logMin) * invLogRange;
+        };
+    }
+    
+    /**
+     * Returns a {@link Normalizer} that maps values from the range 
+     * [min,max] to [0,1] on a symmetric logarithmic scale. This means
+     * that the mapping is approximately linear for values that are close
+     * to zero (relative to the given threshold), and logarithmic for 
+     * larger values. Specifically, the values are transformed with the 
+     * function <code>f(v) = sign(v) * log(1 + |v| / threshold)</code>,
+     * and the results are mapped linearly from [f(min),f(max)] to [0,1].
+     * 
+     * @param min The minimum value
+     * @param max The maximum value
+     * @param threshold The threshold for the linear range
+     * @return The {@link Normalizer}
+     * @throws IllegalArgumentException If the minimum is not smaller 
+     * than the maximum, the values are not finite, or the threshold is 
+     * not positive
+     */
+    public static Normalizer symlog(double min, double max, double threshold)
+    {
+        validateRange(min, max);
+        if (!(threshold > 0.0))
+        {
+            throw new IllegalArgumentException(
+                "The threshold must be positive, but is " + threshold);
+        }
+        double invThreshold = 1.0 / threshold;
+        double symlogMin = symlog(min, invThreshold);
+        double invSymlogRange = 1.0 / (symlog(max, invThreshold) - symlogMin);
+        return value -> 
+            (symlog(value, invThreshold) - symlogMin) * invSymlogRange;
+    }
+    
+    /**
+     * Computes the symmetric logarithm of the given value
+     * 
+     * @param value The value
+     * @param invThreshold The inverse of the threshold
+     * @return The result
+     */
+    private static double symlog(double value, double invThreshold)
+    {
+        double s = Math.log1p(Math.abs(value) * invThreshold);
+        return value < 0.0 ? -s : s;
+    }
+    
+    /**
+     * Returns a {@link Normalizer} that linearly maps values from the
+     * range [min,max] to [0,1], and raises the result to the given power. 
+     * Values outside of [min,max] are clamped to this range.
+     * 
+     * @param min The minimum value
+     * @param max The maximum value
+     * @param gamma The exponent
+     * @return The {@link Normalizer}
+     * @throws IllegalArgumentException If the minimum is not smaller 
+     * than the maximum, the values are not finite, or the exponent is 
+     * not positive
+     */
+    public static Normalizer power(double min, double max, double gamma)
+    {
+        validateRange(min, max);
+        if (!(gamma > 0.0) || Double.isInfinite(gamma))
+        {
+            throw new IllegalArgumentException(
+                "The exponent must be positive, but is " + gamma);
+        }
+        double invRange = 1.0 / (max - min);
+        return value ->
+        {
+            double t = Math.max(0.0, Math.min(1.0, (value - min) * invRange));
+            return Math.pow(t, gamma);
+        };
+    }
+    
+    /**
+     * Returns a {@link Normalizer} that maps the range [min,center] 
+     * linearly to [0,0.5], and the range [center,max] linearly to 
+     * [0.5,1]. This is intended for diverging color maps, where the
+     * center should be mapped to the middle of the color map, even 
+     * if it is not in the middle of the data range.
+     * 
+     * @param min The minimum value
+     * @param center The center value
+     * @param max The maximum value
+     * @return The {@link Normalizer}
+     * @throws IllegalArgumentException If the values are not finite
+     * and strictly ascending
+     */
+    public static Normalizer diverging(double min, double center, double max)
+    {
+        validateRange(min, center);
+        validateRange(center, max);
+        double lowerScale = 0.5 / (center - min);
+        double upperScale = 0.5 / (max - center);
+        return value ->
+        {
+            double d = value - center;
+            return 0.5 + d * (d < 0.0 ? lowerScale : upperScale);
+        };
+    }
+    
+    /**
+     * Make sure that the given values are finite and the minimum is 
+     * smaller than the maximum
+     * 
+     * @param min The minimum
+     * @param max The maximum
+     * @throws IllegalArgumentException If the values are not valid
+     */
+    private static void validateRange(double min, double max)
+    {
+        if (!Double.isFinite(min) || !Double.isFinite(max) || !(min < max))
+        {
+            throw new IllegalArgumentException(
+                "Invalid range: [" + min + "," + max + "]");
+        }
+    }
+    
+    /**
+     * Implementation of a linear {@link Normalizer}. This is a class, so 
+     * that it can be detected and folded into a lookup by 
+     * {@link ScaledColorMap1D}
+     */
+    static final class LinearNormalizer implements Normalizer
+    {
+        /**
+         * The minimum value
+         */
+        final double min;
+        
+        /**
+         * The inverse of the size of the range
+         */
+        final double invRange;
+        
+        /**
+         * Creates a new instance
+         * 
+         * @param min The minimum value
+         * @param max The maximum value
+         */
+        LinearNormalizer(double min, double max)
+        {
+            this.min = min;
+            this.invRange = 1.0 / (max - min);
+        }
+        
+        @Override
+        public double normalize(double value)
+        {
+            return (value - min) * invRange;
+        }
+    }
+
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private Normalizers()
+    {
+        // Private constructor to prevent instantiation
+    }
+}
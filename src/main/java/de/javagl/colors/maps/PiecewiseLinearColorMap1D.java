@@ -0,0 +1,73 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors.maps;
+
+import java.awt.Color;
+
+/**
+ * Implementation of a {@link ColorMap1D} that is defined by colors at
+ * arbitrary positions, and that computes the interpolated colors exactly,
+ * without a lookup table
+ */
+final class PiecewiseLinearColorMap1D implements ColorMap1D
+{
+    /**
+     * The positions of the colors, sorted in ascending order
+     */
+    private final double positions[];
+    
+    /**
+     * The ARGB colors
+     */
+    private final int argbs[];
+    
+    /**
+     * Creates a new instance. The given arrays will be stored by
+     * reference, and are assumed to be valid, as checked by
+     * {@link ColorMaps#validateStops(double[], int[])}
+     * 
+     * @param positions The positions of the colors
+     * @param argbs The ARGB colors
+     */
+    PiecewiseLinearColorMap1D(double positions[], int argbs[])
+    {
+        this.positions = positions;
+        this.argbs = argbs;
+    }
+    
+    @Override
+    public Color getColor(double value)
+    {
+        return new Color(getArgb(value), true);
+    }
+    
+    @Override
+    public int getArgb(double value)
+    {
+        return ColorMaps.interpolate(positions, argbs, value);
+    }
+}
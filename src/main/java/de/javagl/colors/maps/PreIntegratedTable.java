@@ -0,0 +1,154 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors.maps;
+
+/**
+ * A pre-integrated table for a {@link TransferFunction1D}. It contains
+ * the premultiplied RGBA values for ray segments, depending on the 
+ * values at the front and the back of the segment.<br>
+ * <br>
+ * The lookup methods do not allocate any objects. The values that are
+ * passed to them are expected to be normalized to [0,1]. Values outside 
+ * of this range will be clamped, and <code>NaN</code> will be treated 
+ * like 0.0.<br>
+ * <br>
+ * Instances of this class may be created with 
+ * {@link TransferFunction1D#createPreIntegratedTable(int, double)}.
+ */
+public final class PreIntegratedTable
+{
+    /**
+     * The number of values along each axis of the table
+     */
+    private final int size;
+    
+    /**
+     * The maximum index along each axis
+     */
+    private final int maxIndex;
+    
+    /**
+     * The premultiplied RGBA values, interleaved, where the index 
+     * for the front value <code>f</code> and back value <code>b</code>
+     * is <code>(f * size + b) * 4</code> 
+     */
+    private final float rgba[];
+    
+    /**
+     * Creates a new instance
+     * 
+     * @param size The number of values along each axis
+     * @param rgba The premultiplied RGBA values. This is stored by 
+     * reference.
+     */
+    PreIntegratedTable(int size, float rgba[])
+    {
+        this.size = size;
+        this.maxIndex = size - 1;
+        this.rgba = rgba;
+    }
+    
+    /**
+     * Returns the number of values along each axis of this table
+     * 
+     * @return The size
+     */
+    public int getSize()
+    {
+        return size;
+    }
+    
+    /**
+     * Returns the index along one axis for the given value
+     * 
+     * @param value The value
+     * @return The index
+     */
+    private int index(double value)
+    {
+        if (value >= 1.0)
+        {
+            return maxIndex;
+        }
+        if (value > 0.0)
+        {
+            return (int)(value * maxIndex + 0.5);
+        }
+        return 0;
+    }
+    
+    /**
+     * Returns the opacity of a segment with the given front and back 
+     * values
+     * 
+     * @param front The value at the front of the segment
+     * @param back The value at the back of the segment
+     * @return The opacity
+     */
+    public float getOpacity(double front, double back)
+    {
+        return rgba[(index(front) * size + index(back)) * 4 + 3];
+    }
+    
+    /**
+     * Writes the premultiplied RGBA values for the segments with the
+     * specified front and back values into the given target array. For 
+     * each segment, four consecutive elements will be written into the 
+     * target array, starting at the given offset.<br>
+     * <br>
+     * For a ray with consecutive samples in one array, the front values
+     * may be the samples starting at index <code>i</code>, and the back
+     * values may be the same array, starting at index <code>i+1</code>.
+     * 
+     * @param front The values at the front of the segments
+     * @param frontOffset The offset in the front values array
+     * @param back The values at the back of the segments
+     * @param backOffset The offset in the back values array
+     * @param rgba The target array
+     * @param rgbaOffset The offset in the target array
+     * @param length The number of segments
+     * @throws IndexOutOfBoundsException If the given offsets and length
+     * cause an access outside of the arrays
+     */
+    public void getPremultipliedRgba(float front[], int frontOffset, 
+        float back[], int backOffset, 
+        float rgba[], int rgbaOffset, int length)
+    {
+        float localRgba[] = this.rgba;
+        for (int i = 0; i < length; i++)
+        {
+            int f = index(front[frontOffset + i]);
+            int b = index(back[backOffset + i]);
+            int s = (f * size + b) * 4;
+            int t = rgbaOffset + i * 4;
+            rgba[t + 0] = localRgba[s + 0];
+            rgba[t + 1] = localRgba[s + 1];
+            rgba[t + 2] = localRgba[s + 2];
+            rgba[t + 3] = localRgba[s + 3];
+        }
+    }
+}
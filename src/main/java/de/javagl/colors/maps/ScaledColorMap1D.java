@@ -0,0 +1,380 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors.maps;
+
+import java.awt.Color;
+import java.util.stream.IntStream;
+
+import de.javagl.colors.maps.Normalizers.LinearNormalizer;
+
+/**
+ * A {@link ColorMap1D} that maps data values to colors, by normalizing
+ * them with a {@link Normalizer} and passing the result to a delegate
+ * {@link ColorMap1D}. <br>
+ * <br>
+ * When the delegate is backed by a lookup table, the normalization and 
+ * the lookup are performed in a single step, without calling the 
+ * delegate. The bulk methods allow mapping arrays of data values to 
+ * ARGB colors without any allocations or intermediate arrays.<br>
+ * <br>
+ * Instances of this class may be created with 
+ * {@link ColorMaps#scaled(ColorMap1D, Normalizer)}.
+ */
+public final class ScaledColorMap1D implements ColorMap1D
+{
+    /**
+     * The minimum number of elements that one task of the parallel
+     * bulk methods processes
+     */
+    private static final int PARALLEL_CHUNK_SIZE = 1 << 16;
+    
+    /**
+     * The delegate
+     */
+    private final ColorMap1D delegate;
+    
+    /**
+     * The {@link Normalizer}
+     */
+    private final Normalizer normalizer;
+    
+    /**
+     * Whether the normalizer is linear
+     */
+    private final boolean linear;
+    
+    /**
+     * The minimum value for a linear normalizer
+     */
+    private final double linearMin;
+    
+    /**
+     * The inverse range for a linear normalizer
+     */
+    private final double linearInvRange;
+    
+    /**
+     * The lookup table of the delegate, or <code>null</code> if the
+     * delegate is not backed by a lookup table
+     */
+    private final int lut[];
+    
+    /**
+     * The (fractional) index in the lookup table for the normalized 
+     * value 0.0
+     */
+    private final double lutOffset;
+    
+    /**
+     * The scaling from normalized values to lookup table indices
+     */
+    private final double lutScale;
+    
+    /**
+     * Creates a new instance
+     * 
+     * @param delegate The delegate
+     * @param normalizer The {@link Normalizer}
+     */
+    ScaledColorMap1D(ColorMap1D delegate, Normalizer normalizer)
+    {
+        this.delegate = delegate;
+        this.normalizer = normalizer;
+        if (normalizer instanceof LinearNormalizer)
+        {
+            LinearNormalizer linearNormalizer = (LinearNormalizer)normalizer;
+            this.linear = true;
+            this.linearMin = linearNormalizer.min;
+            this.linearInvRange = linearNormalizer.invRange;
+        }
+        else
+        {
+            this.linear = false;
+            this.linearMin = 0.0;
+            this.linearInvRange = 1.0;
+        }
+        if (delegate instanceof DefaultColorMap1D)
+        {
+            int argbs[] = ((DefaultColorMap1D)delegate).getArgbs();
+            this.lut = argbs.length == 0 ? null : argbs;
+            this.lutOffset = 0.0;
+            this.lutScale = argbs.length - 1;
+        }
+        else if (delegate instanceof LutViewColorMap1D)
+        {
+            LutViewColorMap1D view = (LutViewColorMap1D)delegate;
+            this.lut = view.getArgbs();
+            this.lutOffset = view.getOffset();
+            this.lutScale = view.getScale();
+        }
+        else
+        {
+            this.lut = null;
+            this.lutOffset = 0.0;
+            this.lutScale = 0.0;
+        }
+    }
+    
+    /**
+     * Returns the delegate {@link ColorMap1D}
+     * 
+     * @return The delegate
+     */
+    public ColorMap1D getDelegate()
+    {
+        return delegate;
+    }
+    
+    /**
+     * Returns the {@link Normalizer}
+     * 
+     * @return The {@link Normalizer}
+     */
+    public Normalizer getNormalizer()
+    {
+        return normalizer;
+    }
+    
+    /**
+     * Normalize the given value
+     * 
+     * @param value The value
+     * @return The normalized value
+     */
+    private double normalize(double value)
+    {
+        if (linear)
+        {
+            return (value - linearMin) * linearInvRange;
+        }
+        return normalizer.normalize(value);
+    }
+    
+    /**
+     * Returns the color for the given data value. The value is normalized 
+     * with the {@link Normalizer}, and the result is passed to the 
+     * delegate.
+     * 
+     * @param value The data value
+     * @return The color
+     */
+    @Override
+    public Color getColor(double value)
+    {
+        return delegate.getColor(normalize(value));
+    }
+    
+    /**
+     * Returns the ARGB color for the given data value. The value is 
+     * normalized with the {@link Normalizer}, and the result is passed 
+     * to the delegate.
+     * 
+     * @param value The data value
+     * @return The ARGB color
+     */
+    @Override
+    public int getArgb(double value)
+    {
+        double n = normalize(value);
+        if (lut != null)
+        {
+            double d = Math.max(0.0, Math.min(1.0, n));
+            return lut[(int)Math.round(lutOffset + d * lutScale)];
+        }
+        return delegate.getArgb(n);
+    }
+    
+    /**
+     * Writes the ARGB colors for the given data values into the given 
+     * target array.
+     * 
+     * @param values The data values
+     * @param argbs The target array
+     * @throws IndexOutOfBoundsException If the target array is smaller
+     * than the values array
+     */
+    public void getArgbs(double values[], int argbs[])
+    {
+        getArgbs(values, 0, argbs, 0, values.length);
+    }
+    
+    /**
+     * Writes the ARGB colors for the specified range of the given data 
+     * values into the given target array.
+     * 
+     * @param values The data values
+     * @param valuesOffset The offset in the values array
+     * @param argbs The target array
+     * @param argbsOffset The offset in the target array
+     * @param length The number of values
+     * @throws IndexOutOfBoundsException If the given offsets and length
+     * cause an access outside of the arrays
+     */
+    public void getArgbs(double values[], int valuesOffset, 
+        int argbs[], int argbsOffset, int length)
+    {
+        if (lut == null)
+        {
+            for (int i = 0; i < length; i++)
+            {
+                double n = normalize(values[valuesOffset + i]);
+                argbs[argbsOffset + i] = delegate.getArgb(n);
+            }
+            return;
+        }
+        int localLut[] = lut;
+        double offset = lutOffset;
+        double scale = lutScale;
+        if (linear)
+        {
+            double min = linearMin;
+            double invRange = linearInvRange;
+            for (int i = 0; i < length; i++)
+            {
+                double n = (values[valuesOffset + i] - min) * invRange;
+                double d = Math.max(0.0, Math.min(1.0, n));
+                argbs[argbsOffset + i] = 
+                    localLut[(int)Math.round(offset + d * scale)];
+            }
+        }
+        else
+        {
+            for (int i = 0; i < length; i++)
+            {
+                double n = normalizer.normalize(values[valuesOffset + i]);
+                double d = Math.max(0.0, Math.min(1.0, n));
+                argbs[argbsOffset + i] = 
+                    localLut[(int)Math.round(offset + d * scale)];
+            }
+        }
+    }
+    
+    /**
+     * Writes the ARGB colors for the given data values into the given 
+     * target array.
+     * 
+     * @param values The data values
+     * @param argbs The target array
+     * @throws IndexOutOfBoundsException If the target array is smaller
+     * than the values array
+     */
+    public void getArgbs(float values[], int argbs[])
+    {
+        getArgbs(values, 0, argbs, 0, values.length);
+    }
+    
+    /**
+     * Writes the ARGB colors for the specified range of the given data 
+     * values into the given target array.
+     * 
+     * @param values The data values
+     * @param valuesOffset The offset in the values array
+     * @param argbs The target array
+     * @param argbsOffset The offset in the target array
+     * @param length The number of values
+     * @throws IndexOutOfBoundsException If the given offsets and length
+     * cause an access outside of the arrays
+     */
+    public void getArgbs(float values[], int valuesOffset, 
+        int argbs[], int argbsOffset, int length)
+    {
+        if (lut == null || !linear)
+        {
+            for (int i = 0; i < length; i++)
+            {
+                argbs[argbsOffset + i] = getArgb(values[valuesOffset + i]);
+            }
+            return;
+        }
+        int localLut[] = lut;
+        double offset = lutOffset;
+        double scale = lutScale;
+        double min = linearMin;
+        double invRange = linearInvRange;
+        for (int i = 0; i < length; i++)
+        {
+            double n = (values[valuesOffset + i] - min) * invRange;
+            double d = Math.max(0.0, Math.min(1.0, n));
+            argbs[argbsOffset + i] = 
+                localLut[(int)Math.round(offset + d * scale)];
+        }
+    }
+    
+    /**
+     * Writes the ARGB colors for the given data values into the given 
+     * target array, using multiple threads for large arrays.
+     * 
+     * @param values The data values
+     * @param argbs The target array
+     * @throws IndexOutOfBoundsException If the target array is smaller
+     * than the values array
+     */
+    public void getArgbsParallel(double values[], int argbs[])
+    {
+        if (argbs.length < values.length)
+        {
+            throw new IndexOutOfBoundsException(
+                "Target array has length " + argbs.length 
+                + ", expected at least " + values.length);
+        }
+        int n = values.length;
+        int chunks = (n + PARALLEL_CHUNK_SIZE - 1) / PARALLEL_CHUNK_SIZE;
+        IntStream.range(0, chunks).parallel().forEach(c -> 
+        {
+            int start = c * PARALLEL_CHUNK_SIZE;
+            int length = Math.min(PARALLEL_CHUNK_SIZE, n - start);
+            getArgbs(values, start, argbs, start, length);
+        });
+    }
+    
+    /**
+     * Writes the ARGB colors for the given data values into the given 
+     * target array, using multiple threads for large arrays.
+     * 
+     * @param values The data values
+     * @param argbs The target array
+     * @throws IndexOutOfBoundsException If the target array is smaller
+     * than the values array
+     */
+    public void getArgbsParallel(float values[], int argbs[])
+    {
+        if (argbs.length < values.length)
+        {
+            throw new IndexOutOfBoundsException(
+                "Target array has length " + argbs.length 
+                + ", expected at least " + values.length);
+        }
+        int n = values.length;
+        int chunks = (n + PARALLEL_CHUNK_SIZE - 1) / PARALLEL_CHUNK_SIZE;
+        IntStream.range(0, chunks).parallel().forEach(c -> 
+        {
+            int start = c * PARALLEL_CHUNK_SIZE;
+            int length = Math.min(PARALLEL_CHUNK_SIZE, n - start);
+            getArgbs(values, start, argbs, start, length);
+        });
+    }
+}
@@ -0,0 +1,391 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors.maps;
+
+/**
+ * A transfer function for volume rendering, which maps scalar values 
+ * to colors with opacities.<br>
+ * <br>
+ * The transfer function is stored as a lookup table of premultiplied 
+ * RGBA values. It is available as packed premultiplied ARGB values, and
+ * as interleaved premultiplied RGBA float values in [0,1], which can 
+ * directly be accumulated in front-to-back compositing. The lookup 
+ * methods do not allocate any objects, and the values that are passed
+ * to them are expected to be normalized to [0,1]. Values outside of 
+ * this range will be clamped, and <code>NaN</code> will be treated 
+ * like 0.0.<br>
+ * <br>
+ * The opacities refer to a certain base sample distance. For other
+ * sample distances, a corrected transfer function can be created with
+ * {@link #withSampleDistance(double)}. A 
+ * {@link #createPreIntegratedTable(int, double) pre-integrated table}
+ * can be used to reduce the artifacts that are caused by high 
+ * frequencies in the transfer function.<br>
+ * <br>
+ * Instances of this class may be created with the methods in 
+ * {@link TransferFunctions}.
+ */
+public final class TransferFunction1D
+{
+    /**
+     * The straight (non-premultiplied) RGBA values of the lookup table, 
+     * interleaved, for the base sample distance
+     */
+    private final float straightRgba[];
+    
+    /**
+     * The premultiplied RGBA values of the lookup table, interleaved
+     */
+    private final float rgba[];
+    
+    /**
+     * The premultiplied ARGB values of the lookup table
+     */
+    private final int argbs[];
+    
+    /**
+     * The maximum index in the lookup table
+     */
+    private final int maxIndex;
+    
+    /**
+     * The sample distance, relative to the base sample distance
+     */
+    private final double sampleDistance;
+    
+    /**
+     * Creates a new instance
+     * 
+     * @param straightRgba The straight RGBA values for the base sample 
+     * distance, interleaved. This is stored by reference.
+     * @param sampleDistance The sample distance, relative to the base
+     * sample distance
+     */
+    TransferFunction1D(float straightRgba[], double sampleDistance)
+    {
+        this.straightRgba = straightRgba;
+        this.sampleDistance = sampleDistance;
+        int size = straightRgba.length / 4;
+        this.maxIndex = size - 1;
+        this.rgba = new float[size * 4];
+        this.argbs = new int[size];
+        for (int i = 0; i < size; i++)
+        {
+            float r = straightRgba[i * 4 + 0];
+            float g = straightRgba[i * 4 + 1];
+            float b = straightRgba[i * 4 + 2];
+            float a = correctOpacity(straightRgba[i * 4 + 3], sampleDistance);
+            rgba[i * 4 + 0] = r * a;
+            rgba[i * 4 + 1] = g * a;
+            rgba[i * 4 + 2] = b * a;
+            rgba[i * 4 + 3] = a;
+            argbs[i] = 
+                (toByte(a) << 24) | 
+                (toByte(r * a) << 16) | 
+                (toByte(g * a) << 8) | 
+                toByte(b * a);
+        }
+    }
+    
+    /**
+     * Returns the opacity for the given sample distance, for a given 
+     * opacity that refers to the base sample distance 
+     * 
+     * @param alpha The opacity
+     * @param sampleDistance The relative sample distance
+     * @return The corrected opacity
+     */
+    private static float correctOpacity(float alpha, double sampleDistance)
+    {
+        if (sampleDistance == 1.0 || alpha <= 0.0f || alpha >= 1.0f)
+        {
+            return alpha;
+        }
+        return (float)(1.0 - Math.pow(1.0 - alpha, sampleDistance));
+    }
+    
+    /**
+     * Converts the given value in [0,1] into a byte value in [0,255]
+     * 
+     * @param value The value
+     * @return The byte value
+     */
+    private static int toByte(float value)
+    {
+        return Math.min(255, Math.max(0, (int)(value * 255.0f + 0.5f)));
+    }
+    
+    /**
+     * Returns the size of the lookup table
+     * 
+     * @return The size
+     */
+    public int getSize()
+    {
+        return maxIndex + 1;
+    }
+    
+    /**
+     * Returns the sample distance that the opacities of this transfer
+     * function refer to, relative to the base sample distance
+     * 
+     * @return The sample distance
+     */
+    public double getSampleDistance()
+    {
+        return sampleDistance;
+    }
+    
+    /**
+     * Returns a transfer function that has the same colors as this one,
+     * and opacities that are corrected for the given sample distance. 
+     * The opacities <code>a</code> for the base sample distance are
+     * corrected to be <code>1-(1-a)^d</code>, where <code>d</code> is
+     * the given sample distance.
+     * 
+     * @param sampleDistance The sample distance, relative to the base 
+     * sample distance
+     * @return The transfer function
+     * @throws IllegalArgumentException If the sample distance is not
+     * positive
+     */
+    public TransferFunction1D withSampleDistance(double sampleDistance)
+    {
+        validateSampleDistance(sampleDistance);
+        if (sampleDistance == this.sampleDistance)
+        {
+            return this;
+        }
+        return new TransferFunction1D(straightRgba, sampleDistance);
+    }
+    
+    /**
+     * Make sure that the given sample distance is positive and finite
+     * 
+     * @param sampleDistance The sample distance
+     * @throws IllegalArgumentException If the sample distance is not
+     * positive and finite
+     */
+    private static void validateSampleDistance(double sampleDistance)
+    {
+        if (!(sampleDistance > 0.0) || Double.isInfinite(sampleDistance))
+        {
+            throw new IllegalArgumentException(
+                "The sample distance must be positive, but is " 
+                + sampleDistance);
+        }
+    }
+    
+    /**
+     * Returns the index in the lookup table for the given value
+     * 
+     * @param value The value
+     * @return The index
+     */
+    private int index(double value)
+    {
+        if (value >= 1.0)
+        {
+            return maxIndex;
+        }
+        if (value > 0.0)
+        {
+            return (int)(value * maxIndex + 0.5);
+        }
+        return 0;
+    }
+    
+    /**
+     * Returns the premultiplied ARGB value for the given value
+     * 
+     * @param value The value
+     * @return The premultiplied ARGB value
+     */
+    public int getPremultipliedArgb(double value)
+    {
+        return argbs[index(value)];
+    }
+    
+    /**
+     * Returns the opacity for the given value, in [0,1]
+     * 
+     * @param value The value
+     * @return The opacity
+     */
+    public float getOpacity(double value)
+    {
+        return rgba[index(value) * 4 + 3];
+    }
+    
+    /**
+     * Writes the premultiplied ARGB values for the specified range of
+     * the given values into the given target array.
+     * 
+     * @param values The values
+     * @param valuesOffset The offset in the values array
+     * @param argbs The target array
+     * @param argbsOffset The offset in the target array
+     * @param length The number of values
+     * @throws IndexOutOfBoundsException If the given offsets and length
+     * cause an access outside of the arrays
+     */
+    public void getPremultipliedArgbs(float values[], int valuesOffset,
+        int argbs[], int argbsOffset, int length)
+    {
+        int localArgbs[] = this.argbs;
+        for (int i = 0; i < length; i++)
+        {
+            int index = index(values[valuesOffset + i]);
+            argbs[argbsOffset + i] = localArgbs[index];
+        }
+    }
+    
+    /**
+     * Writes the premultiplied RGBA values for the specified range of 
+     * the given values into the given target array. For each value,
+     * four consecutive elements will be written into the target array,
+     * starting at the given offset.
+     * 
+     * @param values The values
+     * @param valuesOffset The offset in the values array
+     * @param rgba The target array
+     * @param rgbaOffset The offset in the target array
+     * @param length The number of values
+     * @throws IndexOutOfBoundsException If the given offsets and length
+     * cause an access outside of the arrays
+     */
+    public void getPremultipliedRgba(float values[], int valuesOffset,
+        float rgba[], int rgbaOffset, int length)
+    {
+        float localRgba[] = this.rgba;
+        for (int i = 0; i < length; i++)
+        {
+            int s = index(values[valuesOffset + i]) * 4;
+            int t = rgbaOffset + i * 4;
+            rgba[t + 0] = localRgba[s + 0];
+            rgba[t + 1] = localRgba[s + 1];
+            rgba[t + 2] = localRgba[s + 2];
+            rgba[t + 3] = localRgba[s + 3];
+        }
+    }
+    
+    /**
+     * Creates a {@link PreIntegratedTable} for this transfer function.<br>
+     * <br>
+     * The table contains the premultiplied color and opacity of ray 
+     * segments with the given length, for all pairs of values at the 
+     * front and the back of the segment, assuming that the value 
+     * varies linearly along the segment. The opacity is computed 
+     * from the integral of the extinction along the segment, and the
+     * color is the extinction-weighted average color, ignoring the 
+     * self-attenuation within the segment.
+     * 
+     * @param size The number of values along each axis of the table
+     * @param sampleDistance The length of the segments, relative to 
+     * the base sample distance
+     * @return The {@link PreIntegratedTable}
+     * @throws IllegalArgumentException If the size is smaller than 2,
+     * or the sample distance is not positive
+     */
+    public PreIntegratedTable createPreIntegratedTable(
+        int size, double sampleDistance)
+    {
+        if (size < 2)
+        {
+            throw new IllegalArgumentException(
+                "The size must be at least 2, but is " + size);
+        }
+        validateSampleDistance(sampleDistance);
+        
+        // Sample the extinction coefficients (for the base sample 
+        // distance) and the straight colors at the table resolution,
+        // and compute their integrals, using the trapezoidal rule
+        double tau[] = new double[size];
+        double colors[] = new double[size * 3];
+        for (int i = 0; i < size; i++)
+        {
+            int s = index((double) i / (size - 1)) * 4;
+            double a = Math.min(straightRgba[s + 3], 1.0 - 1e-6);
+            tau[i] = -Math.log(1.0 - a);
+            colors[i * 3 + 0] = straightRgba[s + 0];
+            colors[i * 3 + 1] = straightRgba[s + 1];
+            colors[i * 3 + 2] = straightRgba[s + 2];
+        }
+        double integralTau[] = new double[size];
+        double integralColors[] = new double[size * 3];
+        double h = 1.0 / (size - 1);
+        for (int i = 1; i < size; i++)
+        {
+            integralTau[i] = integralTau[i - 1] 
+                + 0.5 * h * (tau[i - 1] + tau[i]);
+            for (int c = 0; c < 3; c++)
+            {
+                integralColors[i * 3 + c] = integralColors[(i - 1) * 3 + c]
+                    + 0.5 * h * (tau[i - 1] * colors[(i - 1) * 3 + c] 
+                               + tau[i] * colors[i * 3 + c]);
+            }
+        }
+        
+        float table[] = new float[size * size * 4];
+        double averageColor[] = new double[3];
+        for (int f = 0; f < size; f++)
+        {
+            for (int b = 0; b < size; b++)
+            {
+                double averageTau;
+                double deltaTau = integralTau[b] - integralTau[f];
+                if (Math.abs(deltaTau) > 1e-12)
+                {
+                    averageTau = deltaTau / ((b - f) * h);
+                    for (int c = 0; c < 3; c++)
+                    {
+                        averageColor[c] = (integralColors[b * 3 + c] 
+                            - integralColors[f * 3 + c]) / deltaTau;
+                    }
+                }
+                else
+                {
+                    averageTau = 0.5 * (tau[f] + tau[b]);
+                    for (int c = 0; c < 3; c++)
+                    {
+                        averageColor[c] = 
+                            0.5 * (colors[f * 3 + c] + colors[b * 3 + c]);
+                    }
+                }
+                double alpha = 1.0 - Math.exp(-averageTau * sampleDistance);
+                int t = (f * size + b) * 4;
+                for (int c = 0; c < 3; c++)
+                {
+                    double value = Math.min(1.0, averageColor[c]) * alpha;
+                    table[t + c] = (float)value;
+                }
+                table[t + 3] = (float)alpha;
+            }
+        }
+        return new PreIntegratedTable(size, table);
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors.maps;
+
+import java.util.Objects;
+
+/**
+ * Methods to create {@link TransferFunction1D} instances
+ */
+public class TransferFunctions
+{
+    /**
+     * Creates a new {@link TransferFunction1D} that combines the colors
+     * of the given {@link ColorMap1D} with the given piecewise linear 
+     * opacity curve, using a lookup table with an unspecified size.
+     * See {@link #create(ColorMap1D, double[], double[], int)} for 
+     * details.
+     * 
+     * @param colorMap The {@link ColorMap1D}
+     * @param positions The positions of the opacity curve control points
+     * @param opacities The opacities at the control points
+     * @return The {@link TransferFunction1D}
+     * @throws IllegalArgumentException If the opacity curve is not valid
+     */
+    public static TransferFunction1D create(ColorMap1D colorMap, 
+        double positions[], double opacities[])
+    {
+        return create(colorMap, positions, opacities, 
+            ColorMaps.DEFAULT_INTERPOLATION_STEPS);
+    }
+    
+    /**
+     * Creates a new {@link TransferFunction1D} that combines the colors
+     * of the given {@link ColorMap1D} with the given piecewise linear 
+     * opacity curve, using a lookup table with the given size.<br>
+     * <br>
+     * The opacity curve is defined by control points with the given 
+     * positions, which must be in ascending order, and the given 
+     * opacities in [0,1]. The opacity will be linearly interpolated
+     * between the control points, and be constant before the first and
+     * after the last control point. The opacities refer to the base 
+     * sample distance of the transfer function. The resulting opacity
+     * is the product of the opacity from the curve and the alpha 
+     * component of the color from the color map.
+     * 
+     * @param colorMap The {@link ColorMap1D}
+     * @param positions The positions of the opacity curve control points
+     * @param opacities The opacities at the control points
+     * @param size The size of the lookup table
+     * @return The {@link TransferFunction1D}
+     * @throws IllegalArgumentException If the opacity curve is not valid,
+     * or the size is smaller than 2
+     */
+    public static TransferFunction1D create(ColorMap1D colorMap, 
+        double positions[], double opacities[], int size)
+    {
+        Objects.requireNonNull(colorMap, "The colorMap may not be null");
+        validateOpacityCurve(positions, opacities);
+        if (size < 2)
+        {
+            throw new IllegalArgumentException(
+                "The size must be at least 2, but is " + size);
+        }
+        float straightRgba[] = new float[size * 4];
+        for (int i = 0; i < size; i++)
+        {
+            double x = (double) i / (size - 1);
+            int argb = colorMap.getArgb(x);
+            double opacity = interpolate(positions, opacities, x);
+            straightRgba[i * 4 + 0] = ((argb >> 16) & 0xFF) / 255.0f;
+            straightRgba[i * 4 + 1] = ((argb >>  8) & 0xFF) / 255.0f;
+            straightRgba[i * 4 + 2] = ((argb      ) & 0xFF) / 255.0f;
+            straightRgba[i * 4 + 3] = 
+                (float)(opacity * ((argb >>> 24) / 255.0));
+        }
+        return new TransferFunction1D(straightRgba, 1.0);
+    }
+    
+    /**
+     * Make sure that the given opacity curve is valid
+     * 
+     * @param positions The positions
+     * @param opacities The opacities
+     * @throws IllegalArgumentException If the arrays are <code>null</code>
+     * or empty or have different lengths, the positions are not sorted 
+     * in ascending order, or the opacities are not in [0,1]
+     */
+    private static void validateOpacityCurve(
+        double positions[], double opacities[])
+    {
+        if (positions == null || opacities == null)
+        {
+            throw new IllegalArgumentException(
+                "Cannot create opacity curve from null positions or values");
+        }
+        if (opacities.length == 0)
+        {
+            throw new IllegalArgumentException(
+                "Cannot create opacity curve from empty values");
+        }
+        if (positions.length != opacities.length)
+        {
+            throw new IllegalArgumentException(
+                "There are " + positions.length + " positions but " 
+                + opacities.length + " opacities");
+        }
+        for (int i = 0; i < positions.length; i++)
+        {
+            if (!Double.isFinite(positions[i]))
+            {
+                throw new IllegalArgumentException(
+                    "The position at index " + i + " is " + positions[i]);
+            }
+            if (i > 0 && positions[i] < positions[i - 1])
+            {
+                throw new IllegalArgumentException(
+                    "The positions must be sorted in ascending order, but "
+                    + "the position at index " + i + " is " + positions[i]
+                    + " and the previous one is " + positions[i - 1]);
+            }
+            if (!(opacities[i] >= 0.0 && opacities[i] <= 1.0))
+            {
+                throw new IllegalArgumentException(
+                    "The opacity at index " + i + " is " + opacities[i]
+                    + ", but must be in [0,1]");
+            }
+        }
+    }
+    
+    /**
+     * Computes the value of the piecewise linear function that is 
+     * defined by the given control points, at the given position
+     * 
+     * @param positions The positions of the control points
+     * @param values The values at the control points
+     * @param x The position
+     * @return The value
+     */
+    private static double interpolate(
+        double positions[], double values[], double x)
+    {
+        int n = positions.length;
+        if (x <= positions[0])
+        {
+            return values[0];
+        }
+        if (x >= positions[n - 1])
+        {
+            return values[n - 1];
+        }
+        int i = ColorMaps.findSegment(positions, x);
+        double range = positions[i + 1] - positions[i];
+        if (range <= 0.0)
+        {
+            return values[i + 1];
+        }
+        double t = (x - positions[i]) / range;
+        return values[i] + t * (values[i + 1] - values[i]);
+    }
+    
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private TransferFunctions()
+    {
+        // Private constructor to prevent instantiation
+    }
+}
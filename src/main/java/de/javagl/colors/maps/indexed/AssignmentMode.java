@@ -0,0 +1,52 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors.maps.indexed;
+
+/**
+ * An enumeration of the strategies that a {@link CategoricalColorizer} 
+ * may use for assigning colors to keys
+ */
+public enum AssignmentMode
+{
+    /**
+     * Each key receives the color that is determined by its hash value.
+     * The assignment does not depend on any other keys, and is stable
+     * across runs. Different keys may receive the same color even when
+     * other colors are still unused.
+     */
+    HASHED,
+    
+    /**
+     * Each key receives one of two colors that are determined by its hash
+     * value, namely the one that has been assigned to fewer keys so far.
+     * This balances the usage of the colors, and reduces the number of 
+     * keys that share a color. The assignment is stable for the lifetime 
+     * of the colorizer, and across runs in which the keys are encountered
+     * in the same order.
+     */
+    BALANCED;
+}
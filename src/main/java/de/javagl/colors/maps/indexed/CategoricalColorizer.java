@@ -0,0 +1,450 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors.maps.indexed;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+/**
+ * A class that assigns colors of an {@link IndexedColorMap1D} to 
+ * arbitrary keys, for example, to show categories with distinct 
+ * colors.<br>
+ * <br>
+ * The assignment is based on hash values of the keys. These hash values 
+ * are computed by this class, independent of the JVM, so that the same 
+ * key receives the same color in different runs. The details of how
+ * the colors are assigned are determined by the {@link AssignmentMode}.
+ * <br>
+ * <br>
+ * In {@link AssignmentMode#BALANCED} mode, the assignments are stored 
+ * in a concurrent table, up to a maximum number of keys. Keys that are 
+ * encountered after this table is full receive the color that is
+ * determined by their hash value, as in {@link AssignmentMode#HASHED}
+ * mode. In {@link AssignmentMode#HASHED} mode, no table is needed, 
+ * because the assignment is a pure function of the key.<br>
+ * <br>
+ * Instances of this class are thread-safe. Lookups of keys that already
+ * have been assigned a color do not require any locks.
+ */
+public final class CategoricalColorizer
+{
+    /**
+     * The minimum number of elements that one task of the parallel
+     * bulk methods processes
+     */
+    private static final int PARALLEL_CHUNK_SIZE = 1 << 14;
+    
+    /**
+     * The default maximum number of keys that are stored
+     */
+    private static final int DEFAULT_MAX_ENTRIES = 1 << 20;
+    
+    /**
+     * The ARGB colors
+     */
+    private final int argbs[];
+    
+    /**
+     * The {@link AssignmentMode}
+     */
+    private final AssignmentMode assignmentMode;
+    
+    /**
+     * The maximum number of keys that are stored
+     */
+    private final int maxEntries;
+    
+    /**
+     * The assignments from string keys to color indices
+     */
+    private final ConcurrentMap<String, Integer> stringAssignments;
+    
+    /**
+     * The assignments from long keys to color indices
+     */
+    private final ConcurrentMap<Long, Integer> longAssignments;
+    
+    /**
+     * The number of keys that have been assigned to each color in 
+     * {@link AssignmentMode#BALANCED} mode
+     */
+    private final AtomicIntegerArray usageCounts;
+    
+    /**
+     * Creates a new instance that uses the colors of the given color map.
+     * The colors are copied, so later changes of the color map are not
+     * reflected.
+     * 
+     * @param colorMap The {@link IndexedColorMap1D}
+     * @param assignmentMode The {@link AssignmentMode}
+     * @throws IllegalArgumentException If the given color map is empty
+     */
+    public CategoricalColorizer(
+        IndexedColorMap1D colorMap, AssignmentMode assignmentMode)
+    {
+        this(colorMap, assignmentMode, DEFAULT_MAX_ENTRIES);
+    }
+    
+    /**
+     * Creates a new instance that uses the colors of the given color map.
+     * The colors are copied, so later changes of the color map are not
+     * reflected.
+     * 
+     * @param colorMap The {@link IndexedColorMap1D}
+     * @param assignmentMode The {@link AssignmentMode}
+     * @param maxEntries The maximum number of keys that are stored in
+     * {@link AssignmentMode#BALANCED} mode
+     * @throws IllegalArgumentException If the given color map is empty,
+     * or the maximum number of entries is negative
+     */
+    public CategoricalColorizer(IndexedColorMap1D colorMap, 
+        AssignmentMode assignmentMode, int maxEntries)
+    {
+        Objects.requireNonNull(colorMap, "The colorMap may not be null");
+        this.assignmentMode = Objects.requireNonNull(
+            assignmentMode, "The assignmentMode may not be null");
+        int size = colorMap.getSize();
+        if (size <= 0)
+        {
+            throw new IllegalArgumentException(
+                "The color map may not be empty");
+        }
+        if (maxEntries < 0)
+        {
+            throw new IllegalArgumentException(
+                "The maximum number of entries may not be negative, but is "
+                + maxEntries);
+        }
+        this.argbs = new int[size];
+        for (int i = 0; i < size; i++)
+        {
+            argbs[i] = colorMap.getArgb(i);
+        }
+        this.maxEntries = maxEntries;
+        this.stringAssignments = new ConcurrentHashMap<String, Integer>();
+        this.longAssignments = new ConcurrentHashMap<Long, Integer>();
+        this.usageCounts = new AtomicIntegerArray(size);
+    }
+    
+    /**
+     * Computes a 64-bit hash value for the given string. This is a 
+     * FNV-1a hash of the UTF-16 characters, followed by a finalization
+     * step that distributes the bits.
+     * 
+     * @param key The key
+     * @return The hash value
+     */
+    static long hash(String key)
+    {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++)
+        {
+            h ^= key.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+    
+    /**
+     * Computes a 64-bit hash value for the given long value
+     * 
+     * @param key The key
+     * @return The hash value
+     */
+    static long hash(long key)
+    {
+        return mix(key + 0x9e3779b97f4a7c15L);
+    }
+    
+    /**
+     * The finalization step of the 64-bit MurmurHash3 
+     * 
+     * @param h The input
+     * @return The result
+     */
+    private static long mix(long h)
+    {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+    
+    /**
+     * Returns the primary color index for the given hash value
+     * 
+     * @param h The hash value
+     * @return The color index
+     */
+    private int primaryIndex(long h)
+    {
+        return (int)Long.remainderUnsigned(h, argbs.length);
+    }
+    
+    /**
+     * Returns the secondary color index for the given hash value
+     * 
+     * @param h The hash value
+     * @return The color index
+     */
+    private int secondaryIndex(long h)
+    {
+        return (int)Long.remainderUnsigned(
+            Long.rotateLeft(h, 32), argbs.length);
+    }
+    
+    /**
+     * Chooses the color index for a key with the given hash value in
+     * {@link AssignmentMode#BALANCED} mode, and updates the usage counts
+     * 
+     * @param h The hash value
+     * @return The color index
+     */
+    private int assignBalanced(long h)
+    {
+        int i0 = primaryIndex(h);
+        int i1 = secondaryIndex(h);
+        int index = usageCounts.get(i1) < usageCounts.get(i0) ? i1 : i0;
+        usageCounts.incrementAndGet(index);
+        return index;
+    }
+    
+    /**
+     * Returns the index of the color for the given key
+     * 
+     * @param key The key
+     * @return The color index
+     */
+    public int getIndex(String key)
+    {
+        if (assignmentMode == AssignmentMode.HASHED)
+        {
+            return primaryIndex(hash(key));
+        }
+        Integer index = stringAssignments.get(key);
+        if (index != null)
+        {
+            return index;
+        }
+        long h = hash(key);
+        if (stringAssignments.size() + longAssignments.size() >= maxEntries)
+        {
+            return primaryIndex(h);
+        }
+        return stringAssignments.computeIfAbsent(
+            key, k -> assignBalanced(h));
+    }
+    
+    /**
+     * Returns the index of the color for the given key
+     * 
+     * @param key The key
+     * @return The color index
+     */
+    public int getIndex(long key)
+    {
+        if (assignmentMode == AssignmentMode.HASHED)
+        {
+            return primaryIndex(hash(key));
+        }
+        Long boxedKey = key;
+        Integer index = longAssignments.get(boxedKey);
+        if (index != null)
+        {
+            return index;
+        }
+        long h = hash(key);
+        if (stringAssignments.size() + longAssignments.size() >= maxEntries)
+        {
+            return primaryIndex(h);
+        }
+        return longAssignments.computeIfAbsent(
+            boxedKey, k -> assignBalanced(h));
+    }
+    
+    /**
+     * Returns the ARGB color for the given key
+     * 
+     * @param key The key
+     * @return The ARGB color
+     */
+    public int getArgb(String key)
+    {
+        return argbs[getIndex(key)];
+    }
+    
+    /**
+     * Returns the ARGB color for the given key
+     * 
+     * @param key The key
+     * @return The ARGB color
+     */
+    public int getArgb(long key)
+    {
+        return argbs[getIndex(key)];
+    }
+    
+    /**
+     * Writes the ARGB colors for the specified range of the given keys
+     * into the given target array
+     * 
+     * @param keys The keys
+     * @param keysOffset The offset in the keys array
+     * @param target The target array
+     * @param targetOffset The offset in the target array
+     * @param length The number of keys
+     * @throws IndexOutOfBoundsException If the given offsets and length
+     * cause an access outside of the arrays
+     */
+    public void getArgbs(String keys[], int keysOffset, 
+        int target[], int targetOffset, int length)
+    {
+        for (int i = 0; i < length; i++)
+        {
+            target[targetOffset + i] = getArgb(keys[keysOffset + i]);
+        }
+    }
+    
+    /**
+     * Writes the ARGB colors for the specified range of the given keys
+     * into the given target array
+     * 
+     * @param keys The keys
+     * @param keysOffset The offset in the keys array
+     * @param target The target array
+     * @param targetOffset The offset in the target array
+     * @param length The number of keys
+     * @throws IndexOutOfBoundsException If the given offsets and length
+     * cause an access outside of the arrays
+     */
+    public void getArgbs(long keys[], int keysOffset, 
+        int target[], int targetOffset, int length)
+    {
+        if (assignmentMode == AssignmentMode.HASHED)
+        {
+            int localArgbs[] = argbs;
+            for (int i = 0; i < length; i++)
+            {
+                long h = hash(keys[keysOffset + i]);
+                target[targetOffset + i] = localArgbs[primaryIndex(h)];
+            }
+            return;
+        }
+        for (int i = 0; i < length; i++)
+        {
+            target[targetOffset + i] = getArgb(keys[keysOffset + i]);
+        }
+    }
+    
+    /**
+     * Writes the ARGB colors for the given keys into the given target 
+     * array, using multiple threads for large arrays. Note that in 
+     * {@link AssignmentMode#BALANCED} mode, the order in which new
+     * keys are encountered (and thus, the resulting colors) is not 
+     * deterministic.
+     * 
+     * @param keys The keys
+     * @param target The target array
+     * @throws IndexOutOfBoundsException If the target array is smaller
+     * than the keys array
+     */
+    public void getArgbsParallel(String keys[], int target[])
+    {
+        int n = keys.length;
+        checkLength(n, target.length);
+        int chunks = (n + PARALLEL_CHUNK_SIZE - 1) / PARALLEL_CHUNK_SIZE;
+        IntStream.range(0, chunks).parallel().forEach(c -> 
+        {
+            int start = c * PARALLEL_CHUNK_SIZE;
+            int length = Math.min(PARALLEL_CHUNK_SIZE, n - start);
+            getArgbs(keys, start, target, start, length);
+        });
+    }
+    
+    /**
+     * Writes the ARGB colors for the given keys into the given target 
+     * array, using multiple threads for large arrays. Note that in 
+     * {@link AssignmentMode#BALANCED} mode, the order in which new
+     * keys are encountered (and thus, the resulting colors) is not 
+     * deterministic.
+     * 
+     * @param keys The keys
+     * @param target The target array
+     * @throws IndexOutOfBoundsException If the target array is smaller
+     * than the keys array
+     */
+    public void getArgbsParallel(long keys[], int target[])
+    {
+        int n = keys.length;
+        checkLength(n, target.length);
+        int chunks = (n + PARALLEL_CHUNK_SIZE - 1) / PARALLEL_CHUNK_SIZE;
+        IntStream.range(0, chunks).parallel().forEach(c -> 
+        {
+            int start = c * PARALLEL_CHUNK_SIZE;
+            int length = Math.min(PARALLEL_CHUNK_SIZE, n - start);
+            getArgbs(keys, start, target, start, length);
+        });
+    }
+    
+    /**
+     * Returns the number of keys that have been assigned to the color 
+     * with the given index, in {@link AssignmentMode#BALANCED} mode.
+     * In {@link AssignmentMode#HASHED} mode, this will always be 0.
+     * 
+     * @param index The color index
+     * @return The number of keys
+     * @throws IndexOutOfBoundsException If the index is negative or not
+     * smaller than the number of colors
+     */
+    public int getUsageCount(int index)
+    {
+        return usageCounts.get(index);
+    }
+    
+    /**
+     * Make sure that the target length is not smaller than the source
+     * length
+     * 
+     * @param sourceLength The source length
+     * @param targetLength The target length
+     * @throws IndexOutOfBoundsException If the target length is smaller
+     */
+    private static void checkLength(int sourceLength, int targetLength)
+    {
+        if (targetLength < sourceLength)
+        {
+            throw new IndexOutOfBoundsException(
+                "Target array has length " + targetLength 
+                + ", expected at least " + sourceLength);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors.maps.indexed;
+
+import java.awt.Color;
+
+/**
+ * Default implementation of an {@link IndexedColorMap1D} that is backed
+ * by arrays of colors and ARGB values
+ */
+final class DefaultIndexedColorMap1D implements IndexedColorMap1D
+{
+    /**
+     * The colors
+     */
+    private final Color colors[];
+    
+    /**
+     * The ARGB values of the colors
+     */
+    private final int argbs[];
+    
+    /**
+     * Creates a new instance that is backed by the given array. The
+     * array is stored by reference. The ARGB value of <code>null</code>
+     * elements will be 0.
+     * 
+     * @param colors The colors
+     */
+    DefaultIndexedColorMap1D(Color colors[])
+    {
+        this.colors = colors;
+        this.argbs = new int[colors.length];
+        for (int i = 0; i < colors.length; i++)
+        {
+            Color color = colors[i];
+            argbs[i] = color == null ? 0 : color.getRGB();
+        }
+    }
+    
+    /**
+     * Creates a new instance that is backed by the given array. The
+     * array is stored by reference.
+     * 
+     * @param argbs The ARGB values
+     */
+    DefaultIndexedColorMap1D(int argbs[])
+    {
+        this.argbs = argbs;
+        this.colors = new Color[argbs.length];
+        for (int i = 0; i < argbs.length; i++)
+        {
+            colors[i] = new Color(argbs[i], true);
+        }
+    }
+    
+    /**
+     * Returns a reference to the ARGB values that are backing this map
+     * 
+     * @return The ARGB values
+     */
+    int[] getArgbs()
+    {
+        return argbs;
+    }
+    
+    @Override
+    public int getSize()
+    {
+        return argbs.length;
+    }
+    
+    @Override
+    public Color getColor(int index)
+    {
+        return colors[index];
+    }
+    
+    @Override
+    public int getArgb(int index)
+    {
+        return argbs[index];
+    }
+}
@@ -0,0 +1,525 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors.maps.indexed;
+
+import java.util.stream.IntStream;
+
+import de.javagl.colors.ColorSpaces;
+
+/**
+ * Methods to create qualitative palettes with a given number of colors
+ * that are maximally distinct.<br>
+ * <br>
+ * The colors are selected from a regular grid of candidate colors in 
+ * the sRGB cube, which may be restricted to a range of lightness and 
+ * chroma in the OKLab color space. The selection starts with a greedy
+ * farthest-point sampling, where each new color is the candidate with 
+ * the largest distance to all colors that have been selected so far. 
+ * Afterwards, the colors are optimized locally, by moving each color 
+ * in the sRGB cube as long as this increases the distance to its 
+ * nearest neighbor. All distances are Euclidean distances in the OKLab
+ * color space. The results are deterministic.<br>
+ * <br>
+ * The palettes may be seeded with given colors, for example, with the
+ * colors of a qualitative ColorBrewer scheme. These colors will be the
+ * first colors of the palette, and will not be modified.
+ */
+public class DistinctPalettes
+{
+    /**
+     * The number of levels for each component of the candidate grid
+     */
+    private static final int CANDIDATE_LEVELS = 32;
+    
+    /**
+     * The step sizes, in sRGB units, that are used for the local 
+     * optimization, in descending order
+     */
+    private static final int OPTIMIZATION_STEPS[] = { 8, 4, 2, 1 };
+    
+    /**
+     * The maximum number of optimization rounds for each step size
+     */
+    private static final int MAX_ROUNDS_PER_STEP = 8;
+    
+    /**
+     * The minimum number of candidates for which the farthest-point
+     * update is performed in parallel
+     */
+    private static final int MIN_PARALLEL_CANDIDATES = 1 << 12;
+    
+    /**
+     * The maximum chroma of colors in the sRGB gamut, in OKLab
+     */
+    private static final double MAX_CHROMA = 0.33;
+    
+    /**
+     * Creates an {@link IndexedColorMap1D} with the given number of 
+     * maximally distinct colors
+     * 
+     * @param count The number of colors
+     * @return The {@link IndexedColorMap1D}
+     * @throws IllegalArgumentException If the count is negative
+     */
+    public static IndexedColorMap1D create(int count)
+    {
+        return create(count, new int[0], 0.0, 1.0, 0.0, MAX_CHROMA);
+    }
+    
+    /**
+     * Creates an {@link IndexedColorMap1D} with the given number of 
+     * maximally distinct colors, whose lightness and chroma in the 
+     * OKLab color space are in the given ranges. The lightness is in
+     * [0,1]. The chroma of colors in the sRGB gamut is in [0, 0.33].
+     * 
+     * @param count The number of colors
+     * @param minLightness The minimum lightness
+     * @param maxLightness The maximum lightness
+     * @param minChroma The minimum chroma
+     * @param maxChroma The maximum chroma
+     * @return The {@link IndexedColorMap1D}
+     * @throws IllegalArgumentException If the count is negative, the
+     * minimum chroma is negative, the ranges are empty, or there are 
+     * fewer candidate colors in the given ranges than the requested 
+     * number of colors
+     */
+    public static IndexedColorMap1D create(int count, 
+        double minLightness, double maxLightness, 
+        double minChroma, double maxChroma)
+    {
+        return create(count, new int[0], 
+            minLightness, maxLightness, minChroma, maxChroma);
+    }
+    
+    /**
+     * Creates an {@link IndexedColorMap1D} with the given number of 
+     * maximally distinct colors, whose first colors are the given 
+     * seed colors. The seed colors are not required to be in the given 
+     * lightness and chroma ranges.<br>
+     * <br>
+     * See {@link #create(int, double, double, double, double)} for 
+     * details about the ranges.
+     * 
+     * @param count The number of colors
+     * @param seedArgbs The ARGB seed colors
+     * @param minLightness The minimum lightness
+     * @param maxLightness The maximum lightness
+     * @param minChroma The minimum chroma
+     * @param maxChroma The maximum chroma
+     * @return The {@link IndexedColorMap1D}
+     * @throws IllegalArgumentException If the count is negative or 
+     * smaller than the number of seed colors, the minimum chroma is 
+     * negative, the ranges are empty, or 
+     * there are fewer candidate colors in the given ranges than the 
+     * requested number of colors
+     */
+    public static IndexedColorMap1D create(int count, int seedArgbs[], 
+        double minLightness, double maxLightness, 
+        double minChroma, double maxChroma)
+    {
+        if (count < 0)
+        {
+            throw new IllegalArgumentException(
+                "The count may not be negative, but is " + count);
+        }
+        if (count < seedArgbs.length)
+        {
+            throw new IllegalArgumentException("The count is " + count 
+                + ", but " + seedArgbs.length + " seed colors are given");
+        }
+        if (!(minChroma >= 0.0))
+        {
+            throw new IllegalArgumentException(
+                "The minimum chroma may not be negative, but is " 
+                + minChroma);
+        }
+        if (!(minLightness <= maxLightness) || !(minChroma <= maxChroma))
+        {
+            throw new IllegalArgumentException("Invalid ranges: " 
+                + "lightness [" + minLightness + "," + maxLightness + "], "
+                + "chroma [" + minChroma + "," + maxChroma + "]");
+        }
+        Range range = new Range(
+            minLightness, maxLightness, minChroma, maxChroma);
+        int argbs[] = new int[count];
+        double labs[] = new double[count * 3];
+        for (int i = 0; i < seedArgbs.length; i++)
+        {
+            argbs[i] = seedArgbs[i] | 0xFF000000;
+            ColorSpaces.argbToOkLab(argbs[i], labs, i * 3);
+        }
+        selectFarthestPoints(argbs, labs, seedArgbs.length, range);
+        optimize(argbs, labs, seedArgbs.length, range);
+        return IndexedColorMaps.create(argbs);
+    }
+    
+    /**
+     * Performs the farthest-point sampling. The given arrays contain the 
+     * ARGB and OKLab coordinates of the colors, where the given number 
+     * of colors is already fixed. The remaining colors will be selected
+     * from the candidates.
+     * 
+     * @param argbs The ARGB colors
+     * @param labs The OKLab coordinates of the colors
+     * @param fixedCount The number of colors that are already fixed
+     * @param range The {@link Range} for the candidates
+     * @throws IllegalArgumentException If there are not enough candidates
+     */
+    private static void selectFarthestPoints(
+        int argbs[], double labs[], int fixedCount, Range range)
+    {
+        int count = argbs.length;
+        if (fixedCount == count)
+        {
+            return;
+        }
+        int candidateArgbs[] = createCandidates(range);
+        int m = candidateArgbs.length;
+        if (m < count - fixedCount)
+        {
+            throw new IllegalArgumentException("There are only " + m 
+                + " candidate colors in the given ranges, but " 
+                + (count - fixedCount) + " colors are required");
+        }
+        double candidateLabs[] = new double[m * 3];
+        for (int c = 0; c < m; c++)
+        {
+            ColorSpaces.argbToOkLab(candidateArgbs[c], candidateLabs, c * 3);
+        }
+        
+        // The squared distances of the candidates to the nearest selected 
+        // color. Initially, when no colors are fixed, the candidate that 
+        // is farthest from the center of the OKLab range (medium gray) 
+        // is selected first.
+        double minDistances[] = new double[m];
+        for (int c = 0; c < m; c++)
+        {
+            if (fixedCount == 0)
+            {
+                double dL = candidateLabs[c * 3] - 0.5;
+                double da = candidateLabs[c * 3 + 1];
+                double db = candidateLabs[c * 3 + 2];
+                minDistances[c] = dL * dL + da * da + db * db;
+            }
+            else
+            {
+                minDistances[c] = Double.POSITIVE_INFINITY;
+            }
+        }
+        for (int i = 0; i < fixedCount; i++)
+        {
+            updateDistances(labs, i, candidateLabs, minDistances);
+        }
+        for (int i = fixedCount; i < count; i++)
+        {
+            int best = 0;
+            for (int c = 1; c < m; c++)
+            {
+                if (minDistances[c] > minDistances[best])
+                {
+                    best = c;
+                }
+            }
+            argbs[i] = candidateArgbs[best];
+            System.arraycopy(candidateLabs, best * 3, labs, i * 3, 3);
+            updateDistances(labs, i, candidateLabs, minDistances);
+        }
+    }
+    
+    /**
+     * Update the squared distances of the candidates to the nearest 
+     * selected color, after the color with the given index was selected
+     * 
+     * @param labs The OKLab coordinates of the selected colors
+     * @param index The index of the newly selected color
+     * @param candidateLabs The OKLab coordinates of the candidates
+     * @param minDistances The squared distances
+     */
+    private static void updateDistances(double labs[], int index, 
+        double candidateLabs[], double minDistances[])
+    {
+        double L = labs[index * 3 + 0];
+        double a = labs[index * 3 + 1];
+        double b = labs[index * 3 + 2];
+        IntStream stream = IntStream.range(0, minDistances.length);
+        if (minDistances.length >= MIN_PARALLEL_CANDIDATES)
+        {
+            stream = stream.parallel();
+        }
+        stream.forEach(c -> 
+        {
+            double dL = candidateLabs[c * 3 + 0] - L;
+            double da = candidateLabs[c * 3 + 1] - a;
+            double db = candidateLabs[c * 3 + 2] - b;
+            double d = dL * dL + da * da + db * db;
+            if (d < minDistances[c])
+            {
+                minDistances[c] = d;
+            }
+        });
+    }
+    
+    /**
+     * Creates the candidate colors, which are the colors on a regular
+     * grid in the sRGB cube that are in the given range
+     * 
+     * @param range The {@link Range}
+     * @return The candidate colors
+     */
+    private static int[] createCandidates(Range range)
+    {
+        int levels = CANDIDATE_LEVELS;
+        return IntStream.range(0, levels * levels * levels)
+            .map(i -> 
+            {
+                int r = level(i / (levels * levels));
+                int g = level((i / levels) % levels);
+                int b = level(i % levels);
+                return 0xFF000000 | (r << 16) | (g << 8) | b;
+            })
+            .filter(range::contains)
+            .toArray();
+    }
+    
+    /**
+     * Returns the sRGB component value for the given candidate grid level
+     * 
+     * @param level The level
+     * @return The component value
+     */
+    private static int level(int level)
+    {
+        return (level * 255 + (CANDIDATE_LEVELS - 1) / 2) 
+            / (CANDIDATE_LEVELS - 1);
+    }
+    
+    /**
+     * Optimize the given colors locally. Starting with a large step size,
+     * each color that is not fixed is moved along the axes of the sRGB
+     * cube, to the position that maximizes the distance to its nearest 
+     * neighbor, as long as this distance increases.<br>
+     * <br>
+     * In each round, the moves for all colors are computed in parallel,
+     * based on the current colors. The moves are then applied one by 
+     * one, in a fixed order, if they still increase the distance, so 
+     * that the result does not depend on the scheduling.
+     * 
+     * @param argbs The ARGB colors
+     * @param labs The OKLab coordinates of the colors
+     * @param fixedCount The number of colors that are fixed
+     * @param range The {@link Range}
+     */
+    private static void optimize(
+        int argbs[], double labs[], int fixedCount, Range range)
+    {
+        int count = argbs.length;
+        if (count - fixedCount <= 0 || count < 2)
+        {
+            return;
+        }
+        for (int step : OPTIMIZATION_STEPS)
+        {
+            for (int round = 0; round < MAX_ROUNDS_PER_STEP; round++)
+            {
+                int proposals[] = IntStream.range(fixedCount, count)
+                    .parallel()
+                    .map(i -> propose(argbs, labs, i, step, range))
+                    .toArray();
+                boolean changed = false;
+                double lab[] = new double[3];
+                for (int i = fixedCount; i < count; i++)
+                {
+                    int proposal = proposals[i - fixedCount];
+                    if (proposal == argbs[i])
+                    {
+                        continue;
+                    }
+                    ColorSpaces.argbToOkLab(proposal, lab, 0);
+                    double current = 
+                        nearestDistance(labs, i, labs, i * 3);
+                    double moved = nearestDistance(labs, i, lab, 0);
+                    if (moved > current)
+                    {
+                        argbs[i] = proposal;
+                        System.arraycopy(lab, 0, labs, i * 3, 3);
+                        changed = true;
+                    }
+                }
+                if (!changed)
+                {
+                    break;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Computes the best move for the color with the given index. 
+     * 
+     * @param argbs The ARGB colors
+     * @param labs The OKLab coordinates of the colors
+     * @param index The index of the color
+     * @param step The step size
+     * @param range The {@link Range}
+     * @return The ARGB color after the move. This is the current color
+     * if no move increases the distance to the nearest neighbor.
+     */
+    private static int propose(int argbs[], double labs[], 
+        int index, int step, Range range)
+    {
+        int argb = argbs[index];
+        int best = argb;
+        double bestDistance = nearestDistance(labs, index, labs, index * 3);
+        double lab[] = new double[3];
+        for (int shift = 0; shift < 24; shift += 8)
+        {
+            int component = (argb >> shift) & 0xFF;
+            for (int direction = -1; direction <= 1; direction += 2)
+            {
+                int moved = component + direction * step;
+                if (moved < 0 || moved > 255)
+                {
+                    continue;
+                }
+                int candidate = (argb & ~(0xFF << shift)) | (moved << shift);
+                if (!range.contains(candidate))
+                {
+                    continue;
+                }
+                ColorSpaces.argbToOkLab(candidate, lab, 0);
+                double distance = nearestDistance(labs, index, lab, 0);
+                if (distance > bestDistance)
+                {
+                    bestDistance = distance;
+                    best = candidate;
+                }
+            }
+        }
+        return best;
+    }
+    
+    /**
+     * Computes the squared distance from the given OKLab coordinates to 
+     * the nearest color, ignoring the color with the given index
+     * 
+     * @param labs The OKLab coordinates of the colors
+     * @param index The index of the color to ignore
+     * @param lab The array containing the OKLab coordinates
+     * @param offset The offset of the coordinates in the array
+     * @return The squared distance
+     */
+    private static double nearestDistance(
+        double labs[], int index, double lab[], int offset)
+    {
+        double L = lab[offset + 0];
+        double a = lab[offset + 1];
+        double b = lab[offset + 2];
+        double min = Double.POSITIVE_INFINITY;
+        int count = labs.length / 3;
+        for (int j = 0; j < count; j++)
+        {
+            if (j != index)
+            {
+                double dL = labs[j * 3 + 0] - L;
+                double da = labs[j * 3 + 1] - a;
+                double db = labs[j * 3 + 2] - b;
+                min = Math.min(min, dL * dL + da * da + db * db);
+            }
+        }
+        return min;
+    }
+    
+    /**
+     * A range of lightness and chroma in the OKLab color space
+     */
+    private static final class Range
+    {
+        /**
+         * The minimum lightness
+         */
+        private final double minLightness;
+        
+        /**
+         * The maximum lightness
+         */
+        private final double maxLightness;
+        
+        /**
+         * The minimum squared chroma
+         */
+        private final double minChromaSquared;
+        
+        /**
+         * The maximum squared chroma
+         */
+        private final double maxChromaSquared;
+        
+        /**
+         * Creates a new instance
+         * 
+         * @param minLightness The minimum lightness
+         * @param maxLightness The maximum lightness
+         * @param minChroma The minimum chroma
+         * @param maxChroma The maximum chroma
+         */
+        Range(double minLightness, double maxLightness, 
+            double minChroma, double maxChroma)
+        {
+            this.minLightness = minLightness;
+            this.maxLightness = maxLightness;
+            this.minChromaSquared = minChroma * minChroma;
+            this.maxChromaSquared = maxChroma * maxChroma;
+        }
+        
+        /**
+         * Returns whether the given ARGB color is in this range
+         * 
+         * @param argb The ARGB color
+         * @return Whether the color is in this range
+         */
+        boolean contains(int argb)
+        {
+            double lab[] = new double[3];
+            ColorSpaces.argbToOkLab(argb, lab, 0);
+            if (lab[0] < minLightness || lab[0] > maxLightness)
+            {
+                return false;
+            }
+            double chromaSquared = lab[1] * lab[1] + lab[2] * lab[2];
+            return chromaSquared >= minChromaSquared && 
+                chromaSquared <= maxChromaSquared;
+        }
+    }
+    
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private DistinctPalettes()
+    {
+        // Private constructor to prevent instantiation
+    }
+}
@@ -58,4 +58,23 @@ public interface IndexedColorMap1D
      * negative or not smaller than the size
      */
     Color getColor(int index);
+    
+    /**
+     * Returns the ARGB value of the color at the given index. The same
+     * range considerations as for {@link #getColor(int)} apply.<br>
+     * <br>
+     * The default implementation returns the RGB value of the color that
+     * is returned by {@link #getColor(int)}. Implementations that are
+     * backed by ARGB values should override this method to avoid the 
+     * creation of <code>Color</code> objects.
+     * 
+     * @param index The index
+     * @return The ARGB color
+     * @throws IndexOutOfBoundsException May be thrown if the index is 
+     * negative or not smaller than the size
+     */
+    default int getArgb(int index)
+    {
+        return getColor(index).getRGB();
+    }
 }
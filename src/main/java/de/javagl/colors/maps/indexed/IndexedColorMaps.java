@@ -27,10 +27,8 @@
 package de.javagl.colors.maps.indexed;
 
 import java.awt.Color;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.List;
 import java.util.Objects;
 
 /**
@@ -59,21 +57,43 @@ public class IndexedColorMaps
      */
     public static IndexedColorMap1D create(Collection<? extends Color> colors)
     {
-        List<Color> resultColors = new ArrayList<Color>(colors);
-        return new IndexedColorMap1D()
+        Color resultColors[] = colors.toArray(new Color[0]);
+        return new DefaultIndexedColorMap1D(resultColors);
+    }
+    
+    /**
+     * Creates an {@link IndexedColorMap1D} of the given ARGB colors. A 
+     * copy of the given array will be stored internally.
+     * 
+     * @param argbs The ARGB colors
+     * @return The {@link IndexedColorMap1D}
+     */
+    public static IndexedColorMap1D create(int ... argbs)
+    {
+        return new DefaultIndexedColorMap1D(argbs.clone());
+    }
+    
+    /**
+     * Returns a new array containing the ARGB values of all colors of
+     * the given {@link IndexedColorMap1D}
+     * 
+     * @param indexedColorMap The {@link IndexedColorMap1D}
+     * @return The ARGB values
+     */
+    public static int[] toArgbs(IndexedColorMap1D indexedColorMap)
+    {
+        if (indexedColorMap instanceof DefaultIndexedColorMap1D)
         {
-            @Override
-            public int getSize()
-            {
-                return resultColors.size();
-            }
-            
-            @Override
-            public Color getColor(int index)
-            {
-                return resultColors.get(index);
-            }
-        };
+            DefaultIndexedColorMap1D defaultIndexedColorMap = 
+                (DefaultIndexedColorMap1D)indexedColorMap;
+            return defaultIndexedColorMap.getArgbs().clone();
+        }
+        int argbs[] = new int[indexedColorMap.getSize()];
+        for (int i = 0; i < argbs.length; i++)
+        {
+            argbs[i] = indexedColorMap.getArgb(i);
+        }
+        return argbs;
     }
     
     /**
@@ -99,13 +119,16 @@ public class IndexedColorMaps
             @Override
             public Color getColor(int index)
             {
-                int i = index % getSize();
-                if (index < 0)
-                {
-                    i += getSize();
-                }
+                int i = Math.floorMod(index, getSize());
                 return delegate.getColor(i);
             }
+            
+            @Override
+            public int getArgb(int index)
+            {
+                int i = Math.floorMod(index, getSize());
+                return delegate.getArgb(i);
+            }
         };
     }
     
@@ -132,9 +155,16 @@ public class IndexedColorMaps
             @Override
             public Color getColor(int index)
             {
-                int i = Math.max(0, Math.min(getSize(), index));
+                int i = Math.max(0, Math.min(getSize() - 1, index));
                 return delegate.getColor(i);
             }
+            
+            @Override
+            public int getArgb(int index)
+            {
+                int i = Math.max(0, Math.min(getSize() - 1, index));
+                return delegate.getArgb(i);
+            }
         };
     }
     
@@ -0,0 +1,377 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors.maps.indexed;
+
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+/**
+ * A class for mapping arrays of indices to ARGB colors of an 
+ * {@link IndexedColorMap1D}. This is intended for colorizing images 
+ * where each pixel contains an index, like a category or label. <br>
+ * <br>
+ * The colors of the color map are copied into an array when an instance
+ * of this class is created, so later changes of the color map are not 
+ * reflected. Indices that are out of range are handled according to 
+ * the {@link IndexingMode}. The elements of <code>byte</code> and 
+ * <code>short</code> arrays are interpreted as unsigned values.<br>
+ * <br>
+ * Instances of this class are immutable and thread-safe.
+ */
+public final class IndexedColorizer
+{
+    /**
+     * The minimum number of elements that one task of the parallel
+     * bulk methods processes
+     */
+    private static final int PARALLEL_CHUNK_SIZE = 1 << 16;
+    
+    /**
+     * The ARGB colors
+     */
+    private final int argbs[];
+    
+    /**
+     * The {@link IndexingMode}
+     */
+    private final IndexingMode indexingMode;
+    
+    /**
+     * The mask for wrapping indices, if the size of the color map is a 
+     * power of two, or -1 otherwise
+     */
+    private final int mask;
+    
+    /**
+     * The ARGB colors for all unsigned byte values
+     */
+    private final int byteArgbs[];
+    
+    /**
+     * The ARGB colors for all unsigned short values. This is created
+     * lazily, when it is needed for the first time.
+     */
+    private volatile int shortArgbs[];
+    
+    /**
+     * Creates a new instance
+     * 
+     * @param colorMap The {@link IndexedColorMap1D}
+     * @param indexingMode The {@link IndexingMode}
+     * @throws IllegalArgumentException If the given color map is empty
+     */
+    public IndexedColorizer(
+        IndexedColorMap1D colorMap, IndexingMode indexingMode)
+    {
+        Objects.requireNonNull(colorMap, "The colorMap may not be null");
+        this.indexingMode = Objects.requireNonNull(
+            indexingMode, "The indexingMode may not be null");
+        int size = colorMap.getSize();
+        if (size <= 0)
+        {
+            throw new IllegalArgumentException(
+                "The color map may not be empty");
+        }
+        this.argbs = new int[size];
+        for (int i = 0; i < size; i++)
+        {
+            argbs[i] = colorMap.getArgb(i);
+        }
+        this.mask = Integer.bitCount(size) == 1 ? size - 1 : -1;
+        this.byteArgbs = createArgbs(256);
+    }
+    
+    /**
+     * Creates an array containing the colors for all indices from 0
+     * to the given size (exclusive)
+     * 
+     * @param size The size
+     * @return The array
+     */
+    private int[] createArgbs(int size)
+    {
+        int result[] = new int[size];
+        for (int i = 0; i < size; i++)
+        {
+            result[i] = getArgb(i);
+        }
+        return result;
+    }
+    
+    /**
+     * Returns the array containing the colors for all unsigned short
+     * values, creating it if necessary
+     * 
+     * @return The array
+     */
+    private int[] getShortArgbs()
+    {
+        int result[] = shortArgbs;
+        if (result == null)
+        {
+            result = createArgbs(65536);
+            shortArgbs = result;
+        }
+        return result;
+    }
+    
+    /**
+     * Returns the {@link IndexingMode}
+     * 
+     * @return The {@link IndexingMode}
+     */
+    public IndexingMode getIndexingMode()
+    {
+        return indexingMode;
+    }
+    
+    /**
+     * Returns the ARGB color for the given index
+     * 
+     * @param index The index
+     * @return The ARGB color
+     */
+    public int getArgb(int index)
+    {
+        return argbs[toValidIndex(index)];
+    }
+    
+    /**
+     * Converts the given index into a valid index, according to the
+     * {@link IndexingMode}
+     * 
+     * @param index The index
+     * @return The valid index
+     */
+    private int toValidIndex(int index)
+    {
+        if (indexingMode == IndexingMode.CLAMPING)
+        {
+            return Math.max(0, Math.min(argbs.length - 1, index));
+        }
+        if (mask != -1)
+        {
+            return index & mask;
+        }
+        return Math.floorMod(index, argbs.length);
+    }
+    
+    /**
+     * Writes the ARGB colors for the specified range of the given indices
+     * into the given target array
+     * 
+     * @param indices The indices
+     * @param indicesOffset The offset in the indices array
+     * @param target The target array
+     * @param targetOffset The offset in the target array
+     * @param length The number of indices
+     * @throws IndexOutOfBoundsException If the given offsets and length
+     * cause an access outside of the arrays
+     */
+    public void colorize(int indices[], int indicesOffset, 
+        int target[], int targetOffset, int length)
+    {
+        int localArgbs[] = argbs;
+        if (indexingMode == IndexingMode.CLAMPING)
+        {
+            int max = localArgbs.length - 1;
+            for (int i = 0; i < length; i++)
+            {
+                int index = indices[indicesOffset + i];
+                int valid = Math.max(0, Math.min(max, index));
+                target[targetOffset + i] = localArgbs[valid];
+            }
+        }
+        else if (mask != -1)
+        {
+            int localMask = mask;
+            for (int i = 0; i < length; i++)
+            {
+                int index = indices[indicesOffset + i];
+                target[targetOffset + i] = localArgbs[index & localMask];
+            }
+        }
+        else
+        {
+            int size = localArgbs.length;
+            for (int i = 0; i < length; i++)
+            {
+                int index = indices[indicesOffset + i];
+                target[targetOffset + i] = 
+                    localArgbs[Math.floorMod(index, size)];
+            }
+        }
+    }
+    
+    /**
+     * Writes the ARGB colors for the specified range of the given unsigned
+     * indices into the given target array
+     * 
+     * @param indices The indices
+     * @param indicesOffset The offset in the indices array
+     * @param target The target array
+     * @param targetOffset The offset in the target array
+     * @param length The number of indices
+     * @throws IndexOutOfBoundsException If the given offsets and length
+     * cause an access outside of the arrays
+     */
+    public void colorize(short indices[], int indicesOffset, 
+        int target[], int targetOffset, int length)
+    {
+        int localArgbs[] = getShortArgbs();
+        for (int i = 0; i < length; i++)
+        {
+            int index = indices[indicesOffset + i] & 0xFFFF;
+            target[targetOffset + i] = localArgbs[index];
+        }
+    }
+    
+    /**
+     * Writes the ARGB colors for the specified range of the given unsigned
+     * indices into the given target array
+     * 
+     * @param indices The indices
+     * @param indicesOffset The offset in the indices array
+     * @param target The target array
+     * @param targetOffset The offset in the target array
+     * @param length The number of indices
+     * @throws IndexOutOfBoundsException If the given offsets and length
+     * cause an access outside of the arrays
+     */
+    public void colorize(byte indices[], int indicesOffset, 
+        int target[], int targetOffset, int length)
+    {
+        int localArgbs[] = byteArgbs;
+        for (int i = 0; i < length; i++)
+        {
+            int index = indices[indicesOffset + i] & 0xFF;
+            target[targetOffset + i] = localArgbs[index];
+        }
+    }
+    
+    /**
+     * Writes the ARGB colors for the given indices into the given 
+     * target array, using multiple threads for large arrays
+     * 
+     * @param indices The indices
+     * @param target The target array
+     * @throws IndexOutOfBoundsException If the target array is smaller
+     * than the indices array
+     */
+    public void colorizeParallel(int indices[], int target[])
+    {
+        int n = indices.length;
+        checkLength(n, target.length);
+        forEachChunk(n, (start, length) -> 
+            colorize(indices, start, target, start, length));
+    }
+    
+    /**
+     * Writes the ARGB colors for the given unsigned indices into the 
+     * given target array, using multiple threads for large arrays
+     * 
+     * @param indices The indices
+     * @param target The target array
+     * @throws IndexOutOfBoundsException If the target array is smaller
+     * than the indices array
+     */
+    public void colorizeParallel(short indices[], int target[])
+    {
+        int n = indices.length;
+        checkLength(n, target.length);
+        getShortArgbs();
+        forEachChunk(n, (start, length) -> 
+            colorize(indices, start, target, start, length));
+    }
+    
+    /**
+     * Writes the ARGB colors for the given unsigned indices into the 
+     * given target array, using multiple threads for large arrays
+     * 
+     * @param indices The indices
+     * @param target The target array
+     * @throws IndexOutOfBoundsException If the target array is smaller
+     * than the indices array
+     */
+    public void colorizeParallel(byte indices[], int target[])
+    {
+        int n = indices.length;
+        checkLength(n, target.length);
+        forEachChunk(n, (start, length) -> 
+            colorize(indices, start, target, start, length));
+    }
+    
+    /**
+     * Interface for a consumer of a chunk of array elements
+     */
+    private interface ChunkConsumer
+    {
+        /**
+         * Process the specified chunk
+         * 
+         * @param start The start index
+         * @param length The length
+         */
+        void accept(int start, int length);
+    }
+    
+    /**
+     * Divide the range of the given size into chunks, and pass each
+     * of them to the given consumer, in parallel
+     * 
+     * @param n The size
+     * @param consumer The consumer
+     */
+    private static void forEachChunk(int n, ChunkConsumer consumer)
+    {
+        int chunks = (n + PARALLEL_CHUNK_SIZE - 1) / PARALLEL_CHUNK_SIZE;
+        IntStream.range(0, chunks).parallel().forEach(c -> 
+        {
+            int start = c * PARALLEL_CHUNK_SIZE;
+            int length = Math.min(PARALLEL_CHUNK_SIZE, n - start);
+            consumer.accept(start, length);
+        });
+    }
+    
+    /**
+     * Make sure that the target length is not smaller than the source
+     * length
+     * 
+     * @param sourceLength The source length
+     * @param targetLength The target length
+     * @throws IndexOutOfBoundsException If the target length is smaller
+     */
+    private static void checkLength(int sourceLength, int targetLength)
+    {
+        if (targetLength < sourceLength)
+        {
+            throw new IndexOutOfBoundsException(
+                "Target array has length " + targetLength 
+                + ", expected at least " + sourceLength);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors.palettes;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import de.javagl.colors.brewer.ColorSchemeType;
+
+/**
+ * Implementation of a {@link PaletteProvider} that is defined by an 
+ * index resource and a binary data resource.<br>
+ * <br>
+ * The index is a UTF-8 text file. Empty lines and lines that start 
+ * with <code>#</code> are ignored. The header lines 
+ * <code>pack=</code><i>name</i> and <code>data=</code><i>path</i>
+ * define the name of the pack and the data resource, relative to the 
+ * index. All other lines have the form 
+ * <code><i>name</i>;<i>type</i>;<i>size</i>;<i>offset</i></code>, 
+ * where the type is the name of a <code>ColorSchemeType</code>, and 
+ * the offset is the byte offset of the colors in the data resource. 
+ * The data resource contains the colors as 3-byte RGB triples.
+ */
+class IndexedResourcePaletteProvider implements PaletteProvider
+{
+    /**
+     * The URL of the data resource
+     */
+    private final URL dataUrl;
+    
+    /**
+     * The palette descriptors
+     */
+    private final List<PaletteDescriptor> descriptors;
+    
+    /**
+     * The byte offsets of the palettes in the data resource
+     */
+    private final Map<PaletteDescriptor, Long> offsets;
+    
+    /**
+     * Creates a new instance from the index at the given URL
+     * 
+     * @param indexUrl The URL of the index resource
+     * @throws IOException If the index can not be read or is invalid
+     */
+    IndexedResourcePaletteProvider(URL indexUrl) throws IOException
+    {
+        String pack = null;
+        String data = null;
+        List<PaletteDescriptor> descriptors = 
+            new ArrayList<PaletteDescriptor>();
+        Map<PaletteDescriptor, Long> offsets = 
+            new HashMap<PaletteDescriptor, Long>();
+        try (BufferedReader br = new BufferedReader(new InputStreamReader(
+            indexUrl.openStream(), StandardCharsets.UTF_8)))
+        {
+            int lineNumber = 0;
+            while (true)
+            {
+                String line = br.readLine();
+                if (line == null)
+                {
+                    break;
+                }
+                lineNumber++;
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#"))
+                {
+                    continue;
+                }
+                if (line.startsWith("pack="))
+                {
+                    pack = line.substring(5);
+                    continue;
+                }
+                if (line.startsWith("data="))
+                {
+                    data = line.substring(5);
+                    continue;
+                }
+                if (pack == null)
+                {
+                    throw new IOException(indexUrl + ", line " + lineNumber 
+                        + ": No pack name defined before the first palette");
+                }
+                String tokens[] = line.split(";");
+                if (tokens.length != 4)
+                {
+                    throw new IOException(indexUrl + ", line " + lineNumber 
+                        + ": Expected name;type;size;offset, but found " 
+                        + line);
+                }
+                try
+                {
+                    ColorSchemeType type = ColorSchemeType.valueOf(tokens[1]);
+                    int size = Integer.parseInt(tokens[2]);
+                    long offset = Long.parseLong(tokens[3]);
+                    PaletteDescriptor descriptor = 
+                        new PaletteDescriptor(pack, tokens[0], type, size);
+                    descriptors.add(descriptor);
+                    offsets.put(descriptor, offset);
+                }
+                catch (IllegalArgumentException e)
+                {
+                    throw new IOException(indexUrl + ", line " + lineNumber 
+                        + ": " + e.getMessage(), e);
+                }
+            }
+        }
+        if (data == null)
+        {
+            throw new IOException(indexUrl + ": No data resource defined");
+        }
+        this.dataUrl = new URL(indexUrl, data);
+        this.descriptors = Collections.unmodifiableList(descriptors);
+        this.offsets = offsets;
+    }
+    
+    @Override
+    public List<PaletteDescriptor> getPalettes()
+    {
+        return descriptors;
+    }
+    
+    @Override
+    public int[] loadArgbs(PaletteDescriptor descriptor) throws IOException
+    {
+        Long offset = offsets.get(descriptor);
+        if (offset == null)
+        {
+            throw new IllegalArgumentException(
+                "Unknown palette: " + descriptor);
+        }
+        byte rgbs[] = new byte[descriptor.getSize() * 3];
+        try (InputStream inputStream = dataUrl.openStream())
+        {
+            long remaining = offset;
+            while (remaining > 0)
+            {
+                long skipped = inputStream.skip(remaining);
+                if (skipped <= 0)
+                {
+                    throw new IOException(
+                        "Unexpected end of data in " + dataUrl);
+                }
+                remaining -= skipped;
+            }
+            new DataInputStream(inputStream).readFully(rgbs);
+        }
+        int argbs[] = new int[descriptor.getSize()];
+        for (int i = 0; i < argbs.length; i++)
+        {
+            int r = rgbs[i * 3 + 0] & 0xFF;
+            int g = rgbs[i * 3 + 1] & 0xFF;
+            int b = rgbs[i * 3 + 2] & 0xFF;
+            argbs[i] = 0xFF000000 | (r << 16) | (g << 8) | b;
+        }
+        return argbs;
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors.palettes;
+
+import java.util.Objects;
+
+import de.javagl.colors.brewer.ColorSchemeType;
+
+/**
+ * A compact description of a palette that is offered by a 
+ * {@link PaletteProvider}. It contains the name, type and size of the
+ * palette, but not its colors. The colors are obtained from the 
+ * {@link PaletteRegistry} when they are first requested.
+ */
+public final class PaletteDescriptor
+{
+    /**
+     * The name of the pack that the palette belongs to
+     */
+    private final String pack;
+    
+    /**
+     * The name of the palette
+     */
+    private final String name;
+    
+    /**
+     * The type of the palette
+     */
+    private final ColorSchemeType type;
+    
+    /**
+     * The number of colors in the palette
+     */
+    private final int size;
+    
+    /**
+     * Creates a new instance
+     * 
+     * @param pack The name of the pack that the palette belongs to
+     * @param name The name of the palette
+     * @param type The type of the palette
+     * @param size The number of colors in the palette
+     * @throws NullPointerException If any argument is <code>null</code>
+     * @throws IllegalArgumentException If the pack name contains a 
+     * <code>'/'</code> character, or the size is not positive
+     */
+    public PaletteDescriptor(
+        String pack, String name, ColorSchemeType type, int size)
+    {
+        this.pack = Objects.requireNonNull(pack, "The pack may not be null");
+        this.name = Objects.requireNonNull(name, "The name may not be null");
+        this.type = Objects.requireNonNull(type, "The type may not be null");
+        if (pack.indexOf('/') != -1)
+        {
+            throw new IllegalArgumentException(
+                "The pack name may not contain '/', but is " + pack);
+        }
+        if (size <= 0)
+        {
+            throw new IllegalArgumentException(
+                "The size must be positive, but is " + size);
+        }
+        this.size = size;
+    }
+    
+    /**
+     * Returns the name of the pack that the palette belongs to
+     * 
+     * @return The pack name
+     */
+    public String getPack()
+    {
+        return pack;
+    }
+    
+    /**
+     * Returns the name of the palette
+     * 
+     * @return The name
+     */
+    public String getName()
+    {
+        return name;
+    }
+    
+    /**
+     * Returns the qualified name of the palette, which consists of the 
+     * pack name and the name, separated by a <code>'/'</code>
+     * 
+     * @return The qualified name
+     */
+    public String getQualifiedName()
+    {
+        return pack + "/" + name;
+    }
+    
+    /**
+     * Returns the type of the palette
+     * 
+     * @return The type
+     */
+    public ColorSchemeType getType()
+    {
+        return type;
+    }
+    
+    /**
+     * Returns the number of colors in the palette
+     * 
+     * @return The number of colors
+     */
+    public int getSize()
+    {
+        return size;
+    }
+    
+    @Override
+    public String toString()
+    {
+        return "PaletteDescriptor[" + getQualifiedName() 
+            + ", type=" + type + ", size=" + size + "]";
+    }
+}
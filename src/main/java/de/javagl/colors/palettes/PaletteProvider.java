@@ -0,0 +1,65 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors.palettes;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Interface for classes that offer palettes to the 
+ * {@link PaletteRegistry}.<br>
+ * <br>
+ * Implementations can be registered for the <code>ServiceLoader</code>
+ * by listing them in a 
+ * <code>META-INF/services/de.javagl.colors.palettes.PaletteProvider</code>
+ * resource. They must then have a public no-argument constructor.<br>
+ * <br>
+ * The {@link #getPalettes()} method is called once, when the registry 
+ * is created, and should be cheap. The colors of a palette are only 
+ * loaded when they are first requested from the registry.
+ */
+public interface PaletteProvider
+{
+    /**
+     * Returns the descriptors of all palettes of this provider
+     * 
+     * @return The {@link PaletteDescriptor} instances
+     */
+    List<PaletteDescriptor> getPalettes();
+    
+    /**
+     * Load the ARGB colors of the given palette. The given descriptor 
+     * is one of the descriptors that have been returned by 
+     * {@link #getPalettes()}. The returned array must have the size of
+     * the palette. 
+     * 
+     * @param descriptor The {@link PaletteDescriptor}
+     * @return The ARGB colors
+     * @throws IOException If the colors can not be loaded
+     */
+    int[] loadArgbs(PaletteDescriptor descriptor) throws IOException;
+}
@@ -0,0 +1,416 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors.palettes;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+import de.javagl.colors.brewer.ColorSchemeType;
+import de.javagl.colors.maps.ColorMap1D;
+import de.javagl.colors.maps.ColorMaps;
+
+/**
+ * A registry of palettes from different {@link PaletteProvider} 
+ * instances.<br>
+ * <br>
+ * When the registry is created, it only collects the 
+ * {@link PaletteDescriptor} instances of all providers. The colors of 
+ * a palette are loaded when they are requested for the first time, 
+ * and cached afterwards. How much work is required for collecting the
+ * descriptors depends on the provider: Index resources only contain 
+ * the descriptors, but the provider for the ColorBrewer schemes reads 
+ * all ColorBrewer colors when it is asked for its descriptors. 
+ * Palettes are identified by their qualified name, which consists of 
+ * the pack name and the palette name, for example, 
+ * <code>"colorbrewer/YlOrRd"</code>.<br>
+ * <br>
+ * The {@link #getDefault() default registry} contains the palettes of
+ * all providers that are found with the <code>ServiceLoader</code>,
+ * and of all index resources that are found at 
+ * {@value #INDEX_RESOURCE_NAME} in the class path. The format of 
+ * these index resources is described in the {@link #create(ClassLoader)}
+ * method.<br>
+ * <br>
+ * This class is thread-safe.
+ */
+public final class PaletteRegistry
+{
+    /**
+     * The logger used in this class
+     */
+    private static final Logger logger =
+        Logger.getLogger(PaletteRegistry.class.getName());
+    
+    /**
+     * The name of the index resources that are looked up in the class path
+     */
+    public static final String INDEX_RESOURCE_NAME = 
+        "META-INF/de.javagl.colors/palettes.index";
+    
+    /**
+     * Holder for the default registry, which is created when it is 
+     * accessed for the first time
+     */
+    private static final class DefaultHolder
+    {
+        /**
+         * The default registry
+         */
+        static final PaletteRegistry DEFAULT = 
+            create(PaletteRegistry.class.getClassLoader());
+    }
+    
+    /**
+     * The mapping from qualified names to descriptors
+     */
+    private final Map<String, PaletteDescriptor> descriptors;
+    
+    /**
+     * The mapping from descriptors to the providers that offer them
+     */
+    private final Map<PaletteDescriptor, PaletteProvider> providers;
+    
+    /**
+     * The colors of the palettes that have already been loaded
+     */
+    private final ConcurrentMap<PaletteDescriptor, int[]> argbs;
+    
+    /**
+     * Creates a new instance
+     * 
+     * @param paletteProviders The {@link PaletteProvider} instances
+     */
+    private PaletteRegistry(Iterable<? extends PaletteProvider> 
+        paletteProviders)
+    {
+        Map<String, PaletteDescriptor> descriptors = 
+            new LinkedHashMap<String, PaletteDescriptor>();
+        Map<PaletteDescriptor, PaletteProvider> providers = 
+            new LinkedHashMap<PaletteDescriptor, PaletteProvider>();
+        for (PaletteProvider provider : paletteProviders)
+        {
+            List<PaletteDescriptor> providerDescriptors;
+            try
+            {
+                providerDescriptors = provider.getPalettes();
+            }
+            catch (RuntimeException e)
+            {
+                logger.warning("Ignoring palette provider " + provider 
+                    + ", could not obtain its palettes: " + e);
+                continue;
+            }
+            for (PaletteDescriptor descriptor : providerDescriptors)
+            {
+                String qualifiedName = descriptor.getQualifiedName();
+                if (descriptors.containsKey(qualifiedName))
+                {
+                    logger.warning("Ignoring duplicate palette " 
+                        + qualifiedName + " from " + provider);
+                    continue;
+                }
+                descriptors.put(qualifiedName, descriptor);
+                providers.put(descriptor, provider);
+            }
+        }
+        this.descriptors = descriptors;
+        this.providers = providers;
+        this.argbs = new ConcurrentHashMap<PaletteDescriptor, int[]>();
+    }
+    
+    /**
+     * Returns the default registry, which is created when this method 
+     * is called for the first time
+     * 
+     * @return The default registry
+     */
+    public static PaletteRegistry getDefault()
+    {
+        return DefaultHolder.DEFAULT;
+    }
+    
+    /**
+     * Creates a new registry for the given providers. If several 
+     * providers offer palettes with the same qualified name, then the
+     * first one is used.
+     * 
+     * @param paletteProviders The {@link PaletteProvider} instances
+     * @return The registry
+     */
+    public static PaletteRegistry create(
+        Iterable<? extends PaletteProvider> paletteProviders)
+    {
+        Objects.requireNonNull(paletteProviders, 
+            "The paletteProviders may not be null");
+        return new PaletteRegistry(paletteProviders);
+    }
+    
+    /**
+     * Creates a new registry for the providers that are found with the 
+     * given class loader.<br>
+     * <br>
+     * These are the providers that are found by the 
+     * <code>ServiceLoader</code> for the {@link PaletteProvider} class,
+     * and the providers that are defined by index resources at 
+     * {@value #INDEX_RESOURCE_NAME}. An index resource is a UTF-8 text
+     * file like this:
+     * <pre><code>
+     * # Comment
+     * pack=example
+     * data=example.bin
+     * firstPalette;SEQUENTIAL;256;0
+     * secondPalette;QUALITATIVE;8;768
+     * </code></pre>
+     * The <code>pack</code> defines the pack name of the palettes, and 
+     * the <code>data</code> defines the path of a binary resource, 
+     * relative to the index, that contains the colors as 3-byte RGB 
+     * triples. Each palette is given by its name, its type, its size, 
+     * and the byte offset of its colors in the binary resource.<br>
+     * <br>
+     * Providers that can not be instantiated, providers that fail to 
+     * return their palettes, and index resources that can not be read 
+     * are skipped, and a warning is logged.
+     * 
+     * @param classLoader The class loader
+     * @return The registry
+     */
+    public static PaletteRegistry create(ClassLoader classLoader)
+    {
+        List<PaletteProvider> paletteProviders = 
+            new ArrayList<PaletteProvider>();
+        Iterator<PaletteProvider> iterator = 
+            ServiceLoader.load(PaletteProvider.class, classLoader).iterator();
+        while (true)
+        {
+            try
+            {
+                if (!iterator.hasNext())
+                {
+                    break;
+                }
+                paletteProviders.add(iterator.next());
+            }
+            catch (ServiceConfigurationError e)
+            {
+                logger.warning("Ignoring palette provider: " + e);
+            }
+        }
+        try
+        {
+            Enumeration<URL> indexUrls = 
+                classLoader.getResources(INDEX_RESOURCE_NAME);
+            while (indexUrls.hasMoreElements())
+            {
+                URL indexUrl = indexUrls.nextElement();
+                try
+                {
+                    paletteProviders.add(
+                        new IndexedResourcePaletteProvider(indexUrl));
+                }
+                catch (IOException e)
+                {
+                    logger.warning("Could not read palette index " 
+                        + indexUrl + ": " + e.getMessage());
+                }
+            }
+        }
+        catch (IOException e)
+        {
+            logger.warning("Could not look up palette indices: " 
+                + e.getMessage());
+        }
+        return new PaletteRegistry(paletteProviders);
+    }
+    
+    /**
+     * Returns an unmodifiable list of the descriptors of all palettes 
+     * in this registry
+     * 
+     * @return The {@link PaletteDescriptor} instances
+     */
+    public List<PaletteDescriptor> getPalettes()
+    {
+        return Collections.unmodifiableList(
+            new ArrayList<PaletteDescriptor>(descriptors.values()));
+    }
+    
+    /**
+     * Returns an unmodifiable list of the descriptors of all palettes 
+     * in this registry that have the given type
+     * 
+     * @param type The type
+     * @return The {@link PaletteDescriptor} instances
+     */
+    public List<PaletteDescriptor> getPalettes(ColorSchemeType type)
+    {
+        return Collections.unmodifiableList(descriptors.values().stream()
+            .filter(d -> d.getType() == type)
+            .collect(Collectors.toList()));
+    }
+    
+    /**
+     * Returns the descriptor of the palette with the given qualified 
+     * name
+     * 
+     * @param qualifiedName The qualified name
+     * @return The {@link PaletteDescriptor}
+     * @throws IllegalArgumentException If there is no palette with the
+     * given name
+     */
+    public PaletteDescriptor getPalette(String qualifiedName)
+    {
+        PaletteDescriptor descriptor = descriptors.get(qualifiedName);
+        if (descriptor == null)
+        {
+            throw new IllegalArgumentException(
+                "No palette found with name " + qualifiedName);
+        }
+        return descriptor;
+    }
+    
+    /**
+     * Returns a new array containing the ARGB colors of the palette 
+     * with the given qualified name. The colors are loaded when they
+     * are requested for the first time.
+     * 
+     * @param qualifiedName The qualified name
+     * @return The ARGB colors
+     * @throws IllegalArgumentException If there is no palette with the
+     * given name
+     * @throws UncheckedIOException If the colors could not be loaded.
+     * The loading will be attempted again in the next call.
+     */
+    public int[] getArgbs(String qualifiedName)
+    {
+        return getArgbs(getPalette(qualifiedName));
+    }
+    
+    /**
+     * Returns a new array containing the ARGB colors of the palette 
+     * with the given descriptor. The colors are loaded when they
+     * are requested for the first time.
+     * 
+     * @param descriptor The {@link PaletteDescriptor}
+     * @return The ARGB colors
+     * @throws IllegalArgumentException If the given descriptor is not
+     * contained in this registry
+     * @throws UncheckedIOException If the colors could not be loaded.
+     * The loading will be attempted again in the next call.
+     */
+    public int[] getArgbs(PaletteDescriptor descriptor)
+    {
+        return getLoadedArgbs(descriptor).clone();
+    }
+    
+    /**
+     * Creates a new {@link ColorMap1D} from the colors of the palette
+     * with the given qualified name. See 
+     * {@link ColorMaps#create(int...)}.
+     * 
+     * @param qualifiedName The qualified name
+     * @return The {@link ColorMap1D}
+     * @throws IllegalArgumentException If there is no palette with the
+     * given name
+     * @throws UncheckedIOException If the colors could not be loaded
+     */
+    public ColorMap1D createColorMap(String qualifiedName)
+    {
+        return ColorMaps.create(getLoadedArgbs(getPalette(qualifiedName)));
+    }
+    
+    /**
+     * Returns a reference to the colors of the palette with the given 
+     * descriptor, loading them if necessary
+     * 
+     * @param descriptor The {@link PaletteDescriptor}
+     * @return The ARGB colors
+     * @throws IllegalArgumentException If the given descriptor is not
+     * contained in this registry
+     * @throws UncheckedIOException If the colors could not be loaded
+     */
+    private int[] getLoadedArgbs(PaletteDescriptor descriptor)
+    {
+        int result[] = argbs.get(descriptor);
+        if (result != null)
+        {
+            return result;
+        }
+        PaletteProvider provider = providers.get(descriptor);
+        if (provider == null)
+        {
+            throw new IllegalArgumentException(
+                "The palette is not contained in this registry: " 
+                + descriptor);
+        }
+        return argbs.computeIfAbsent(descriptor, d -> load(provider, d));
+    }
+    
+    /**
+     * Load the colors of the given palette from the given provider
+     * 
+     * @param provider The {@link PaletteProvider}
+     * @param descriptor The {@link PaletteDescriptor}
+     * @return The ARGB colors
+     * @throws UncheckedIOException If the colors could not be loaded,
+     * or the provider returned an invalid number of colors
+     */
+    private static int[] load(
+        PaletteProvider provider, PaletteDescriptor descriptor)
+    {
+        try
+        {
+            int result[] = provider.loadArgbs(descriptor);
+            if (result == null || result.length != descriptor.getSize())
+            {
+                throw new IOException("Expected " + descriptor.getSize() 
+                    + " colors for " + descriptor.getQualifiedName() 
+                    + ", but received " 
+                    + (result == null ? "null" : result.length));
+            }
+            return result;
+        }
+        catch (IOException e)
+        {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors.server;
+
+/**
+ * Interface for a two-dimensional grid of scalar values that may be
+ * served as colorized tiles by a {@link TileServer}. Implementations 
+ * must be thread-safe for concurrent reads.
+ */
+public interface ScalarGrid
+{
+    /**
+     * Returns the width of this grid
+     * 
+     * @return The width
+     */
+    int getWidth();
+    
+    /**
+     * Returns the height of this grid
+     * 
+     * @return The height
+     */
+    int getHeight();
+    
+    /**
+     * Returns the value at the given position. Positions that do not
+     * contain a value may be represented with <code>NaN</code>.
+     * 
+     * @param x The x-coordinate
+     * @param y The y-coordinate
+     * @return The value
+     * @throws IndexOutOfBoundsException If the position is not inside
+     * of this grid
+     */
+    double getValue(int x, int y);
+}
@@ -0,0 +1,169 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors.server;
+
+/**
+ * Methods to create {@link ScalarGrid} instances
+ */
+public class ScalarGrids
+{
+    /**
+     * Creates a {@link ScalarGrid} that is backed by the given array,
+     * which stores the values in row-major order. The array is stored
+     * by reference, and changes in the array will be visible in the grid.
+     * 
+     * @param width The width
+     * @param height The height
+     * @param values The values
+     * @return The {@link ScalarGrid}
+     * @throws IllegalArgumentException If the width or height are not 
+     * positive, or the array has a length that is smaller than 
+     * <code>width * height</code>
+     */
+    public static ScalarGrid create(int width, int height, float values[])
+    {
+        validate(width, height, values.length);
+        return new ScalarGrid()
+        {
+            @Override
+            public int getWidth()
+            {
+                return width;
+            }
+            
+            @Override
+            public int getHeight()
+            {
+                return height;
+            }
+            
+            @Override
+            public double getValue(int x, int y)
+            {
+                return values[y * width + x];
+            }
+        };
+    }
+    
+    /**
+     * Creates a {@link ScalarGrid} that is backed by the given array,
+     * which stores the values in row-major order. The array is stored
+     * by reference, and changes in the array will be visible in the grid.
+     * 
+     * @param width The width
+     * @param height The height
+     * @param values The values
+     * @return The {@link ScalarGrid}
+     * @throws IllegalArgumentException If the width or height are not 
+     * positive, or the array has a length that is smaller than 
+     * <code>width * height</code>
+     */
+    public static ScalarGrid create(int width, int height, double values[])
+    {
+        validate(width, height, values.length);
+        return new ScalarGrid()
+        {
+            @Override
+            public int getWidth()
+            {
+                return width;
+            }
+            
+            @Override
+            public int getHeight()
+            {
+                return height;
+            }
+            
+            @Override
+            public double getValue(int x, int y)
+            {
+                return values[y * width + x];
+            }
+        };
+    }
+    
+    /**
+     * Computes the range of the finite values in the given grid. The 
+     * result will be an array containing the minimum and the maximum.
+     * If the grid does not contain any finite values, then the result
+     * will be <code>{+Infinity, -Infinity}</code>.
+     * 
+     * @param grid The {@link ScalarGrid}
+     * @return The range
+     */
+    public static double[] computeRange(ScalarGrid grid)
+    {
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (int y = 0; y < grid.getHeight(); y++)
+        {
+            for (int x = 0; x < grid.getWidth(); x++)
+            {
+                double v = grid.getValue(x, y);
+                if (Double.isFinite(v))
+                {
+                    min = Math.min(min, v);
+                    max = Math.max(max, v);
+                }
+            }
+        }
+        return new double[] { min, max };
+    }
+    
+    /**
+     * Validate the given size
+     * 
+     * @param width The width
+     * @param height The height
+     * @param length The array length
+     * @throws IllegalArgumentException If the width or height are not 
+     * positive, or the length is smaller than <code>width * height</code>
+     */
+    private static void validate(int width, int height, int length)
+    {
+        if (width <= 0 || height <= 0)
+        {
+            throw new IllegalArgumentException(
+                "Invalid size: " + width + "x" + height);
+        }
+        if ((long)width * height > length)
+        {
+            throw new IllegalArgumentException("Expected " 
+                + ((long)width * height) + " values, but the array only "
+                + "has a length of " + length);
+        }
+    }
+    
+    /**
+     * Private constructor to prevent instantiation
+     */
+    private ScalarGrids()
+    {
+        // Private constructor to prevent instantiation
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors.server;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * A thread-safe least-recently-used cache for encoded tiles, which is
+ * bounded by the total number of bytes of the tiles.
+ */
+final class TileCache
+{
+    /**
+     * The maximum total size of the cached tiles, in bytes
+     */
+    private final long maxBytes;
+    
+    /**
+     * The tiles, in access order
+     */
+    private final LinkedHashMap<String, byte[]> tiles;
+    
+    /**
+     * The total size of the cached tiles, in bytes
+     */
+    private long bytes;
+    
+    /**
+     * The number of cache hits
+     */
+    private long hitCount;
+    
+    /**
+     * The number of cache misses
+     */
+    private long missCount;
+    
+    /**
+     * Creates a new instance
+     * 
+     * @param maxBytes The maximum total size of the cached tiles, in bytes
+     */
+    TileCache(long maxBytes)
+    {
+        this.maxBytes = maxBytes;
+        this.tiles = new LinkedHashMap<String, byte[]>(16, 0.75f, true);
+    }
+    
+    /**
+     * Returns the tile for the given key, or <code>null</code> if the
+     * tile is not contained in this cache
+     * 
+     * @param key The key
+     * @return The tile
+     */
+    synchronized byte[] get(String key)
+    {
+        byte tile[] = tiles.get(key);
+        if (tile == null)
+        {
+            missCount++;
+        }
+        else
+        {
+            hitCount++;
+        }
+        return tile;
+    }
+    
+    /**
+     * Put the given tile into this cache, evicting the least recently 
+     * used tiles if necessary. Tiles that are larger than the maximum
+     * size of this cache will not be stored.
+     * 
+     * @param key The key
+     * @param tile The tile
+     */
+    synchronized void put(String key, byte tile[])
+    {
+        if (tile.length > maxBytes)
+        {
+            return;
+        }
+        byte oldTile[] = tiles.put(key, tile);
+        if (oldTile != null)
+        {
+            bytes -= oldTile.length;
+        }
+        bytes += tile.length;
+        Iterator<Entry<String, byte[]>> iterator = 
+            tiles.entrySet().iterator();
+        while (bytes > maxBytes && iterator.hasNext())
+        {
+            Map.Entry<String, byte[]> entry = iterator.next();
+            bytes -= entry.getValue().length;
+            iterator.remove();
+        }
+    }
+    
+    /**
+     * Remove all tiles from this cache
+     */
+    synchronized void clear()
+    {
+        tiles.clear();
+        bytes = 0;
+    }
+    
+    /**
+     * Returns the number of tiles in this cache
+     * 
+     * @return The number of tiles
+     */
+    synchronized int getSize()
+    {
+        return tiles.size();
+    }
+    
+    /**
+     * Returns the total size of the tiles in this cache, in bytes
+     * 
+     * @return The size in bytes
+     */
+    synchronized long getBytes()
+    {
+        return bytes;
+    }
+    
+    /**
+     * Returns the number of cache hits
+     * 
+     * @return The number of cache hits
+     */
+    synchronized long getHitCount()
+    {
+        return hitCount;
+    }
+    
+    /**
+     * Returns the number of cache misses
+     * 
+     * @return The number of cache misses
+     */
+    synchronized long getMissCount()
+    {
+        return missCount;
+    }
+}
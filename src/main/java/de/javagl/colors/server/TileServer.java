@@ -0,0 +1,897 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ * 
+ * Permission is hereby granted, free of charge, to any person
+ * obtaining a copy of this software and associated documentation
+ * files (the "Software"), to deal in the Software without
+ * restriction, including without limitation the rights to use,
+ * copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the
+ * Software is furnished to do so, subject to the following
+ * conditions:
+ * 
+ * The above copyright notice and this permission notice shall be
+ * included in all copies or substantial portions of the Software.
+ * 
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND,
+ * EXPRESS OR IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES
+ * OF MERCHANTABILITY, FITNESS FOR A PARTICULAR PURPOSE AND
+ * NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT
+ * HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY,
+ * WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING
+ * FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR
+ * OTHER DEALINGS IN THE SOFTWARE.
+ */
+package de.javagl.colors.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.Deflater;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import de.javagl.colors.brewer.ColorBrewer;
+import de.javagl.colors.brewer.ColorSchemeType;
+import de.javagl.colors.io.PngColorType;
+import de.javagl.colors.io.PngWriter;
+import de.javagl.colors.maps.ColorMap1D;
+import de.javagl.colors.maps.ColorMaps;
+import de.javagl.colors.maps.DefaultColorMaps;
+import de.javagl.colors.maps.Normalizers;
+import de.javagl.colors.maps.ScaledColorMap1D;
+
+/**
+ * A lightweight HTTP server that serves colorized PNG tiles of 
+ * {@link ScalarGrid} instances. It is based on the HTTP server that is
+ * built into the JDK, and is mainly intended for local use and for 
+ * testing.<br>
+ * <br>
+ * Tiles are requested with URLs of the form
+ * <pre><code>
+ * /tiles/{grid}/{colorMap}/{z}/{x}/{y}.png[?min=...&amp;max=...]
+ * </code></pre>
+ * where <code>grid</code> is the name of a registered grid, and
+ * <code>colorMap</code> is the name of a registered color map, one of 
+ * <code>rainbow</code>, <code>diverging</code> or 
+ * <code>divergingBright</code> from the {@link DefaultColorMaps}, or the
+ * name of a {@link ColorBrewer} scheme. The tiles have a size of 
+ * {@value #TILE_SIZE} pixels. At zoom level 0, the whole grid is 
+ * contained in a single tile. Each zoom level doubles the resolution, 
+ * and the zoom level where one tile pixel corresponds to one grid cell 
+ * depends on the grid size. Values are normalized to the range of the 
+ * grid, unless the <code>min</code> and <code>max</code> parameters
+ * are given. <code>NaN</code> values and areas outside of the grid 
+ * are transparent.<br>
+ * <br>
+ * Requests are handled by virtual threads when they are available on
+ * the running JVM, and by a bounded thread pool otherwise. In both
+ * cases, the number of tiles that are rendered concurrently is limited.
+ * When the queue of the thread pool is full, further requests are 
+ * answered with <code>503 Service Unavailable</code> and a 
+ * <code>Retry-After</code> header. When even these responses can not 
+ * be sent quickly enough, the connections of further requests are 
+ * closed immediately.<br>
+ * <br>
+ * Encoded tiles are stored in a least-recently-used cache that is 
+ * bounded by the total size of the tiles, and are served with an 
+ * <code>ETag</code>, so that clients may revalidate them with 
+ * <code>If-None-Match</code>. Registering a grid or color map will 
+ * clear the cache and invalidate all <code>ETag</code>s.
+ */
+public final class TileServer
+{
+    /**
+     * The logger used in this class
+     */
+    private static final Logger logger = 
+        Logger.getLogger(TileServer.class.getName());
+    
+    /**
+     * The size of the tiles, in pixels
+     */
+    public static final int TILE_SIZE = 256;
+    
+    /**
+     * The context path for the tiles
+     */
+    private static final String CONTEXT_PATH = "/tiles/";
+    
+    /**
+     * The maximum number of zoom levels beyond the level where one 
+     * tile pixel corresponds to one grid cell
+     */
+    private static final int MAX_OVERZOOM = 8;
+    
+    /**
+     * The number of queued requests per thread, when no virtual 
+     * threads are available
+     */
+    private static final int QUEUED_REQUESTS_PER_THREAD = 16;
+    
+    /**
+     * The number of seconds that is sent in the <code>Retry-After</code> 
+     * header when the server is overloaded
+     */
+    private static final int RETRY_AFTER_SECONDS = 1;
+    
+    /**
+     * The maximum number of rejected requests that may be waiting for
+     * their 503 response. The connections of requests that are rejected
+     * beyond that are closed without a response.
+     */
+    private static final int MAX_QUEUED_OVERLOAD_REQUESTS = 64;
+    
+    /**
+     * The HTTP server
+     */
+    private final HttpServer server;
+    
+    /**
+     * The executor for the requests
+     */
+    private final ExecutorService executor;
+    
+    /**
+     * The executor for requests that have been rejected by the request 
+     * executor. These requests are only answered with a 503 response.
+     * When its queue is full, it throws a 
+     * <code>RejectedExecutionException</code>, which causes the 
+     * HTTP server to close the connection.
+     */
+    private final ExecutorService overloadExecutor;
+    
+    /**
+     * Whether the current thread is handling a request that has been 
+     * rejected by the request executor
+     */
+    private final ThreadLocal<Boolean> overloaded;
+    
+    /**
+     * The permits for rendering tiles
+     */
+    private final Semaphore renderPermits;
+    
+    /**
+     * The cache for encoded tiles
+     */
+    private final TileCache tileCache;
+    
+    /**
+     * The registered grids
+     */
+    private final ConcurrentMap<String, GridEntry> grids;
+    
+    /**
+     * The registered color maps
+     */
+    private final ConcurrentMap<String, ColorMap1D> colorMaps;
+    
+    /**
+     * The color maps that have been resolved from the built-in names
+     */
+    private final ConcurrentMap<String, ColorMap1D> builtInColorMaps;
+    
+    /**
+     * The generation, which is incremented with each registration, and 
+     * is part of the ETags
+     */
+    private final AtomicLong generation;
+    
+    /**
+     * Creates a new server. The server has to be started with
+     * {@link #start()}.
+     * 
+     * @param address The address to bind to. The port may be 0, to 
+     * use an arbitrary free port.
+     * @param maxThreads The maximum number of tiles that are rendered
+     * concurrently. When no virtual threads are available, this is
+     * also the number of threads that handle requests.
+     * @param maxCacheBytes The maximum total size of the cached tiles, 
+     * in bytes
+     * @throws IOException If the server can not be bound to the given
+     * address
+     * @throws IllegalArgumentException If the maximum number of threads
+     * is not positive, or the maximum cache size is negative
+     */
+    public TileServer(InetSocketAddress address, 
+        int maxThreads, long maxCacheBytes) throws IOException
+    {
+        if (maxThreads <= 0)
+        {
+            throw new IllegalArgumentException(
+                "The maximum number of threads must be positive, but is "
+                + maxThreads);
+        }
+        if (maxCacheBytes < 0)
+        {
+            throw new IllegalArgumentException(
+                "The maximum cache size may not be negative, but is "
+                + maxCacheBytes);
+        }
+        this.renderPermits = new Semaphore(maxThreads);
+        this.tileCache = new TileCache(maxCacheBytes);
+        this.grids = new ConcurrentHashMap<String, GridEntry>();
+        this.colorMaps = new ConcurrentHashMap<String, ColorMap1D>();
+        this.builtInColorMaps = new ConcurrentHashMap<String, ColorMap1D>();
+        this.generation = new AtomicLong();
+        this.overloaded = new ThreadLocal<Boolean>();
+        this.overloadExecutor = new ThreadPoolExecutor(1, 1, 
+            0, TimeUnit.SECONDS, 
+            new ArrayBlockingQueue<Runnable>(MAX_QUEUED_OVERLOAD_REQUESTS), 
+            runnable -> 
+            {
+                Thread thread = new Thread(runnable, "TileServer-overload");
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+        this.executor = createExecutor(maxThreads, (runnable, pool) -> 
+            overloadExecutor.execute(() -> 
+            {
+                overloaded.set(Boolean.TRUE);
+                try
+                {
+                    runnable.run();
+                }
+                finally
+                {
+                    overloaded.remove();
+                }
+            }));
+        this.server = HttpServer.create(address, 0);
+        this.server.createContext(CONTEXT_PATH, this::handle);
+        this.server.setExecutor(executor);
+    }
+    
+    /**
+     * Creates the executor for the requests. If the running JVM supports
+     * virtual threads, then an executor that creates a virtual thread
+     * for each request is returned. Otherwise, a thread pool with the
+     * given number of threads and a bounded queue is returned, which 
+     * passes requests to the given handler when the queue is full.
+     * 
+     * @param maxThreads The maximum number of threads
+     * @param rejectedExecutionHandler The handler for rejected requests
+     * @return The executor
+     */
+    private static ExecutorService createExecutor(int maxThreads, 
+        RejectedExecutionHandler rejectedExecutionHandler)
+    {
+        try
+        {
+            Method method = Executors.class.getMethod(
+                "newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) method.invoke(null);
+        }
+        catch (ReflectiveOperationException e)
+        {
+            logger.fine("Virtual threads are not available, "
+                + "using a thread pool");
+        }
+        AtomicInteger threadCounter = new AtomicInteger();
+        return new ThreadPoolExecutor(maxThreads, maxThreads, 
+            60, TimeUnit.SECONDS, 
+            new ArrayBlockingQueue<Runnable>(
+                maxThreads * QUEUED_REQUESTS_PER_THREAD), 
+            runnable -> 
+            {
+                Thread thread = new Thread(runnable, 
+                    "TileServer-" + threadCounter.getAndIncrement());
+                thread.setDaemon(true);
+                return thread;
+            },
+            rejectedExecutionHandler);
+    }
+    
+    /**
+     * Start this server
+     */
+    public void start()
+    {
+        server.start();
+    }
+    
+    /**
+     * Stop this server, waiting at most the given number of seconds
+     * for ongoing requests to finish
+     * 
+     * @param delaySeconds The maximum number of seconds to wait
+     */
+    public void stop(int delaySeconds)
+    {
+        server.stop(delaySeconds);
+        executor.shutdown();
+        overloadExecutor.shutdown();
+    }
+    
+    /**
+     * Returns the address that this server is bound to
+     * 
+     * @return The address
+     */
+    public InetSocketAddress getAddress()
+    {
+        return server.getAddress();
+    }
+    
+    /**
+     * Register the given grid under the given name. The range of the 
+     * values that will be mapped to colors is computed from the grid.
+     * If all values of the grid are equal to a value <code>c</code>, 
+     * then the range is <code>[c-0.5, c+0.5]</code>. If the grid does
+     * not contain any finite values, then the range is <code>[0,1]</code>.
+     * An existing grid with the same name will be replaced.
+     * 
+     * @param name The name
+     * @param grid The {@link ScalarGrid}
+     */
+    public void registerGrid(String name, ScalarGrid grid)
+    {
+        double range[] = ScalarGrids.computeRange(grid);
+        if (range[0] > range[1])
+        {
+            range[0] = 0.0;
+            range[1] = 1.0;
+        }
+        else if (range[0] == range[1])
+        {
+            range[0] -= 0.5;
+            range[1] += 0.5;
+        }
+        registerGrid(name, grid, range[0], range[1]);
+    }
+    
+    /**
+     * Register the given grid under the given name. The given range 
+     * of values will be mapped to colors, unless a range is given in 
+     * the request. An existing grid with the same name will be replaced.
+     * 
+     * @param name The name
+     * @param grid The {@link ScalarGrid}
+     * @param min The minimum value
+     * @param max The maximum value
+     * @throws IllegalArgumentException If the minimum or maximum is not
+     * finite, or the minimum is not smaller than the maximum
+     */
+    public void registerGrid(
+        String name, ScalarGrid grid, double min, double max)
+    {
+        Objects.requireNonNull(name, "The name may not be null");
+        Objects.requireNonNull(grid, "The grid may not be null");
+        if (!Double.isFinite(min) || !Double.isFinite(max) || !(min < max))
+        {
+            throw new IllegalArgumentException(
+                "Invalid range: [" + min + "," + max + "]");
+        }
+        grids.put(name, new GridEntry(grid, min, max));
+        invalidate();
+    }
+    
+    /**
+     * Register the given color map under the given name. Registered
+     * color maps take precedence over the built-in ones. An existing
+     * color map with the same name will be replaced.
+     * 
+     * @param name The name
+     * @param colorMap The {@link ColorMap1D}
+     */
+    public void registerColorMap(String name, ColorMap1D colorMap)
+    {
+        Objects.requireNonNull(name, "The name may not be null");
+        Objects.requireNonNull(colorMap, "The colorMap may not be null");
+        colorMaps.put(name, colorMap);
+        invalidate();
+    }
+    
+    /**
+     * Clear the tile cache and invalidate all ETags
+     */
+    private void invalidate()
+    {
+        generation.incrementAndGet();
+        tileCache.clear();
+    }
+    
+    /**
+     * Returns the number of tiles in the cache
+     * 
+     * @return The number of tiles
+     */
+    public int getCacheSize()
+    {
+        return tileCache.getSize();
+    }
+    
+    /**
+     * Returns the total size of the tiles in the cache, in bytes
+     * 
+     * @return The size in bytes
+     */
+    public long getCacheBytes()
+    {
+        return tileCache.getBytes();
+    }
+    
+    /**
+     * Returns the number of requests that have been answered from the 
+     * cache
+     * 
+     * @return The number of cache hits
+     */
+    public long getCacheHitCount()
+    {
+        return tileCache.getHitCount();
+    }
+    
+    /**
+     * Returns the number of requests that required a tile to be rendered
+     * 
+     * @return The number of cache misses
+     */
+    public long getCacheMissCount()
+    {
+        return tileCache.getMissCount();
+    }
+    
+    /**
+     * Handle the given exchange
+     * 
+     * @param exchange The exchange
+     * @throws IOException If an IO error occurs
+     */
+    private void handle(HttpExchange exchange) throws IOException
+    {
+        try
+        {
+            if (overloaded.get() != null)
+            {
+                exchange.getResponseHeaders().set(
+                    "Retry-After", String.valueOf(RETRY_AFTER_SECONDS));
+                sendError(exchange, 503, "Server overloaded");
+                return;
+            }
+            String method = exchange.getRequestMethod();
+            boolean head = method.equals("HEAD");
+            if (!head && !method.equals("GET"))
+            {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                sendError(exchange, 405, "Method not allowed");
+                return;
+            }
+            long currentGeneration = generation.get();
+            TileRequest request = parseRequest(exchange.getRequestURI());
+            if (request == null)
+            {
+                sendError(exchange, 400, "Bad request");
+                return;
+            }
+            GridEntry gridEntry = grids.get(request.gridName);
+            if (gridEntry == null)
+            {
+                sendError(exchange, 404, 
+                    "Unknown grid: " + request.gridName);
+                return;
+            }
+            ColorMap1D colorMap = resolveColorMap(request.colorMapName);
+            if (colorMap == null)
+            {
+                sendError(exchange, 404, 
+                    "Unknown color map: " + request.colorMapName);
+                return;
+            }
+            int n = 1 << Math.min(request.z, 30);
+            if (request.z > gridEntry.maxZoom + MAX_OVERZOOM ||
+                request.x >= n || request.y >= n)
+            {
+                sendError(exchange, 404, "Tile out of range");
+                return;
+            }
+            
+            double min = Double.isNaN(request.min) ? 
+                gridEntry.min : request.min;
+            double max = Double.isNaN(request.max) ? 
+                gridEntry.max : request.max;
+            if (!(min < max))
+            {
+                sendError(exchange, 400, 
+                    "Invalid range: [" + min + "," + max + "]");
+                return;
+            }
+            
+            String key = currentGeneration + "/" + request.createKey();
+            String etag = "\"" + currentGeneration + "-" 
+                + Integer.toHexString(key.hashCode()) + "\"";
+            Headers responseHeaders = exchange.getResponseHeaders();
+            String ifNoneMatch = 
+                exchange.getRequestHeaders().getFirst("If-None-Match");
+            if (etag.equals(ifNoneMatch))
+            {
+                responseHeaders.set("ETag", etag);
+                responseHeaders.set("Cache-Control", "no-cache");
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+            
+            byte tile[] = tileCache.get(key);
+            if (tile == null)
+            {
+                renderPermits.acquireUninterruptibly();
+                try
+                {
+                    tile = renderTile(gridEntry, colorMap, min, max, 
+                        request.z, request.x, request.y);
+                }
+                finally
+                {
+                    renderPermits.release();
+                }
+                tileCache.put(key, tile);
+            }
+            responseHeaders.set("ETag", etag);
+            responseHeaders.set("Cache-Control", "no-cache");
+            responseHeaders.set("Content-Type", "image/png");
+            if (head)
+            {
+                responseHeaders.set("Content-Length", 
+                    String.valueOf(tile.length));
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, tile.length);
+            try (OutputStream outputStream = exchange.getResponseBody())
+            {
+                outputStream.write(tile);
+            }
+        }
+        catch (RuntimeException e)
+        {
+            logger.log(Level.WARNING, "Failed to handle request", e);
+            sendError(exchange, 500, "Internal server error");
+        }
+        finally
+        {
+            exchange.close();
+        }
+    }
+    
+    /**
+     * Send the given error response
+     * 
+     * @param exchange The exchange
+     * @param code The status code
+     * @param message The message
+     * @throws IOException If an IO error occurs
+     */
+    private static void sendError(
+        HttpExchange exchange, int code, String message) throws IOException
+    {
+        byte bytes[] = message.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set(
+            "Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(code, bytes.length);
+        try (OutputStream outputStream = exchange.getResponseBody())
+        {
+            outputStream.write(bytes);
+        }
+    }
+    
+    /**
+     * Parse the given request URI
+     * 
+     * @param uri The URI
+     * @return The {@link TileRequest}, or <code>null</code> if the 
+     * URI is not valid
+     */
+    private static TileRequest parseRequest(URI uri)
+    {
+        String path = uri.getPath();
+        if (path == null || !path.startsWith(CONTEXT_PATH))
+        {
+            return null;
+        }
+        String tokens[] = path.substring(CONTEXT_PATH.length()).split("/");
+        if (tokens.length != 5 || !tokens[4].endsWith(".png"))
+        {
+            return null;
+        }
+        TileRequest request = new TileRequest();
+        request.gridName = tokens[0];
+        request.colorMapName = tokens[1];
+        request.min = Double.NaN;
+        request.max = Double.NaN;
+        try
+        {
+            request.z = Integer.parseInt(tokens[2]);
+            request.x = Integer.parseInt(tokens[3]);
+            request.y = Integer.parseInt(
+                tokens[4].substring(0, tokens[4].length() - 4));
+            String query = uri.getQuery();
+            if (query != null)
+            {
+                for (String parameter : query.split("&"))
+                {
+                    int index = parameter.indexOf('=');
+                    if (index < 0)
+                    {
+                        continue;
+                    }
+                    String name = parameter.substring(0, index);
+                    String value = parameter.substring(index + 1);
+                    if (name.equals("min"))
+                    {
+                        request.min = Double.parseDouble(value);
+                        if (!Double.isFinite(request.min))
+                        {
+                            return null;
+                        }
+                    }
+                    else if (name.equals("max"))
+                    {
+                        request.max = Double.parseDouble(value);
+                        if (!Double.isFinite(request.max))
+                        {
+                            return null;
+                        }
+                    }
+                }
+            }
+        }
+        catch (NumberFormatException e)
+        {
+            return null;
+        }
+        if (request.z < 0 || request.x < 0 || request.y < 0)
+        {
+            return null;
+        }
+        return request;
+    }
+    
+    /**
+     * Returns the color map with the given name. This may be a 
+     * registered color map, or one of the built-in color maps. 
+     * 
+     * @param name The name
+     * @return The {@link ColorMap1D}, or <code>null</code> if there
+     * is no color map with the given name
+     */
+    private ColorMap1D resolveColorMap(String name)
+    {
+        ColorMap1D colorMap = colorMaps.get(name);
+        if (colorMap != null)
+        {
+            return colorMap;
+        }
+        return builtInColorMaps.computeIfAbsent(
+            name, TileServer::createBuiltInColorMap);
+    }
+    
+    /**
+     * Creates the built-in color map with the given name
+     * 
+     * @param name The name
+     * @return The {@link ColorMap1D}, or <code>null</code> if there
+     * is no built-in color map with the given name
+     */
+    private static ColorMap1D createBuiltInColorMap(String name)
+    {
+        switch (name)
+        {
+            case "rainbow":
+                return DefaultColorMaps.createRainbow();
+            case "diverging":
+                return DefaultColorMaps.createDiverging();
+            case "divergingBright":
+                return DefaultColorMaps.createDivergingBright();
+            default:
+                break;
+        }
+        for (ColorSchemeType type : ColorSchemeType.values())
+        {
+            if (ColorBrewer.getNames(type).contains(name))
+            {
+                int n = ColorBrewer.getMax(type, name);
+                int argbs[] = ColorBrewer.getArgbs(type, name, n);
+                return ColorMaps.create(argbs);
+            }
+        }
+        return null;
+    }
+    
+    /**
+     * Render the specified tile, and return it as a PNG file. If the
+     * color map is backed by a lookup table with less than 256 colors,
+     * then an indexed PNG will be created.
+     * 
+     * @param gridEntry The {@link GridEntry}
+     * @param colorMap The {@link ColorMap1D}
+     * @param min The minimum value
+     * @param max The maximum value
+     * @param z The zoom level
+     * @param tx The x-coordinate of the tile
+     * @param ty The y-coordinate of the tile
+     * @return The PNG data
+     * @throws IOException If encoding the tile fails
+     */
+    private static byte[] renderTile(GridEntry gridEntry, 
+        ColorMap1D colorMap, double min, double max, 
+        int z, int tx, int ty) throws IOException
+    {
+        ScalarGrid grid = gridEntry.grid;
+        int width = grid.getWidth();
+        int height = grid.getHeight();
+        double step = Math.scalb(1.0, gridEntry.maxZoom - z);
+        ScaledColorMap1D scaledColorMap = 
+            ColorMaps.scaled(colorMap, Normalizers.linear(min, max));
+        
+        double row[] = new double[TILE_SIZE];
+        int argbs[] = new int[TILE_SIZE * TILE_SIZE];
+        for (int py = 0; py < TILE_SIZE; py++)
+        {
+            long gy = (long)Math.floor(
+                ((long)ty * TILE_SIZE + py + 0.5) * step);
+            for (int px = 0; px < TILE_SIZE; px++)
+            {
+                long gx = (long)Math.floor(
+                    ((long)tx * TILE_SIZE + px + 0.5) * step);
+                if (gx < width && gy < height)
+                {
+                    row[px] = grid.getValue((int)gx, (int)gy);
+                }
+                else
+                {
+                    row[px] = Double.NaN;
+                }
+            }
+            int offset = py * TILE_SIZE;
+            scaledColorMap.getArgbs(row, 0, argbs, offset, TILE_SIZE);
+            for (int px = 0; px < TILE_SIZE; px++)
+            {
+                if (Double.isNaN(row[px]))
+                {
+                    argbs[offset + px] = 0;
+                }
+            }
+        }
+        
+        int palette[] = ColorMaps.getPalette(scaledColorMap, 255);
+        PngColorType colorType = PngColorType.TRUECOLOR_ALPHA;
+        if (palette != null)
+        {
+            palette = Arrays.copyOf(palette, palette.length + 1);
+            colorType = PngColorType.INDEXED;
+        }
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        try (PngWriter pngWriter = new PngWriter(
+            Channels.newChannel(outputStream), TILE_SIZE, TILE_SIZE, 
+            colorType, palette, Deflater.BEST_SPEED, Runnable::run))
+        {
+            pngWriter.writeRows(argbs, 0, TILE_SIZE);
+        }
+        return outputStream.toByteArray();
+    }
+    
+    /**
+     * A registered grid
+     */
+    private static final class GridEntry
+    {
+        /**
+         * The grid
+         */
+        final ScalarGrid grid;
+        
+        /**
+         * The default minimum value
+         */
+        final double min;
+        
+        /**
+         * The default maximum value
+         */
+        final double max;
+        
+        /**
+         * The zoom level where one tile pixel corresponds to one grid cell
+         */
+        final int maxZoom;
+        
+        /**
+         * Creates a new instance
+         * 
+         * @param grid The grid
+         * @param min The default minimum value
+         * @param max The default maximum value
+         */
+        GridEntry(ScalarGrid grid, double min, double max)
+        {
+            this.grid = grid;
+            this.min = min;
+            this.max = max;
+            int size = Math.max(grid.getWidth(), grid.getHeight());
+            int zoom = 0;
+            while ((long)TILE_SIZE << zoom < size)
+            {
+                zoom++;
+            }
+            this.maxZoom = zoom;
+        }
+    }
+    
+    /**
+     * The parameters of a tile request
+     */
+    private static final class TileRequest
+    {
+        /**
+         * The grid name
+         */
+        String gridName;
+        
+        /**
+         * The color map name
+         */
+        String colorMapName;
+        
+        /**
+         * The zoom level
+         */
+        int z;
+        
+        /**
+         * The x-coordinate of the tile
+         */
+        int x;
+        
+        /**
+         * The y-coordinate of the tile
+         */
+        int y;
+        
+        /**
+         * The minimum value, or <code>NaN</code>
+         */
+        double min;
+        
+        /**
+         * The maximum value, or <code>NaN</code>
+         */
+        double max;
+        
+        /**
+         * Creates the key for the tile cache
+         * 
+         * @return The key
+         */
+        String createKey()
+        {
+            return gridName + "/" + colorMapName + "/" 
+                + z + "/" + x + "/" + y + "/" + min + "/" + max;
+        }
+    }
+}
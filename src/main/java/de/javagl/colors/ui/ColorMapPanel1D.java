@@ -33,6 +33,7 @@ import java.awt.event.MouseEvent;
 
 import javax.swing.JPanel;
 
+import de.javagl.colors.ColorDifference;
 import de.javagl.colors.Colors;
 import de.javagl.colors.maps.ColorMap1D;
 import de.javagl.colors.selection.ColorSelection;
@@ -190,7 +191,7 @@ public class ColorMapPanel1D extends JPanel
         {
             selectedColor = colorSelection.getColor();
         }
-        double minSquaredDistance = Double.POSITIVE_INFINITY;
+        double minDistance = Double.POSITIVE_INFINITY;
         int minDistanceIndex = -1;
         for (int x = 0; x < getWidth(); x++)
         {
@@ -198,11 +199,11 @@ public class ColorMapPanel1D extends JPanel
             g.setColor(color);
             if (selectedColor != null)
             {
-                double squaredDistance = 
-                    squaredDistance(color, selectedColor);
-                if (squaredDistance < minSquaredDistance)
+                double distance = ColorDifference.OKLAB.compute(
+                    color.getRGB(), selectedColor.getRGB());
+                if (distance < minDistance)
                 {
-                    minSquaredDistance = squaredDistance;
+                    minDistance = distance;
                     minDistanceIndex = x;
                 }
             }
@@ -216,32 +217,4 @@ public class ColorMapPanel1D extends JPanel
             g.drawRect(minDistanceIndex - 1, 0, 2, getHeight() - 1);
         }
     }
-    
-    /**
-     * Returns the squared distance between the given colors, in the ARGB
-     * coordinate space
-     * 
-     * @param c0 The first color
-     * @param c1 The second color
-     * @return The squared distance
-     */
-    private static double squaredDistance(Color c0, Color c1)
-    {
-        int a0 = c0.getAlpha();
-        int r0 = c0.getRed();
-        int g0 = c0.getGreen();
-        int b0 = c0.getBlue();
-        
-        int a1 = c1.getAlpha();
-        int r1 = c1.getRed();
-        int g1 = c1.getGreen();
-        int b1 = c1.getBlue();
-        
-        int da = a1 - a0;
-        int dr = r1 - r0;
-        int dg = g1 - g0;
-        int db = b1 - b0;
-        
-        return da * da + dr * dr + dg * dg + db * db;
-    }
 }
\ No newline at end of file
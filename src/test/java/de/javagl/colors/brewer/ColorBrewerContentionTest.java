@@ -0,0 +1,105 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.colors.brewer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Simple benchmark for concurrent accesses to the {@link ColorBrewer}
+ * class. It compares the throughput of the {@link ColorBrewer} methods
+ * with the throughput that is achieved when all calls are serialized on
+ * a single monitor, as they have been when the color schemes were 
+ * obtained from a synchronized method.
+ */
+@SuppressWarnings("javadoc")
+public class ColorBrewerContentionTest
+{
+    private static final Object MONITOR = new Object();
+    
+    public static void main(String[] args) throws InterruptedException
+    {
+        int maxThreads = Math.max(8, 
+            Runtime.getRuntime().availableProcessors() * 2);
+        long durationMs = 500;
+        for (int run = 0; run < 2; run++)
+        {
+            System.out.println("Run " + run);
+            for (int threads = 1; threads <= maxThreads; threads *= 2)
+            {
+                long unlocked = measure(threads, durationMs, false);
+                long locked = measure(threads, durationMs, true);
+                System.out.printf(
+                    "  %3d threads: %12d calls, serialized %12d calls%n", 
+                    threads, unlocked, locked);
+            }
+        }
+    }
+    
+    private static long measure(int numThreads, long durationMs, 
+        boolean serialized) throws InterruptedException
+    {
+        List<String> names = ColorBrewer.getNames(ColorSchemeType.SEQUENTIAL);
+        LongAdder calls = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        long end[] = new long[1];
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < numThreads; t++)
+        {
+            int threadIndex = t;
+            Thread thread = new Thread(() -> 
+            {
+                int argbs[] = new int[9];
+                long count = 0;
+                try
+                {
+                    start.await();
+                }
+                catch (InterruptedException e)
+                {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                while (System.nanoTime() < end[0])
+                {
+                    String name = names.get(
+                        (int)((threadIndex + count) % names.size()));
+                    if (serialized)
+                    {
+                        synchronized (MONITOR)
+                        {
+                            call(name, argbs);
+                        }
+                    }
+                    else
+                    {
+                        call(name, argbs);
+                    }
+                    count++;
+                }
+                calls.add(count);
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        end[0] = System.nanoTime() + durationMs * 1000000L;
+        start.countDown();
+        for (Thread thread : threads)
+        {
+            thread.join();
+        }
+        return calls.sum();
+    }
+    
+    private static void call(String name, int argbs[])
+    {
+        int max = ColorBrewer.getMax(ColorSchemeType.SEQUENTIAL, name);
+        ColorBrewer.getArgbs(ColorSchemeType.SEQUENTIAL, name, 
+            Math.min(max, argbs.length), argbs, 0);
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * www.javagl.de - Colors
+ *
+ * Copyright (c) 2013-2018 Marco Hutter - http://www.javagl.de
+ */
+package de.javagl.colors.classification;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import de.javagl.colors.brewer.ColorBrewer;
+import de.javagl.colors.brewer.ColorSchemeType;
+import de.javagl.colors.maps.indexed.IndexedColorMap1D;
+import de.javagl.colors.maps.indexed.IndexedColorMaps;
+
+/**
+ * Simple integration test for the {@link Classifier} and 
+ * {@link ClassBreaks} classes
+ */
+@SuppressWarnings("javadoc")
+public class ClassifierTest
+{
+    public static void main(String[] args)
+    {
+        Random random = new Random(0);
+        double values[] = new double[1000000];
+        for (int i = 0; i < values.length; i++)
+        {
+            values[i] = Math.exp(random.nextGaussian());
+        }
+        IndexedColorMap1D colorMap = IndexedColorMaps.create(
+            ColorBrewer.get(ColorSchemeType.SEQUENTIAL, "YlOrRd", 7));
+        
+        show("Equal interval", ClassBreaks.equalInterval(values, 7), 
+            colorMap, values);
+        show("Quantile", ClassBreaks.quantile(values, 7), 
+            colorMap, values);
+        show("Jenks", ClassBreaks.jenks(values, 7), 
+            colorMap, values);
+    }
+    
+    private static void show(String name, double breaks[], 
+        IndexedColorMap1D colorMap, double values[])
+    {
+        Classifier classifier = new Classifier(breaks, colorMap);
+        int classIndices[] = new int[values.length];
+        classifier.classifyParallel(values, classIndices);
+        int counts[] = new int[classifier.getClassCount()];
+        for (int classIndex : classIndices)
+        {
+            counts[classIndex]++;
+        }
+        System.out.println(name);
+        System.out.println("  Breaks: " + Arrays.toString(breaks));
+        System.out.println("  Counts: " + Arrays.toString(counts));
+    }
+}